@@ -0,0 +1,268 @@
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * This class is an ALT (A*, Landmarks and Triangle inequality) preprocessing of a weighted graph.
+ * It picks k landmark nodes and stores the distance from each landmark to every node of the graph.
+ * By the triangle inequality, for every landmark L: dist(a,b) >= |dist(L,a) - dist(L,b)|,
+ * so the biggest of these differences is an admissible (and consistent) lower bound of dist(a,b)
+ * that needs no coordinates at all.
+ * The landmarks are chosen by "farthest" selection: each new landmark is the node that is farthest from all the
+ * landmarks that were already chosen, so the landmarks end up on the border of the graph, where they give the best bounds.
+ * The preprocessed data can be saved to a file next to the graph and loaded again, instead of being recomputed.
+ *
+ * @author itai.lashover
+ */
+public class ALTLandmarks implements distance_heuristic {
+
+    /**
+     * Each ALTLandmarks contains few fields:
+     * keys : the key of each node, in the order of the distance arrays.
+     * index : IntIntMap from the key of a node to its position in the distance arrays.
+     * landmarks : the keys of the landmarks.
+     * dist : dist[i][j] is the distance between landmark i and the node keys[j] (infinity if there is no path).
+     * nodeSize, edgeSize, mc : the sizes and the Mode Count of the graph that was preprocessed.
+     */
+    private final int[] keys;
+    private final IntIntMap index;
+    private final int[] landmarks;
+    private final double[][] dist;
+    private final int nodeSize;
+    private final int edgeSize;
+    private final int mc;
+
+    /**
+     * The first 4 bytes of an ALT file, and the version of the file format.
+     */
+    private static final int MAGIC = 0x414c5430;
+    private static final int VERSION = 1;
+
+    /**
+     * This constructor preprocesses the given graph with k landmarks.
+     * The first landmark is the node that is farthest from the first node of the graph,
+     * each next landmark is the node with the biggest distance to its closest landmark
+     * (a node that none of the landmarks can reach comes first, so every connected component gets a landmark).
+     * Complexity: O(k*(|V|+|E|)log|V|), one full Dijkstra search per landmark.
+     *
+     * @param g - a weighted graph
+     * @param k - the amount of landmarks (at least 1)
+     */
+    public ALTLandmarks(weighted_graph g, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("At least one landmark is needed");
+        }
+        indexed_graph ig = WGraph_Algo.indexed(g);
+        int n = ig.nodeSize();
+        k = Math.min(k, Math.max(n, 1));
+        this.keys = new int[n];
+        this.index = new IntIntMap(n);
+        int[] ids = new int[n];
+        int j = 0;
+        for (node_info v : ig.getV()) {
+            this.keys[j] = v.getKey();
+            this.index.put(v.getKey(), j);
+            ids[j++] = ig.idOf(v.getKey());
+        }
+        this.landmarks = new int[n == 0 ? 0 : k];
+        this.dist = new double[this.landmarks.length][];
+        SearchSpace space = new SearchSpace();
+        double[] closest = new double[n];
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        if (n > 0) {
+            // start from the node that is farthest from the first node
+            this.landmarks[0] = farthest(ig, ids, space, ids[0]);
+        }
+        for (int i = 0; i < this.landmarks.length; i++) {
+            int src = ig.idOf(this.landmarks[i]);
+            WGraph_Algo.Dijkstra(ig, src, -1, space);
+            this.dist[i] = new double[n];
+            for (j = 0; j < n; j++) {
+                this.dist[i][j] = space.getDist(ids[j]);
+                closest[j] = Math.min(closest[j], this.dist[i][j]);
+            }
+            if (i + 1 < this.landmarks.length) {
+                this.landmarks[i + 1] = this.keys[pick(closest)];
+            }
+        }
+        this.nodeSize = g.nodeSize();
+        this.edgeSize = g.edgeSize();
+        this.mc = g.getMC();
+    }
+
+    /**
+     * This private constructor is used by load.
+     */
+    private ALTLandmarks(int[] keys, int[] landmarks, double[][] dist, int nodeSize, int edgeSize, int mc) {
+        this.keys = keys;
+        this.landmarks = landmarks;
+        this.dist = dist;
+        this.nodeSize = nodeSize;
+        this.edgeSize = edgeSize;
+        this.mc = mc;
+        this.index = new IntIntMap(keys.length);
+        for (int j = 0; j < keys.length; j++) {
+            this.index.put(keys[j], j);
+        }
+    }
+
+    /**
+     * This private method returns the key of the reachable node that is farthest from src.
+     */
+    private int farthest(indexed_graph g, int[] ids, SearchSpace space, int src) {
+        WGraph_Algo.Dijkstra(g, src, -1, space);
+        int best = 0;
+        for (int j = 1; j < ids.length; j++) {
+            if (space.getDist(ids[j]) != Double.POSITIVE_INFINITY && space.getDist(ids[j]) > space.getDist(ids[best])) {
+                best = j;
+            }
+        }
+        return this.keys[best];
+    }
+
+    /**
+     * This private method returns the position of the next landmark:
+     * a node that no landmark reaches if there is one, otherwise the node with the biggest distance to its closest landmark.
+     */
+    private int pick(double[] closest) {
+        int best = 0;
+        for (int j = 1; j < closest.length; j++) {
+            if (closest[j] > closest[best]) {
+                best = j;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * This method returns a lower bound of the distance between the two nodes:
+     * the biggest |dist(L,from) - dist(L,to)| over all the landmarks L.
+     * If a landmark reaches exactly one of the two nodes they are in different components, and the bound is infinity.
+     * Complexity: O(k), k - being the amount of landmarks.
+     *
+     * @param from - a node key
+     * @param to   - a node key
+     * @return a lower bound of the distance, 0 if one of the keys was not preprocessed.
+     */
+    @Override
+    public double estimate(int from, int to) {
+        int a = this.index.get(from);
+        int b = this.index.get(to);
+        if (a < 0 || b < 0) {
+            return 0;
+        }
+        double best = 0;
+        for (double[] d : this.dist) {
+            double da = d[a];
+            double db = d[b];
+            if (da == Double.POSITIVE_INFINITY || db == Double.POSITIVE_INFINITY) {
+                if (da != db) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                continue;
+            }
+            double diff = Math.abs(da - db);
+            if (diff > best) {
+                best = diff;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * This method returns the keys of the landmarks.
+     *
+     * @return a copy of the landmarks
+     */
+    public int[] getLandmarks() {
+        return this.landmarks.clone();
+    }
+
+    /**
+     * This method returns true iff this preprocessing was made for a graph with the same sizes and Mode Count
+     * as the given graph (for example, to check that a loaded file still fits the graph).
+     *
+     * @param g - a weighted graph
+     * @return true or false.
+     */
+    public boolean matches(weighted_graph g) {
+        return g.nodeSize() == this.nodeSize && g.edgeSize() == this.edgeSize && g.getMC() == this.mc;
+    }
+
+    /**
+     * This method saves the preprocessed data to the given file name (a binary file).
+     *
+     * @param file - the file name (may include a relative path).
+     * @return true - iff the file was successfully saved, otherwise false.
+     */
+    public boolean save(String file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.nodeSize);
+            out.writeInt(this.edgeSize);
+            out.writeInt(this.mc);
+            out.writeInt(this.keys.length);
+            out.writeInt(this.landmarks.length);
+            for (int key : this.keys) {
+                out.writeInt(key);
+            }
+            for (int l : this.landmarks) {
+                out.writeInt(l);
+            }
+            for (double[] d : this.dist) {
+                for (double x : d) {
+                    out.writeDouble(x);
+                }
+            }
+        } catch (IOException ex) {
+            System.out.print("Error writing file\n" + ex);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * This method loads preprocessed data that was saved by save.
+     * The amount of nodes and of landmarks in the file are checked against the length of the file.
+     *
+     * @param file - file name
+     * @return the loaded ALTLandmarks, null if the file could not be loaded.
+     */
+    public static ALTLandmarks load(String file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.out.print("Error reading file\n" + file + " is not an ALT landmarks file");
+                return null;
+            }
+            int nodeSize = in.readInt();
+            int edgeSize = in.readInt();
+            int mc = in.readInt();
+            int n = in.readInt();
+            int k = in.readInt();
+            // the counts must match the length of the file before anything is allocated by them
+            long length = 7 * 4L + 4L * n + 4L * k + 8L * k * n;
+            if (n < 0 || k < 0 || length != new File(file).length()) {
+                System.out.print("Error reading file\n" + file + " is corrupted");
+                return null;
+            }
+            int[] keys = new int[n];
+            for (int j = 0; j < n; j++) {
+                keys[j] = in.readInt();
+            }
+            int[] landmarks = new int[k];
+            for (int i = 0; i < k; i++) {
+                landmarks[i] = in.readInt();
+            }
+            double[][] dist = new double[k][n];
+            for (int i = 0; i < k; i++) {
+                for (int j = 0; j < n; j++) {
+                    dist[i][j] = in.readDouble();
+                }
+            }
+            return new ALTLandmarks(keys, landmarks, dist, nodeSize, edgeSize, mc);
+        } catch (IOException ex) {
+            System.out.print("Error reading file\n" + ex);
+            return null;
+        }
+    }
+}
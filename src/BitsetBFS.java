@@ -0,0 +1,273 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class is a direction-optimizing breadth-first search (Beamer, Asanovic and Patterson).
+ * The visited marks are a long[] bitset (one bit per node index) and the frontiers are segments of one int array:
+ * the frontier of each level is queue[head..tail), and the next level is appended after it.
+ * Each level is expanded in one of two directions:
+ * 1. Top-down - every node of the frontier visits its unvisited neighbors (good for a small frontier).
+ * 2. Bottom-up - every unvisited node looks for a neighbor in the frontier (kept as a second bitset),
+ *    and stops at the first one it finds (good for a big frontier, which would visit mostly visited neighbors).
+ * The search goes bottom-up when the edges of the frontier are more than 1/ALPHA of the edges of the unvisited nodes,
+ * and back top-down when the frontier is smaller than 1/BETA of the nodes.
+ * With a ForkJoinPool a big level is expanded in parallel: top-down by splitting the frontier (a node is claimed by
+ * an atomic OR on its word of the bitset), bottom-up by splitting the words of the bitset (each task owns its words).
+ *
+ * @author itai.lashover
+ */
+class BitsetBFS {
+
+    /**
+     * The thresholds of the switches between top-down and bottom-up (the values of Beamer et al.).
+     */
+    static final int ALPHA = 14;
+    static final int BETA = 24;
+
+    /**
+     * A level with less nodes (top-down) or words (bottom-up) than this is expanded by the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Each search contains few fields:
+     * g : the searched graph.
+     * pool : the pool that expands the big levels, null for a sequential search.
+     * visited : the visited bitset, inFrontier : the bitset of the current frontier (bottom-up only).
+     * queue : the visited nodes in the order of their levels, the current frontier is queue[head..tail).
+     * freeMarked : true once the indexes that are not nodes were marked as visited (bottom-up only).
+     */
+    private final indexed_graph g;
+    private final ForkJoinPool pool;
+    private final long[] visited;
+    private long[] inFrontier;
+    private final int[] queue;
+    private int head;
+    private int tail;
+    private boolean freeMarked;
+
+    /**
+     * This constructor prepares a search on the given graph.
+     *
+     * @param g     - an indexed graph
+     * @param pool  - the pool that expands the big levels, null for a sequential search
+     * @param queue - an int array of at least g.idBound() ints
+     */
+    private BitsetBFS(indexed_graph g, ForkJoinPool pool, int[] queue) {
+        this.g = g;
+        this.pool = pool;
+        this.visited = new long[(g.idBound() + 63) >>> 6];
+        this.queue = queue;
+    }
+
+    /**
+     * This method returns the amount of nodes that can be reached from src (src included).
+     * Complexity: O(|V|+|E|), usually far less edges are scanned on the big levels.
+     *
+     * @param g     - an indexed graph
+     * @param src   - the index of the source node
+     * @param pool  - the pool that expands the big levels, null for a sequential search
+     * @param queue - an int array of at least g.idBound() ints
+     * @return the amount of reached nodes
+     */
+    static int reach(indexed_graph g, int src, ForkJoinPool pool, int[] queue) {
+        BitsetBFS bfs = new BitsetBFS(g, pool, queue);
+        bfs.search(src, -1);
+        return bfs.tail;
+    }
+
+    /**
+     * This method returns the least amount of edges on a path between src and dest (the weights are ignored),
+     * the search stops at the level of dest.
+     *
+     * @param g     - an indexed graph
+     * @param src   - the index of the source node
+     * @param dest  - the index of the destination node
+     * @param queue - an int array of at least g.idBound() ints
+     * @return the amount of edges, -1 if there is no path.
+     */
+    static int hops(indexed_graph g, int src, int dest, int[] queue) {
+        return new BitsetBFS(g, null, queue).search(src, dest);
+    }
+
+    /**
+     * This private method is the main loop: the levels are expanded one by one until the frontier is empty
+     * (or dest was visited).
+     *
+     * @return the level of dest, -1 if dest was not reached (or dest is -1)
+     */
+    private int search(int src, int dest) {
+        this.visited[src >>> 6] |= 1L << src;
+        this.queue[0] = src;
+        this.head = 0;
+        this.tail = 1;
+        if (src == dest) {
+            return 0;
+        }
+        long frontierEdges = this.g.degree(src);
+        long unexplored = 2L * this.g.edgeSize() - frontierEdges;
+        boolean bottomUp = false;
+        for (int level = 1; this.head < this.tail; level++) {
+            int size = this.tail - this.head;
+            if (!bottomUp && frontierEdges > unexplored / ALPHA) {
+                bottomUp = true;
+            }
+            else if (bottomUp && size < this.g.nodeSize() / BETA) {
+                bottomUp = false;
+            }
+            int next = this.tail;
+            if (bottomUp) {
+                bottomUp();
+            }
+            else {
+                topDown();
+            }
+            this.head = next;
+            if (dest >= 0 && (this.visited[dest >>> 6] & (1L << dest)) != 0) {
+                return level;
+            }
+            frontierEdges = 0;
+            for (int i = this.head; i < this.tail; i++) {
+                frontierEdges += this.g.degree(this.queue[i]);
+            }
+            unexplored -= frontierEdges;
+        }
+        return -1;
+    }
+
+    /**
+     * This private method expands the frontier top-down: the unvisited neighbors of the frontier are appended.
+     */
+    private void topDown() {
+        int from = this.head;
+        int to = this.tail;
+        if (this.pool == null || to - from < PARALLEL_THRESHOLD) {
+            indexed_graph.edge_cursor c = this.g.edges();
+            for (int i = from; i < to; i++) {
+                c.reset(this.queue[i]);
+                while (c.next()) {
+                    int v = c.target();
+                    long bit = 1L << v;
+                    if ((this.visited[v >>> 6] & bit) == 0) {
+                        this.visited[v >>> 6] |= bit;
+                        this.queue[this.tail++] = v;
+                    }
+                }
+            }
+            return;
+        }
+        int chunks = Math.min((to - from) / (PARALLEL_THRESHOLD / 4), this.pool.getParallelism() * 4);
+        int step = (to - from + chunks - 1) / chunks;
+        List<IntList> outs = this.pool.submit(() -> IntStream.range(0, chunks).parallel().mapToObj(k -> {
+            IntList out = new IntList();
+            indexed_graph.edge_cursor c = this.g.edges();
+            for (int i = from + k * step; i < Math.min(to, from + (k + 1) * step); i++) {
+                c.reset(this.queue[i]);
+                while (c.next()) {
+                    int v = c.target();
+                    long bit = 1L << v;
+                    if ((this.visited[v >>> 6] & bit) == 0
+                            && ((long) WORDS.getAndBitwiseOr(this.visited, v >>> 6, bit) & bit) == 0) {
+                        out.add(v);
+                    }
+                }
+            }
+            return out;
+        }).collect(Collectors.toList())).join();
+        append(outs);
+    }
+
+    /**
+     * This private method expands the frontier bottom-up: every unvisited node with a neighbor in the frontier
+     * is visited and appended.
+     */
+    private void bottomUp() {
+        int words = this.visited.length;
+        if (!this.freeMarked) {
+            markFree();
+        }
+        if (this.inFrontier == null) {
+            this.inFrontier = new long[words];
+        }
+        else {
+            Arrays.fill(this.inFrontier, 0);
+        }
+        for (int i = this.head; i < this.tail; i++) {
+            int u = this.queue[i];
+            this.inFrontier[u >>> 6] |= 1L << u;
+        }
+        if (this.pool == null || words < PARALLEL_THRESHOLD) {
+            IntList out = new IntList();
+            bottomUp(0, words, out);
+            System.arraycopy(out.data, 0, this.queue, this.tail, out.size);
+            this.tail += out.size;
+            return;
+        }
+        int chunks = Math.min(words / (PARALLEL_THRESHOLD / 4), this.pool.getParallelism() * 4);
+        int step = (words + chunks - 1) / chunks;
+        List<IntList> outs = this.pool.submit(() -> IntStream.range(0, chunks).parallel().mapToObj(k -> {
+            IntList out = new IntList();
+            bottomUp(k * step, Math.min(words, (k + 1) * step), out);
+            return out;
+        }).collect(Collectors.toList())).join();
+        append(outs);
+    }
+
+    /**
+     * This private method checks the unvisited nodes of the words [from, to) of the bitset,
+     * and collects the ones that have a neighbor in the frontier.
+     */
+    private void bottomUp(int from, int to, IntList out) {
+        indexed_graph.edge_cursor c = this.g.edges();
+        for (int w = from; w < to; w++) {
+            long unvisited = ~this.visited[w];
+            while (unvisited != 0) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                unvisited &= unvisited - 1;
+                c.reset(v);
+                while (c.next()) {
+                    int u = c.target();
+                    if ((this.inFrontier[u >>> 6] & (1L << u)) != 0) {
+                        this.visited[w] |= 1L << v;
+                        out.add(v);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This private method marks the indexes that are not nodes (and the bits after the last index) as visited,
+     * so the bottom-up steps never look at them.
+     */
+    private void markFree() {
+        int bound = this.g.idBound();
+        for (int id = 0; id < bound; id++) {
+            if (this.g.nodeAt(id) == null) {
+                this.visited[id >>> 6] |= 1L << id;
+            }
+        }
+        if ((bound & 63) != 0) {
+            this.visited[this.visited.length - 1] |= -1L << bound;
+        }
+        this.freeMarked = true;
+    }
+
+    /**
+     * This private method appends the nodes of the lists to the queue.
+     */
+    private void append(List<IntList> outs) {
+        for (IntList out : outs) {
+            System.arraycopy(out.data, 0, this.queue, this.tail, out.size);
+            this.tail += out.size;
+        }
+    }
+}
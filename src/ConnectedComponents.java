@@ -0,0 +1,90 @@
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * This class is the result of a connected components query (see WGraph_Algo.connectedComponents):
+ * the components are numbered 0..count-1, and every node key is mapped to the number of its component.
+ * It is a snapshot, later changes of the graph do not change it.
+ *
+ * @author itai.lashover
+ */
+public class ConnectedComponents {
+
+    /**
+     * Each ConnectedComponents contains two fields:
+     * component : IntIntMap from the key of a node to the number of its component.
+     * sizes : the amount of nodes in each component.
+     */
+    private final IntIntMap component;
+    private final int[] sizes;
+
+    /**
+     * This constructor numbers the components in the order of the nodes of the graph.
+     * Complexity: O(|V|) calls of root.
+     *
+     * @param g     - an indexed graph
+     * @param count - the amount of components
+     * @param root  - returns the same value for two node indexes iff they are in the same component
+     */
+    ConnectedComponents(indexed_graph g, int count, IntUnaryOperator root) {
+        this.component = new IntIntMap(g.nodeSize());
+        this.sizes = new int[count];
+        IntIntMap number = new IntIntMap(count);
+        for (node_info n : g.getV()) {
+            int r = root.applyAsInt(g.idOf(n.getKey()));
+            int c = number.get(r);
+            if (c < 0) {
+                c = number.size();
+                number.put(r, c);
+            }
+            this.component.put(n.getKey(), c);
+            this.sizes[c]++;
+        }
+    }
+
+    /**
+     * This method returns the amount of connected components.
+     *
+     * @return count
+     */
+    public int count() {
+        return this.sizes.length;
+    }
+
+    /**
+     * This method returns the number of the component of the node.
+     *
+     * @param key - a node key
+     * @return the number of its component, -1 if the graph did not contain the key.
+     */
+    public int componentOf(int key) {
+        return this.component.get(key);
+    }
+
+    /**
+     * This method returns the amount of nodes in the component.
+     *
+     * @param c - the number of a component
+     * @return its size
+     */
+    public int sizeOf(int c) {
+        return this.sizes[c];
+    }
+
+    /**
+     * This method returns the amount of nodes in each component.
+     *
+     * @return a copy of the sizes
+     */
+    public int[] getSizes() {
+        return this.sizes.clone();
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public String toString() {
+        return "{Components:" + this.sizes.length + ",Sizes:" + Arrays.toString(this.sizes) + "}";
+    }
+}
@@ -0,0 +1,269 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class is the delta-stepping algorithm (Meyer and Sanders), a parallel single source shortest path search.
+ * The tentative distances are divided into buckets of width delta: bucket i holds the nodes with a distance in
+ * [i*delta, (i+1)*delta). An edge is light if its weight is at most delta, otherwise it is heavy.
+ * The buckets are processed in order, and each bucket in phases:
+ * 1. Relax the light edges of all the nodes of the current bucket in parallel - this may add (or move back)
+ *    nodes into the current bucket, so repeat until it stays empty.
+ * 2. Relax the heavy edges of all the nodes that were removed from the bucket in parallel (they cannot reach it again).
+ * All the nodes of a bucket are relaxed together, so a bucket gives the threads a lot of independent work,
+ * unlike Dijkstra that settles one node at a time. With delta = the smallest weight it acts like Dijkstra,
+ * and with delta = infinity like Bellman-Ford.
+ * The distances are kept in an AtomicLongArray (the bits of the doubles), a relaxation is a compare-and-set loop,
+ * so the final distances are the same as the distances of Dijkstra.
+ * Only maxWeight/delta + 2 buckets can hold nodes at the same time, so the buckets are a cyclic array.
+ *
+ * @author itai.lashover
+ */
+class DeltaStepping {
+
+    /**
+     * A frontier smaller than this is relaxed by the calling thread, a bigger one is split between the threads.
+     */
+    static final int PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * The maximal amount of buckets, a smaller delta is raised to maxWeight / MAX_BUCKETS.
+     */
+    static final int MAX_BUCKETS = 1 << 20;
+
+    /**
+     * Each run contains few fields:
+     * g : the searched graph.
+     * delta : the width of a bucket.
+     * pool : the pool that runs the parallel relaxations.
+     * dist : the bits of the tentative distance of each node index.
+     * buckets : the cyclic array of buckets, bucket i is buckets[i % buckets.length].
+     * pending : the amount of entries in all the buckets.
+     * seen, removed : stamps of the nodes that were already taken in this round / removed from this bucket.
+     */
+    private final indexed_graph g;
+    private final double delta;
+    private final ForkJoinPool pool;
+    private final AtomicLongArray dist;
+    private final IntList[] buckets;
+    private long pending;
+    private final int[] seen;
+    private final int[] removed;
+    private int round;
+    private int phase;
+
+    /**
+     * This constructor prepares a search on the given graph.
+     *
+     * @param g         - an indexed graph
+     * @param delta     - the width of a bucket (positive)
+     * @param maxWeight - the biggest edge weight of the graph
+     * @param pool      - the pool that runs the parallel relaxations
+     */
+    private DeltaStepping(indexed_graph g, double delta, double maxWeight, ForkJoinPool pool) {
+        this.g = g;
+        this.delta = Math.max(delta, maxWeight / MAX_BUCKETS);
+        this.pool = pool;
+        int n = g.idBound();
+        this.dist = new AtomicLongArray(n);
+        long inf = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            this.dist.lazySet(i, inf);
+        }
+        this.buckets = new IntList[(int) (maxWeight / this.delta) + 2];
+        this.seen = new int[n];
+        this.removed = new int[n];
+    }
+
+    /**
+     * This method returns a delta for the given graph: the biggest weight divided by the average degree,
+     * so the light edges of a bucket are about one edge per node (the choice of Meyer and Sanders for random weights).
+     *
+     * @param g   - an indexed graph
+     * @param max - the biggest edge weight of the graph
+     * @return delta
+     */
+    static double autoDelta(indexed_graph g, double max) {
+        double degree = g.nodeSize() == 0 ? 1 : Math.max(1.0, 2.0 * g.edgeSize() / g.nodeSize());
+        return max > 0 ? max / degree : 1;
+    }
+
+    /**
+     * This method returns the biggest edge weight of the graph (0 for a graph without edges).
+     * Complexity: O(|V|+|E|).
+     *
+     * @param g - an indexed graph
+     * @return the biggest weight
+     */
+    static double maxWeight(indexed_graph g) {
+        double max = 0;
+        indexed_graph.edge_cursor c = g.edges();
+        for (int id = 0; id < g.idBound(); id++) {
+            if (g.nodeAt(id) == null) {
+                continue;
+            }
+            c.reset(id);
+            while (c.next()) {
+                max = Math.max(max, c.weight());
+            }
+        }
+        return max;
+    }
+
+    /**
+     * This method computes the distances from src to every node of the graph.
+     * Complexity: O(|V|+|E|) work per round of light relaxations, usually a few rounds per bucket.
+     *
+     * @param g     - an indexed graph
+     * @param src   - the index of the source node
+     * @param delta - the width of a bucket, 0 or less for autoDelta
+     * @param pool  - the pool that runs the parallel relaxations
+     * @return the distance of each node index, infinity if it was not reached.
+     */
+    static double[] run(indexed_graph g, int src, double delta, ForkJoinPool pool) {
+        double max = maxWeight(g);
+        if (delta <= 0) {
+            delta = autoDelta(g, max);
+        }
+        DeltaStepping ds = new DeltaStepping(g, delta, max, pool);
+        ds.search(src);
+        double[] out = new double[g.idBound()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = Double.longBitsToDouble(ds.dist.get(i));
+        }
+        return out;
+    }
+
+    /**
+     * This private method is the main loop: the buckets are taken in order until all of them are empty.
+     */
+    private void search(int src) {
+        this.dist.set(src, Double.doubleToRawLongBits(0));
+        add(src, 0);
+        for (long b = 0; this.pending > 0; b++) {
+            IntList bucket = this.buckets[(int) (b % this.buckets.length)];
+            if (bucket == null || bucket.size == 0) {
+                continue;
+            }
+            this.phase++;
+            IntList done = new IntList();
+            while (bucket.size > 0) {
+                int[] frontier = take(bucket, b, done);
+                relax(frontier, true);
+            }
+            relax(done.toArray(), false);
+        }
+    }
+
+    /**
+     * This private method empties the bucket and returns its nodes that still belong to it, each node once
+     * (a node whose distance was improved into another bucket since it was added here, was also added there).
+     * The nodes are also added to done, once per bucket.
+     */
+    private int[] take(IntList bucket, long b, IntList done) {
+        int r = ++this.round;
+        int[] out = new int[bucket.size];
+        int n = 0;
+        for (int i = 0; i < bucket.size; i++) {
+            int u = bucket.data[i];
+            if (this.seen[u] != r && bucketOf(u) == b) {
+                this.seen[u] = r;
+                out[n++] = u;
+                if (this.removed[u] != this.phase) {
+                    this.removed[u] = this.phase;
+                    done.add(u);
+                }
+            }
+        }
+        this.pending -= bucket.size;
+        bucket.size = 0;
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * This private method relaxes the light (or the heavy) edges of the given nodes,
+     * in parallel if there are enough of them, and adds every improved node to its new bucket.
+     */
+    private void relax(int[] nodes, boolean light) {
+        if (nodes.length < PARALLEL_THRESHOLD) {
+            IntList out = new IntList();
+            relax(nodes, 0, nodes.length, light, out);
+            addAll(out);
+            return;
+        }
+        int chunks = Math.min(nodes.length / (PARALLEL_THRESHOLD / 4), this.pool.getParallelism() * 4);
+        int step = (nodes.length + chunks - 1) / chunks;
+        List<IntList> outs = this.pool.submit(() -> IntStream.range(0, chunks).parallel().mapToObj(c -> {
+            IntList out = new IntList();
+            relax(nodes, c * step, Math.min(nodes.length, (c + 1) * step), light, out);
+            return out;
+        }).collect(Collectors.toList())).join();
+        for (IntList out : outs) {
+            addAll(out);
+        }
+    }
+
+    /**
+     * This private method relaxes the light (or the heavy) edges of nodes[from..to-1],
+     * and collects the nodes whose distance was improved.
+     */
+    private void relax(int[] nodes, int from, int to, boolean light, IntList out) {
+        indexed_graph.edge_cursor c = this.g.edges();
+        for (int i = from; i < to; i++) {
+            int u = nodes[i];
+            double du = Double.longBitsToDouble(this.dist.get(u));
+            c.reset(u);
+            while (c.next()) {
+                double w = c.weight();
+                if ((w <= this.delta) != light) {
+                    continue;
+                }
+                int v = c.target();
+                double d = du + w;
+                long bits = Double.doubleToRawLongBits(d);
+                while (true) {
+                    long old = this.dist.get(v);
+                    if (Double.longBitsToDouble(old) <= d) {
+                        break;
+                    }
+                    if (this.dist.compareAndSet(v, old, bits)) {
+                        out.add(v);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This private method adds every node of the list to the bucket of its current distance.
+     */
+    private void addAll(IntList out) {
+        for (int i = 0; i < out.size; i++) {
+            int v = out.data[i];
+            add(v, bucketOf(v));
+        }
+    }
+
+    /**
+     * This private method adds the node to the given bucket.
+     */
+    private void add(int v, long b) {
+        int i = (int) (b % this.buckets.length);
+        if (this.buckets[i] == null) {
+            this.buckets[i] = new IntList();
+        }
+        this.buckets[i].add(v);
+        this.pending++;
+    }
+
+    /**
+     * This private method returns the bucket of the current distance of the node.
+     */
+    private long bucketOf(int v) {
+        return (long) (Double.longBitsToDouble(this.dist.get(v)) / this.delta);
+    }
+}
@@ -0,0 +1,197 @@
+import java.util.Arrays;
+
+/**
+ * This class is Dial's bucket queue, the priority queue of a Dijkstra search on a graph with small integer weights.
+ * When every weight is an integer of at most C, every key in the queue is an integer in [min, min+C],
+ * so the queue is a cyclic array of C+1 buckets: the key k is in bucket k % (C+1),
+ * and the smallest key is found by moving a cursor forward over the buckets.
+ * A push and a poll cost O(1) (plus the empty buckets the cursor skips), without any comparisons between keys.
+ * A bucket is a stack of entries in three parallel arrays (the entries of all the buckets share them, with a free list).
+ * Decreasing the key of an id adds another entry, the old one is skipped when its bucket is reached.
+ * The keys must be monotone: a pushed key is never smaller than the last polled key, and at most C bigger.
+ *
+ * @author itai.lashover
+ */
+class DialQueue implements search_queue {
+
+    /**
+     * Each DialQueue contains few fields:
+     * width : the amount of buckets (the biggest weight + 1).
+     * head : the first entry of each bucket, -1 if the bucket is empty.
+     * next, who, where : the next entry in the same bucket, the id and the bucket of each entry.
+     * used : the amount of entries that were ever used since the last reset, free : the free list of entries.
+     * key : the current key of each id, valid only if mark[id] == stamp (in the queue) or -stamp (polled).
+     * cur : the key of the bucket the cursor is on (every key in the queue is in [cur, cur+width)).
+     * size : the amount of ids in the queue.
+     */
+    private int width = 1;
+    private int[] head = new int[0];
+    private int[] next = new int[16];
+    private int[] who = new int[16];
+    private int[] where = new int[16];
+    private int used;
+    private int free = -1;
+    private double[] key = new double[0];
+    private int[] mark = new int[0];
+    private int stamp;
+    private long cur;
+    private int size;
+
+    /**
+     * This method sets the biggest weight of the next searches (call it before reset).
+     *
+     * @param maxWeight - the biggest edge weight, an integer
+     */
+    void setMaxWeight(int maxWeight) {
+        this.width = maxWeight + 1;
+    }
+
+    /**
+     * This method empties the queue and makes room for ids smaller than the given bound.
+     * Complexity: O(entries of the last search), not O(width).
+     *
+     * @param bound - the bound of the ids
+     */
+    @Override
+    public void reset(int bound) {
+        for (int e = 0; e < this.used; e++) {
+            if (this.where[e] < this.head.length) {
+                this.head[this.where[e]] = -1;
+            }
+        }
+        if (this.head.length < this.width) {
+            this.head = new int[this.width];
+            Arrays.fill(this.head, -1);
+        }
+        if (this.mark.length < bound) {
+            int cap = Math.max(bound, this.mark.length + (this.mark.length >> 1));
+            this.key = new double[cap];
+            this.mark = new int[cap];
+            this.stamp = 0;
+        }
+        if (++this.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.mark, 0);
+            this.stamp = 1;
+        }
+        this.used = 0;
+        this.free = -1;
+        this.cur = 0;
+        this.size = 0;
+    }
+
+    /**
+     * This method returns true iff the queue is empty.
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * This method returns the amount of ids in the queue.
+     *
+     * @return size
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * This method adds the id with the given key, or decreases its key if it is already in the queue.
+     * Complexity: O(1).
+     *
+     * @param id  - an id smaller than the bound
+     * @param k   - the key, an integer in [the last polled key, the last polled key + the biggest weight]
+     */
+    @Override
+    public void push(int id, double k) {
+        if (this.mark[id] == this.stamp) {
+            if (this.key[id] <= k) {
+                return;
+            }
+        }
+        else {
+            this.size++;
+        }
+        this.mark[id] = this.stamp;
+        this.key[id] = k;
+        int e = this.free;
+        if (e >= 0) {
+            this.free = this.next[e];
+        }
+        else {
+            if (this.used == this.who.length) {
+                this.next = Arrays.copyOf(this.next, this.used * 2);
+                this.who = Arrays.copyOf(this.who, this.used * 2);
+                this.where = Arrays.copyOf(this.where, this.used * 2);
+            }
+            e = this.used++;
+        }
+        int b = (int) ((long) k % this.width);
+        this.who[e] = id;
+        this.where[e] = b;
+        this.next[e] = this.head[b];
+        this.head[b] = e;
+    }
+
+    /**
+     * This method returns the smallest key in the queue.
+     *
+     * @return the smallest key
+     */
+    @Override
+    public double minKey() {
+        advance();
+        return this.cur;
+    }
+
+    /**
+     * This method removes the id with the smallest key from the queue and returns it.
+     * Complexity: O(1) plus the empty buckets that are skipped.
+     *
+     * @return the id with the smallest key
+     */
+    @Override
+    public int poll() {
+        advance();
+        int b = (int) (this.cur % this.width);
+        int e = this.head[b];
+        int id = this.who[e];
+        drop(b, e);
+        this.mark[id] = -this.stamp;
+        this.size--;
+        return id;
+    }
+
+    /**
+     * This private method moves the cursor to the first bucket whose first entry is an id in the queue with the key
+     * of the bucket, the other entries on the way are dropped. The queue must not be empty.
+     */
+    private void advance() {
+        while (true) {
+            int b = (int) (this.cur % this.width);
+            int e = this.head[b];
+            while (e >= 0) {
+                int id = this.who[e];
+                if (this.mark[id] == this.stamp && this.key[id] == this.cur) {
+                    return;
+                }
+                drop(b, e);
+                e = this.head[b];
+            }
+            this.cur++;
+        }
+    }
+
+    /**
+     * This private method removes the first entry e of bucket b and adds it to the free list.
+     */
+    private void drop(int b, int e) {
+        this.head[b] = this.next[e];
+        this.next[e] = this.free;
+        this.free = e;
+    }
+}
@@ -0,0 +1,561 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class keeps the connected components of a graph under both insertions and removals of nodes and edges.
+ * It maintains a spanning forest of the graph, and every tree of the forest is kept as its Euler tour
+ * (an Euler tour tree): a sequence with one entry for each node of the tree and two entries (arcs) for each tree edge,
+ * stored in a treap (a randomized balanced binary tree) ordered by the position in the tour.
+ * Two nodes are connected iff their entries are in the same treap, so a connectivity query walks up to the root of
+ * the treap - O(log n) expected time. Linking two trees or cutting a tree edge is a few treap splits and merges - O(log n).
+ * Operations on the graph:
+ * 1. A new node is a new tree of its own.
+ * 2. A new edge between two trees links them, an edge inside a tree is just a non-tree edge of the graph.
+ * 3. Removing a non-tree edge changes nothing.
+ * 4. Removing a tree edge cuts its tree in two, then the nodes of the smaller tree are scanned for a (non-tree) edge
+ *    to the other tree. If there is such a replacement edge it links the two trees again.
+ * The replacement search costs O(log n) plus the degrees of the smaller tree, so (unlike Holm-de Lichtenberg-Thorup,
+ * which adds levels to the edges) it is not polylogarithmic in the worst case, but every other operation is.
+ * The entries are kept in flat int arrays (index -1 is "none"), and their indexes are reused.
+ *
+ * @author itai.lashover
+ */
+class DynamicConnectivity {
+
+    /**
+     * Each DynamicConnectivity contains few fields:
+     * g : the graph, its edges are scanned by the replacement search.
+     * left, right, parent : the links of each entry in its treap.
+     * pri : the random priority of each entry (a parent has a bigger priority than its children).
+     * size : the amount of entries in the subtree of each entry.
+     * nodes : the amount of node entries (not arcs) in the subtree of each entry.
+     * owner : the node index of a node entry, -1 for an arc.
+     * entry : the node entry of each node index (-1 if the index is not a node).
+     * arcs : ArcMap from a directed tree edge (u,v) to its arc entry.
+     * free, freeCount : a stack of free entries.
+     * count : the amount of trees (connected components).
+     * mark, stamp : the marks of the nodes of the smaller tree during a replacement search.
+     */
+    private final indexed_graph g;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private int[] pri;
+    private int[] size;
+    private int[] nodes;
+    private int[] owner;
+    private int used;
+    private int[] entry;
+    private final ArcMap arcs = new ArcMap();
+    private int[] free = new int[16];
+    private int freeCount;
+    private int count;
+    private int[] mark;
+    private int stamp;
+    private final Random rnd = new Random(0x5eed);
+
+    /**
+     * The result of the last split (the part before the position and the part from it).
+     */
+    private int splitLeft;
+    private int splitRight;
+
+    /**
+     * This constructor builds a spanning forest of the given graph.
+     * Complexity: O((|V|+|E|)log|V|) expected.
+     *
+     * @param g - an indexed graph
+     */
+    DynamicConnectivity(indexed_graph g) {
+        this.g = g;
+        int cap = Math.max(16, g.idBound() * 3);
+        this.left = new int[cap];
+        this.right = new int[cap];
+        this.parent = new int[cap];
+        this.pri = new int[cap];
+        this.size = new int[cap];
+        this.nodes = new int[cap];
+        this.owner = new int[cap];
+        this.entry = new int[Math.max(16, g.idBound())];
+        Arrays.fill(this.entry, -1);
+        this.mark = new int[this.entry.length];
+        for (int id = 0; id < g.idBound(); id++) {
+            if (g.nodeAt(id) != null) {
+                addNode(id);
+            }
+        }
+        indexed_graph.edge_cursor c = g.edges();
+        for (int id = 0; id < g.idBound(); id++) {
+            if (g.nodeAt(id) == null) {
+                continue;
+            }
+            c.reset(id);
+            while (c.next()) {
+                if (c.target() > id) {
+                    addEdge(id, c.target());
+                }
+            }
+        }
+    }
+
+    /**
+     * This method adds a node (a tree of its own).
+     *
+     * @param id - the index of a new node
+     */
+    void addNode(int id) {
+        if (id >= this.entry.length) {
+            int cap = Math.max(id + 1, this.entry.length * 2);
+            int old = this.entry.length;
+            this.entry = Arrays.copyOf(this.entry, cap);
+            Arrays.fill(this.entry, old, cap, -1);
+            this.mark = Arrays.copyOf(this.mark, cap);
+        }
+        this.entry[id] = alloc(id);
+        this.count++;
+    }
+
+    /**
+     * This method is called after an edge was added to the graph: if it connects two trees it becomes a tree edge.
+     * Complexity: O(log n) expected.
+     *
+     * @param u - a node index
+     * @param v - a node index
+     */
+    void addEdge(int u, int v) {
+        if (!connected(u, v)) {
+            link(u, v);
+        }
+    }
+
+    /**
+     * This method is called after an edge was removed from the graph.
+     * If it was a tree edge, its tree is cut and the smaller part looks for a replacement edge.
+     *
+     * @param u - a node index
+     * @param v - a node index
+     */
+    void removeEdge(int u, int v) {
+        if (this.arcs.get(u, v) >= 0) {
+            cut(u, v);
+            replace(u, v);
+        }
+    }
+
+    /**
+     * This method is called after a node and all its edges were removed from the graph.
+     * Every tree edge of the node is removed (each one with its replacement search), and then the node itself.
+     *
+     * @param id         - the index of the removed node
+     * @param neighbors  - the indexes of its neighbors before the removal
+     */
+    void removeNode(int id, int[] neighbors) {
+        for (int v : neighbors) {
+            removeEdge(id, v);
+        }
+        release(this.entry[id]);
+        this.entry[id] = -1;
+        this.count--;
+    }
+
+    /**
+     * This method returns true iff the two nodes are in the same tree (connected component).
+     * Complexity: O(log n) expected.
+     *
+     * @param u - a node index
+     * @param v - a node index
+     * @return true or false.
+     */
+    boolean connected(int u, int v) {
+        return root(this.entry[u]) == root(this.entry[v]);
+    }
+
+    /**
+     * This method returns an identifier of the tree of the node (the same one for all the nodes of the tree,
+     * until the next change).
+     *
+     * @param id - a node index
+     * @return the root entry of its tree
+     */
+    int component(int id) {
+        return root(this.entry[id]);
+    }
+
+    /**
+     * This method returns the amount of nodes in the tree of the node.
+     *
+     * @param id - a node index
+     * @return the size of its component
+     */
+    int sizeOf(int id) {
+        return this.nodes[root(this.entry[id])];
+    }
+
+    /**
+     * This method returns the amount of trees (connected components).
+     *
+     * @return count
+     */
+    int count() {
+        return this.count;
+    }
+
+    /**
+     * This private method makes the node the first entry of the Euler tour of its tree, and returns the root of the treap.
+     */
+    private int reroot(int id) {
+        int x = this.entry[id];
+        int r = root(x);
+        split(r, index(x));
+        return merge(this.splitRight, this.splitLeft);
+    }
+
+    /**
+     * This private method links the trees of u and v by the tree edge (u,v):
+     * tour(u) + (u,v) + tour(v) + (v,u), each tour starting at its node.
+     */
+    private void link(int u, int v) {
+        int tu = reroot(u);
+        int tv = reroot(v);
+        int a = alloc(-1);
+        int b = alloc(-1);
+        this.arcs.put(u, v, a);
+        this.arcs.put(v, u, b);
+        merge(merge(merge(tu, a), tv), b);
+        this.count--;
+    }
+
+    /**
+     * This private method cuts the tree edge (u,v): the tour A (u,v) B (v,u) C becomes the two tours A C and B.
+     */
+    private void cut(int u, int v) {
+        int a = this.arcs.remove(u, v);
+        int b = this.arcs.remove(v, u);
+        int r = root(a);
+        int ia = index(a);
+        int ib = index(b);
+        if (ia > ib) {
+            int t = a;
+            a = b;
+            b = t;
+            t = ia;
+            ia = ib;
+            ib = t;
+        }
+        split(r, ia);
+        int first = this.splitLeft;
+        split(this.splitRight, ib - ia);
+        int middle = this.splitLeft;
+        int last = this.splitRight;
+        split(middle, 1);   // drops the first arc
+        middle = this.splitRight;
+        split(last, 1);     // drops the second arc
+        last = this.splitRight;
+        merge(first, last);
+        release(a);
+        release(b);
+        this.count++;
+    }
+
+    /**
+     * This private method looks for a replacement edge after the tree edge (u,v) was cut:
+     * the nodes of the smaller of the two trees are marked, and their edges are scanned for an edge to an unmarked node.
+     */
+    private void replace(int u, int v) {
+        int ru = root(this.entry[u]);
+        int rv = root(this.entry[v]);
+        int small = this.nodes[ru] <= this.nodes[rv] ? ru : rv;
+        int[] members = collect(small);
+        if (++this.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.mark, 0);
+            this.stamp = 1;
+        }
+        int s = this.stamp;
+        for (int x : members) {
+            this.mark[x] = s;
+        }
+        indexed_graph.edge_cursor c = this.g.edges();
+        for (int x : members) {
+            if (this.g.nodeAt(x) == null) {
+                continue;   // the node is being removed, its edges are gone
+            }
+            c.reset(x);
+            while (c.next()) {
+                if (this.mark[c.target()] != s) {
+                    link(x, c.target());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * This private method returns the node indexes of the tree whose treap root is given.
+     */
+    private int[] collect(int r) {
+        int[] out = new int[this.nodes[r]];
+        int n = 0;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = r;
+        while (top > 0) {
+            int x = stack[--top];
+            if (this.owner[x] >= 0) {
+                out[n++] = this.owner[x];
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (this.left[x] >= 0) {
+                stack[top++] = this.left[x];
+            }
+            if (this.right[x] >= 0) {
+                stack[top++] = this.right[x];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * This private method returns the root of the treap of the entry.
+     */
+    private int root(int x) {
+        while (this.parent[x] >= 0) {
+            x = this.parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * This private method returns the position of the entry in its tour.
+     */
+    private int index(int x) {
+        int i = size(this.left[x]);
+        while (this.parent[x] >= 0) {
+            int p = this.parent[x];
+            if (this.right[p] == x) {
+                i += size(this.left[p]) + 1;
+            }
+            x = p;
+        }
+        return i;
+    }
+
+    /**
+     * This private method returns the amount of entries in the subtree (0 for none).
+     */
+    private int size(int x) {
+        return x < 0 ? 0 : this.size[x];
+    }
+
+    /**
+     * This private method computes the size and the node count of an entry from its children.
+     */
+    private void pull(int x) {
+        int l = this.left[x];
+        int r = this.right[x];
+        this.size[x] = 1 + size(l) + size(r);
+        this.nodes[x] = (this.owner[x] >= 0 ? 1 : 0) + (l < 0 ? 0 : this.nodes[l]) + (r < 0 ? 0 : this.nodes[r]);
+    }
+
+    /**
+     * This private method concatenates two treaps (all of a before all of b) and returns the new root.
+     */
+    private int merge(int a, int b) {
+        int r = merge0(a, b);
+        if (r >= 0) {
+            this.parent[r] = -1;
+        }
+        return r;
+    }
+
+    private int merge0(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        if (this.pri[a] > this.pri[b]) {
+            int r = merge0(this.right[a], b);
+            this.right[a] = r;
+            this.parent[r] = a;
+            pull(a);
+            return a;
+        }
+        int l = merge0(a, this.left[b]);
+        this.left[b] = l;
+        this.parent[l] = b;
+        pull(b);
+        return b;
+    }
+
+    /**
+     * This private method splits a treap into its first k entries (splitLeft) and the rest (splitRight).
+     */
+    private void split(int t, int k) {
+        split0(t, k);
+        if (this.splitLeft >= 0) {
+            this.parent[this.splitLeft] = -1;
+        }
+        if (this.splitRight >= 0) {
+            this.parent[this.splitRight] = -1;
+        }
+    }
+
+    private void split0(int t, int k) {
+        if (t < 0) {
+            this.splitLeft = -1;
+            this.splitRight = -1;
+            return;
+        }
+        if (size(this.left[t]) < k) {
+            split0(this.right[t], k - size(this.left[t]) - 1);
+            this.right[t] = this.splitLeft;
+            if (this.splitLeft >= 0) {
+                this.parent[this.splitLeft] = t;
+            }
+            pull(t);
+            this.splitLeft = t;
+        }
+        else {
+            split0(this.left[t], k);
+            this.left[t] = this.splitRight;
+            if (this.splitRight >= 0) {
+                this.parent[this.splitRight] = t;
+            }
+            pull(t);
+            this.splitRight = t;
+        }
+    }
+
+    /**
+     * This private method returns a new single entry, a node entry of the given index or an arc (owner -1).
+     */
+    private int alloc(int id) {
+        int x;
+        if (this.freeCount > 0) {
+            x = this.free[--this.freeCount];
+        }
+        else {
+            x = this.used++;
+            if (x == this.left.length) {
+                int cap = x * 2;
+                this.left = Arrays.copyOf(this.left, cap);
+                this.right = Arrays.copyOf(this.right, cap);
+                this.parent = Arrays.copyOf(this.parent, cap);
+                this.pri = Arrays.copyOf(this.pri, cap);
+                this.size = Arrays.copyOf(this.size, cap);
+                this.nodes = Arrays.copyOf(this.nodes, cap);
+                this.owner = Arrays.copyOf(this.owner, cap);
+            }
+        }
+        this.left[x] = -1;
+        this.right[x] = -1;
+        this.parent[x] = -1;
+        this.pri[x] = this.rnd.nextInt();
+        this.owner[x] = id;
+        pull(x);
+        return x;
+    }
+
+    /**
+     * This private method frees a single entry (that is not linked to any other entry).
+     */
+    private void release(int x) {
+        if (this.freeCount == this.free.length) {
+            this.free = Arrays.copyOf(this.free, this.freeCount * 2);
+        }
+        this.free[this.freeCount++] = x;
+    }
+
+    /**
+     * This private class is an open addressing map from a directed edge (u,v) to an entry,
+     * with linear probing and backward shift deletion (like IntNodeMap).
+     */
+    private static final class ArcMap {
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private boolean[] full = new boolean[16];
+        private int size;
+
+        private static long key(int u, int v) {
+            return ((long) u << 32) | (v & 0xffffffffL);
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & (this.keys.length - 1);
+        }
+
+        int get(int u, int v) {
+            long k = key(u, v);
+            int mask = this.keys.length - 1;
+            for (int i = slot(k); this.full[i]; i = (i + 1) & mask) {
+                if (this.keys[i] == k) {
+                    return this.values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(int u, int v, int value) {
+            if ((this.size + 1) * 2 > this.keys.length) {
+                grow();
+            }
+            long k = key(u, v);
+            int mask = this.keys.length - 1;
+            int i = slot(k);
+            while (this.full[i] && this.keys[i] != k) {
+                i = (i + 1) & mask;
+            }
+            if (!this.full[i]) {
+                this.size++;
+            }
+            this.full[i] = true;
+            this.keys[i] = k;
+            this.values[i] = value;
+        }
+
+        int remove(int u, int v) {
+            long k = key(u, v);
+            int mask = this.keys.length - 1;
+            int i = slot(k);
+            while (this.full[i] && this.keys[i] != k) {
+                i = (i + 1) & mask;
+            }
+            if (!this.full[i]) {
+                return -1;
+            }
+            int value = this.values[i];
+            this.size--;
+            // backward shift: move back every following entry that would not be found after the hole
+            int hole = i;
+            for (int j = (i + 1) & mask; this.full[j]; j = (j + 1) & mask) {
+                int home = slot(this.keys[j]);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    this.keys[hole] = this.keys[j];
+                    this.values[hole] = this.values[j];
+                    hole = j;
+                }
+            }
+            this.full[hole] = false;
+            return value;
+        }
+
+        private void grow() {
+            long[] oldKeys = this.keys;
+            int[] oldValues = this.values;
+            boolean[] oldFull = this.full;
+            this.keys = new long[oldKeys.length * 2];
+            this.values = new int[oldKeys.length * 2];
+            this.full = new boolean[oldKeys.length * 2];
+            this.size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldFull[i]) {
+                    put((int) (oldKeys[i] >>> 32), (int) oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
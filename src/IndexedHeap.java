@@ -0,0 +1,217 @@
+import java.util.Arrays;
+
+/**
+ * This class is an indexed d-ary min-heap of int ids with primitive double keys.
+ * Every id is in the heap at most once, and pos[id] is its position in the heap (-1 if it is not in the heap),
+ * so the key of an id that is already in the heap can be decreased in place (decrease-key)
+ * instead of adding the id again. Therefore the heap never holds more than one entry per node.
+ * The ids and their keys are kept in two parallel arrays by position, so sifting does not chase any object.
+ * Used by WGraph_Algo as the priority queue of the shortest path searches (see search_queue), it supports any keys.
+ *
+ * @author itai.lashover
+ */
+class IndexedHeap implements search_queue {
+
+    /**
+     * Each IndexedHeap contains few fields:
+     * d : the arity of the heap (the amount of children of each position).
+     * ids : the id in each position of the heap.
+     * keys : the key in each position of the heap.
+     * pos : the position of each id in the heap, -1 if the id is not in the heap.
+     * size : the amount of ids in the heap.
+     */
+    private final int d;
+    private int[] ids = new int[16];
+    private double[] keys = new double[16];
+    private int[] pos = new int[0];
+    private int size;
+
+    /**
+     * Constructor
+     *
+     * @param d - the arity of the heap (at least 2)
+     */
+    IndexedHeap(int d) {
+        if (d < 2) {
+            throw new IllegalArgumentException("The arity of the heap must be at least 2");
+        }
+        this.d = d;
+    }
+
+    /**
+     * This method empties the heap and makes room for ids smaller than the given bound.
+     * Complexity: O(size) - only the ids that are still in the heap are cleared.
+     *
+     * @param bound - the bound of the ids
+     */
+    @Override
+    public void reset(int bound) {
+        for (int i = 0; i < this.size; i++) {
+            this.pos[this.ids[i]] = -1;
+        }
+        this.size = 0;
+        if (this.pos.length < bound) {
+            int old = this.pos.length;
+            this.pos = Arrays.copyOf(this.pos, Math.max(bound, old + (old >> 1)));
+            Arrays.fill(this.pos, old, this.pos.length, -1);
+        }
+    }
+
+    /**
+     * This method returns true iff the heap is empty.
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * This method returns the amount of ids in the heap.
+     *
+     * @return size
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * This method returns true iff the id is in the heap.
+     *
+     * @param id - an id
+     * @return true or false.
+     */
+    boolean contains(int id) {
+        return this.pos[id] >= 0;
+    }
+
+    /**
+     * This method adds the id with the given key, or decreases its key if it is already in the heap.
+     * NOTE: if the id is already in the heap with a smaller (or equal) key the method simply does nothing.
+     * Complexity: O(log_d(n)).
+     *
+     * @param id  - an id smaller than the bound
+     * @param key - the key
+     */
+    @Override
+    public void push(int id, double key) {
+        int i = this.pos[id];
+        if (i < 0) {
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+                this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            }
+            i = this.size++;
+        }
+        else if (this.keys[i] <= key) {
+            return;
+        }
+        siftUp(i, id, key);
+    }
+
+    /**
+     * This method sets the key of an id that is in the heap, to a smaller or a bigger key
+     * (or adds the id if it is not in the heap).
+     * Complexity: O(d*log_d(n)).
+     *
+     * @param id  - an id smaller than the bound
+     * @param key - the new key
+     */
+    void update(int id, double key) {
+        int i = this.pos[id];
+        if (i >= 0 && key > this.keys[i]) {
+            siftDown(i, id, key);
+        }
+        else {
+            push(id, key);
+        }
+    }
+
+    /**
+     * This method returns the smallest key in the heap.
+     *
+     * @return the key of the top of the heap
+     */
+    @Override
+    public double minKey() {
+        return this.keys[0];
+    }
+
+    /**
+     * This method removes the id with the smallest key from the heap and returns it.
+     * Complexity: O(d*log_d(n)).
+     *
+     * @return the id with the smallest key
+     */
+    @Override
+    public int poll() {
+        int top = this.ids[0];
+        this.pos[top] = -1;
+        int n = --this.size;
+        if (n > 0) {
+            siftDown(0, this.ids[n], this.keys[n]);
+        }
+        return top;
+    }
+
+    /**
+     * This private method moves the (id, key) pair up from position i, until its parent is not bigger.
+     */
+    private void siftUp(int i, int id, double key) {
+        while (i > 0) {
+            int parent = (i - 1) / this.d;
+            if (this.keys[parent] <= key) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        set(i, id, key);
+    }
+
+    /**
+     * This private method moves the (id, key) pair down from position i, until none of its children is smaller.
+     */
+    private void siftDown(int i, int id, double key) {
+        int n = this.size;
+        while (true) {
+            int first = i * this.d + 1;
+            if (first >= n) {
+                break;
+            }
+            int last = Math.min(first + this.d, n);
+            int min = first;
+            for (int c = first + 1; c < last; c++) {
+                if (this.keys[c] < this.keys[min]) {
+                    min = c;
+                }
+            }
+            if (this.keys[min] >= key) {
+                break;
+            }
+            move(min, i);
+            i = min;
+        }
+        set(i, id, key);
+    }
+
+    /**
+     * This private method copies the pair in position from into position to.
+     */
+    private void move(int from, int to) {
+        this.ids[to] = this.ids[from];
+        this.keys[to] = this.keys[from];
+        this.pos[this.ids[to]] = to;
+    }
+
+    /**
+     * This private method puts the (id, key) pair in position i.
+     */
+    private void set(int i, int id, double key) {
+        this.ids[i] = id;
+        this.keys[i] = key;
+        this.pos[id] = i;
+    }
+}
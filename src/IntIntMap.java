@@ -0,0 +1,110 @@
+import java.io.Serializable;
+
+/**
+ * This class is a primitive int --> int map (open addressing with linear probing).
+ * It is used to translate the unique key of a node into a dense index (0..n-1) without boxing.
+ * The map only grows, it is built once by the read-only graph representations and then queried.
+ * The values must be non-negative, get returns -1 for a missing key.
+ *
+ * @author itai.lashover
+ */
+public class IntIntMap implements Serializable {
+
+    /**
+     * Each IntIntMap contains few fields:
+     * keys : the key of each slot.
+     * vals : the value of each slot, -1 if the slot is empty.
+     * size : the amount of keys in the map.
+     */
+    private int[] keys;
+    private int[] vals;
+    private int size;
+
+    /**
+     * Constructor that pre-sizes the table so that the given amount of keys can be added without resizing.
+     *
+     * @param expected - the expected amount of keys.
+     */
+    public IntIntMap(int expected) {
+        int cap = 16;
+        while (cap * 3L / 4 < expected) {
+            cap <<= 1;
+        }
+        allocate(cap);
+    }
+
+    /**
+     * This private method allocates a new (empty) table with the given capacity (a power of two).
+     *
+     * @param cap - the capacity of the table
+     */
+    private void allocate(int cap) {
+        this.keys = new int[cap];
+        this.vals = new int[cap];
+        java.util.Arrays.fill(this.vals, -1);
+    }
+
+    /**
+     * This method returns the value that is mapped to the given key.
+     * Complexity: O(1) on average.
+     *
+     * @param key - an int key
+     * @return the value, -1 if none.
+     */
+    public int get(int key) {
+        int mask = this.keys.length - 1;
+        int i = IntNodeMap.hash(key) & mask;
+        while (this.vals[i] >= 0) {
+            if (this.keys[i] == key) {
+                return this.vals[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * This method maps the given key to the given (non-negative) value.
+     * NOTE: if the map previously contained a mapping for the key, the old value is replaced.
+     * Complexity: O(1) amortized.
+     *
+     * @param key   - an int key
+     * @param value - a non-negative int
+     */
+    public void put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("IntIntMap does not support negative values");
+        }
+        int mask = this.keys.length - 1;
+        int i = IntNodeMap.hash(key) & mask;
+        while (this.vals[i] >= 0) {
+            if (this.keys[i] == key) {
+                this.vals[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = key;
+        this.vals[i] = value;
+        if (++this.size > this.keys.length / 4 * 3) {
+            int[] oldKeys = this.keys;
+            int[] oldVals = this.vals;
+            allocate(oldKeys.length << 1);
+            this.size = 0;
+            for (int s = 0; s < oldKeys.length; s++) {
+                if (oldVals[s] >= 0) {
+                    put(oldKeys[s], oldVals[s]);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method returns the number of keys in the map.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.Arrays;
+
+/**
+ * This class is a growable list of ints (a primitive ArrayList of Integer, without boxing).
+ * The fields are open to the classes of the package, so a list can be scanned without any calls.
+ *
+ * @author itai.lashover
+ */
+class IntList {
+
+    /**
+     * Each IntList contains two fields:
+     * data : the ints of the list in data[0..size-1].
+     * size : the amount of ints in the list.
+     */
+    int[] data = new int[16];
+    int size;
+
+    /**
+     * This method adds an int at the end of the list.
+     * Complexity: O(1) amortized.
+     *
+     * @param x - an int
+     */
+    void add(int x) {
+        if (this.size == this.data.length) {
+            this.data = Arrays.copyOf(this.data, this.size * 2);
+        }
+        this.data[this.size++] = x;
+    }
+
+    /**
+     * This method returns the ints of the list in a new array.
+     *
+     * @return int array
+     */
+    int[] toArray() {
+        return Arrays.copyOf(this.data, this.size);
+    }
+}
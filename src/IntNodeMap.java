@@ -0,0 +1,323 @@
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a primitive int --> node_info map, used by WGraph_DS as its node store.
+ * Unlike HashMap<Integer, node_info> it never boxes a key and never allocates an Entry per node,
+ * the keys and the values are stored in two parallel arrays (open addressing with linear probing).
+ * Removing a key shifts the following entries of its cluster back, so the table never contains tombstones.
+ * An empty slot is marked by a null value.
+ *
+ * @author itai.lashover
+ */
+public class IntNodeMap implements Serializable {
+
+    /**
+     * Each IntNodeMap contains few fields:
+     * keys : the key of each occupied slot.
+     * vals : the node of each slot, null if the slot is empty.
+     * size : the amount of nodes in the map.
+     * threshold : the size in which the table is doubled (load factor 0.75).
+     * modCount : the amount of structural changes, used to fail fast on concurrent modification while iterating.
+     */
+    private int[] keys;
+    private node_info[] vals;
+    private int size;
+    private int threshold;
+    private transient int modCount;
+    private transient Values values;
+
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * The biggest capacity of a pre-sized table (a bigger expected amount is only a hint, the table grows when needed).
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Default constructor
+     */
+    public IntNodeMap() {
+        this(0);
+    }
+
+    /**
+     * Constructor that pre-sizes the table so that the given amount of nodes can be added without resizing.
+     *
+     * @param expected - the expected amount of nodes.
+     */
+    public IntNodeMap(int expected) {
+        int cap = MIN_CAPACITY;
+        while (cap < MAX_CAPACITY && cap * 3L / 4 < expected) {
+            cap <<= 1;
+        }
+        allocate(cap);
+    }
+
+    /**
+     * This private method allocates a new (empty) table with the given capacity (a power of two).
+     *
+     * @param cap - the capacity of the table
+     */
+    private void allocate(int cap) {
+        this.keys = new int[cap];
+        this.vals = new node_info[cap];
+        this.threshold = cap / 4 * 3;
+    }
+
+    /**
+     * This static method spreads the bits of the key the same way HashMap does,
+     * so sequential keys fill sequential slots.
+     *
+     * @param key - an int key
+     * @return the hash of the key
+     */
+    static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    /**
+     * This private method returns the slot of the given key, or -1 if the key is not in the map.
+     * Complexity: O(1) on average.
+     *
+     * @param key - an int key
+     * @return the slot of the key, -1 if none.
+     */
+    private int slotOf(int key) {
+        int mask = this.keys.length - 1;
+        int i = hash(key) & mask;
+        while (this.vals[i] != null) {
+            if (this.keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns the node that is mapped to the given key.
+     * Complexity: O(1) on average.
+     *
+     * @param key - an int key
+     * @return the node_info, null if none.
+     */
+    public node_info get(int key) {
+        int i = slotOf(key);
+        return i < 0 ? null : this.vals[i];
+    }
+
+    /**
+     * This method returns true iff the map contains the given key.
+     * Complexity: O(1) on average.
+     *
+     * @param key - an int key
+     * @return true or false.
+     */
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * This method maps the given key to the given node.
+     * NOTE: if the map previously contained a mapping for the key, the old value is replaced.
+     * Complexity: O(1) amortized.
+     *
+     * @param key - an int key
+     * @param n   - the node (not null)
+     * @return the previous node of this key, null if none.
+     */
+    public node_info put(int key, node_info n) {
+        if (n == null) {
+            throw new IllegalArgumentException("IntNodeMap does not support null values");
+        }
+        int mask = this.keys.length - 1;
+        int i = hash(key) & mask;
+        while (this.vals[i] != null) {
+            if (this.keys[i] == key) {
+                node_info old = this.vals[i];
+                this.vals[i] = n;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = key;
+        this.vals[i] = n;
+        this.modCount++;
+        if (++this.size > this.threshold) {
+            resize(this.keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * This method removes the mapping of the given key.
+     * The entries that follow the removed slot in its cluster are shifted back,
+     * so every key stays reachable from its home slot.
+     * Complexity: O(1) on average.
+     *
+     * @param key - an int key
+     * @return the removed node, null if none.
+     */
+    public node_info remove(int key) {
+        int i = slotOf(key);
+        if (i < 0) {
+            return null;
+        }
+        node_info old = this.vals[i];
+        int mask = this.keys.length - 1;
+        int hole = i;
+        int j = (i + 1) & mask;
+        while (this.vals[j] != null) {
+            int home = hash(this.keys[j]) & mask;
+            // move j into the hole iff its home slot is not cyclically in (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                this.keys[hole] = this.keys[j];
+                this.vals[hole] = this.vals[j];
+                hole = j;
+            }
+            j = (j + 1) & mask;
+        }
+        this.vals[hole] = null;
+        this.size--;
+        this.modCount++;
+        return old;
+    }
+
+    /**
+     * This private method rehashes all the entries into a new table with the given capacity.
+     * Complexity: O(n), n = the capacity of the old table.
+     *
+     * @param cap - the new capacity (a power of two)
+     */
+    private void resize(int cap) {
+        int[] oldKeys = this.keys;
+        node_info[] oldVals = this.vals;
+        allocate(cap);
+        int mask = cap - 1;
+        for (int s = 0; s < oldVals.length; s++) {
+            if (oldVals[s] != null) {
+                int i = hash(oldKeys[s]) & mask;
+                while (this.vals[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = oldKeys[s];
+                this.vals[i] = oldVals[s];
+            }
+        }
+    }
+
+    /**
+     * This method returns the number of nodes in the map.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * This method returns true iff the map is empty.
+     *
+     * @return true or false.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * This method removes all the nodes from the map.
+     */
+    public void clear() {
+        Arrays.fill(this.vals, null);
+        this.size = 0;
+        this.modCount++;
+    }
+
+    /**
+     * This method returns a live view of the nodes in the map, the same way HashMap.values() does.
+     * Complexity: O(1).
+     *
+     * @return Collection of nodes
+     */
+    public java.util.Collection<node_info> values() {
+        if (this.values == null) {
+            this.values = new Values();
+        }
+        return this.values;
+    }
+
+    /**
+     * This method returns a hash code that depends only on the keys of the map.
+     *
+     * @return hashcode
+     */
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int s = 0; s < this.vals.length; s++) {
+            if (this.vals[s] != null) {
+                h += this.keys[s];
+            }
+        }
+        return h;
+    }
+
+    /**
+     * This private inner class is the collection view returned by values().
+     */
+    private class Values extends AbstractCollection<node_info> {
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int next = advance(0);
+                private int last = -1;
+                private int expected = modCount;
+
+                private int advance(int s) {
+                    while (s < vals.length && vals[s] == null) {
+                        s++;
+                    }
+                    return s;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < vals.length;
+                }
+
+                @Override
+                public node_info next() {
+                    if (this.expected != modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (this.next >= vals.length) {
+                        throw new NoSuchElementException();
+                    }
+                    this.last = this.next;
+                    this.next = advance(this.next + 1);
+                    return vals[this.last];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof node_info)) {
+                return false;
+            }
+            node_info n = (node_info) o;
+            return get(n.getKey()) == n;
+        }
+    }
+}
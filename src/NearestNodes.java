@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/**
+ * This class is the result of a neighborhood query (see WGraph_Algo.nearest and WGraph_Algo.withinRadius):
+ * the keys of the found nodes and their distances from the source, in two parallel primitive arrays
+ * sorted by the distance (the closest node first).
+ *
+ * @author itai.lashover
+ */
+public class NearestNodes {
+
+    /**
+     * Each NearestNodes contains two fields:
+     * keys : the keys of the found nodes, sorted by their distance.
+     * dists : the distance of each found node from the source (parallel to keys).
+     */
+    private final int[] keys;
+    private final double[] dists;
+
+    /**
+     * Constructor
+     *
+     * @param keys  - the keys of the found nodes, sorted by their distance
+     * @param dists - the distance of each found node
+     */
+    public NearestNodes(int[] keys, double[] dists) {
+        this.keys = keys;
+        this.dists = dists;
+    }
+
+    /**
+     * This method returns the amount of found nodes.
+     *
+     * @return size
+     */
+    public int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * This method returns the key of the i-th closest found node.
+     *
+     * @param i - a position, 0..size()-1
+     * @return key
+     */
+    public int getKey(int i) {
+        return this.keys[i];
+    }
+
+    /**
+     * This method returns the distance of the i-th closest found node.
+     *
+     * @param i - a position, 0..size()-1
+     * @return distance
+     */
+    public double getDist(int i) {
+        return this.dists[i];
+    }
+
+    /**
+     * This method returns the keys of the found nodes, the closest first.
+     * Note: the array is not copied, it must not be changed.
+     *
+     * @return the keys
+     */
+    public int[] getKeys() {
+        return this.keys;
+    }
+
+    /**
+     * This method returns the distances of the found nodes, in the order of getKeys.
+     * Note: the array is not copied, it must not be changed.
+     *
+     * @return the distances
+     */
+    public double[] getDists() {
+        return this.dists;
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public String toString() {
+        return "{Keys:" + Arrays.toString(this.keys) + ",Dists:" + Arrays.toString(this.dists) + "}";
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * This class is the result of one shortest path query between two nodes:
+ * the length of the shortest path and the path itself, as an ordered array of node keys src --> n1 --> ... --> dest.
+ * Both are computed by a single search (see WGraph_Algo.shortestPathResult).
+ * If there is no path, the distance is -1 and the path is null (the same values shortestPathDist and shortestPath return).
+ *
+ * @author itai.lashover
+ */
+public class PathResult {
+
+    /**
+     * Each PathResult contains two fields:
+     * dist : the length of the shortest path, -1 if there is no path.
+     * path : the keys of the nodes of the path (src first, dest last), null if there is no path.
+     */
+    private final double dist;
+    private final int[] path;
+
+    /**
+     * Constructor
+     *
+     * @param dist - the length of the path, -1 if there is no path
+     * @param path - the keys of the path, null if there is no path
+     */
+    public PathResult(double dist, int[] path) {
+        this.dist = dist;
+        this.path = path;
+    }
+
+    /**
+     * This method returns the length of the shortest path.
+     *
+     * @return the length of the path, -1 if there is no path.
+     */
+    public double getDist() {
+        return this.dist;
+    }
+
+    /**
+     * This method returns the keys of the nodes of the shortest path, from src to dest.
+     * Note: the array is not copied, it must not be changed.
+     *
+     * @return the keys of the path, null if there is no path.
+     */
+    public int[] getPath() {
+        return this.path;
+    }
+
+    /**
+     * This method returns true iff there is a path.
+     *
+     * @return true or false.
+     */
+    public boolean hasPath() {
+        return this.path != null;
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public String toString() {
+        return "{Dist:" + this.dist + ",Path:" + Arrays.toString(this.path) + "}";
+    }
+
+    /**
+     * This method returns true if the two results have the same distance and the same path.
+     *
+     * @param o - an object
+     * @return true if the arguments are equal to each other and false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PathResult)) return false;
+        PathResult that = (PathResult) o;
+        return Double.compare(this.dist, that.dist) == 0 && Arrays.equals(this.path, that.path);
+    }
+
+    /**Override hashcode because equals changed.
+     *
+     * @return hashcode
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(this.dist) + Arrays.hashCode(this.path);
+    }
+}
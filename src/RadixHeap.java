@@ -0,0 +1,205 @@
+import java.util.Arrays;
+
+/**
+ * This class is a radix heap, a monotone priority queue for non-negative double keys.
+ * The bits of a non-negative double (as a long) are ordered like the double itself, so the keys are handled as longs.
+ * Bucket 0 holds the keys equal to last (the last extracted key), and bucket i (1..64) the keys whose highest bit
+ * that differs from last is bit i-1. When bucket 0 is empty, the first non-empty bucket is emptied: its smallest key
+ * becomes last and its entries are moved into lower buckets. An entry only moves down, at most 64 times,
+ * so a poll costs O(1) amortized per bit and a push O(1), without a heap of comparisons.
+ * Decreasing the key of an id adds another entry, the old one is skipped when it is reached.
+ * The keys must be monotone: a pushed key is never smaller than the last polled key (true for Dijkstra).
+ *
+ * @author itai.lashover
+ */
+class RadixHeap implements search_queue {
+
+    /**
+     * Each RadixHeap contains few fields:
+     * ids, keys, sizes : the entries of each bucket (the id and the bits of the key), and the amount of them.
+     * last : the bits of the last extracted key.
+     * key : the bits of the current key of each id, valid only if mark[id] == stamp (in the queue).
+     * size : the amount of ids in the queue.
+     */
+    private final int[][] ids = new int[65][];
+    private final long[][] keys = new long[65][];
+    private final int[] sizes = new int[65];
+    private long last;
+    private long[] key = new long[0];
+    private int[] mark = new int[0];
+    private int stamp;
+    private int size;
+
+    /**
+     * Constructor
+     */
+    RadixHeap() {
+        for (int i = 0; i < 65; i++) {
+            this.ids[i] = new int[4];
+            this.keys[i] = new long[4];
+        }
+    }
+
+    /**
+     * This method empties the queue and makes room for ids smaller than the given bound.
+     * Complexity: O(1) amortized.
+     *
+     * @param bound - the bound of the ids
+     */
+    @Override
+    public void reset(int bound) {
+        Arrays.fill(this.sizes, 0);
+        if (this.mark.length < bound) {
+            int cap = Math.max(bound, this.mark.length + (this.mark.length >> 1));
+            this.key = new long[cap];
+            this.mark = new int[cap];
+            this.stamp = 0;
+        }
+        if (++this.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.mark, 0);
+            this.stamp = 1;
+        }
+        this.last = 0;
+        this.size = 0;
+    }
+
+    /**
+     * This method returns true iff the queue is empty.
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * This method returns the amount of ids in the queue.
+     *
+     * @return size
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * This method adds the id with the given key, or decreases its key if it is already in the queue.
+     * Complexity: O(1).
+     *
+     * @param id - an id smaller than the bound
+     * @param k  - the key, not smaller than the last polled key
+     */
+    @Override
+    public void push(int id, double k) {
+        long bits = Double.doubleToRawLongBits(k + 0.0);
+        if (bits < this.last) {
+            throw new IllegalStateException("The keys of a RadixHeap must be monotone");
+        }
+        if (this.mark[id] == this.stamp) {
+            if (this.key[id] <= bits) {
+                return;
+            }
+        }
+        else {
+            this.mark[id] = this.stamp;
+            this.size++;
+        }
+        this.key[id] = bits;
+        add(bucket(bits), id, bits);
+    }
+
+    /**
+     * This method returns the smallest key in the queue.
+     *
+     * @return the smallest key
+     */
+    @Override
+    public double minKey() {
+        advance();
+        return Double.longBitsToDouble(this.last);
+    }
+
+    /**
+     * This method removes the id with the smallest key from the queue and returns it.
+     * Complexity: O(1) amortized per bit of the keys.
+     *
+     * @return the id with the smallest key
+     */
+    @Override
+    public int poll() {
+        advance();
+        int id = this.ids[0][--this.sizes[0]];
+        this.mark[id] = -this.stamp;
+        this.size--;
+        return id;
+    }
+
+    /**
+     * This private method makes sure that the last entry of bucket 0 is an id in the queue (with the key last).
+     * The queue must not be empty.
+     */
+    private void advance() {
+        while (true) {
+            int[] b0 = this.ids[0];
+            while (this.sizes[0] > 0) {
+                int id = b0[this.sizes[0] - 1];
+                if (this.mark[id] == this.stamp && this.key[id] == this.last) {
+                    return;
+                }
+                this.sizes[0]--;
+            }
+            int i = 1;
+            while (this.sizes[i] == 0) {
+                i++;
+            }
+            int n = this.sizes[i];
+            int[] bi = this.ids[i];
+            long[] ki = this.keys[i];
+            this.sizes[i] = 0;
+            long min = Long.MAX_VALUE;
+            for (int j = 0; j < n; j++) {
+                if (live(bi[j], ki[j]) && ki[j] < min) {
+                    min = ki[j];
+                }
+            }
+            if (min == Long.MAX_VALUE) {
+                continue;
+            }
+            this.last = min;
+            for (int j = 0; j < n; j++) {
+                if (live(bi[j], ki[j])) {
+                    add(bucket(ki[j]), bi[j], ki[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * This private method returns true iff the entry (id, bits) is the current key of an id in the queue.
+     */
+    private boolean live(int id, long bits) {
+        return this.mark[id] == this.stamp && this.key[id] == bits;
+    }
+
+    /**
+     * This private method returns the bucket of the given key bits.
+     */
+    private int bucket(long bits) {
+        return bits == this.last ? 0 : 64 - Long.numberOfLeadingZeros(bits ^ this.last);
+    }
+
+    /**
+     * This private method adds an entry to bucket b.
+     */
+    private void add(int b, int id, long bits) {
+        int n = this.sizes[b];
+        if (n == this.ids[b].length) {
+            this.ids[b] = Arrays.copyOf(this.ids[b], n * 2);
+            this.keys[b] = Arrays.copyOf(this.keys[b], n * 2);
+        }
+        this.ids[b][n] = id;
+        this.keys[b][n] = bits;
+        this.sizes[b] = n + 1;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * This class is the report of one background save (see WGraph_Algo.saveAsync and WGraph_Algo.getLastSave):
+ * the file, whether it was saved, the amount of bytes written,
+ * the time the calling thread waited for the snapshot and the time of the whole save.
+ *
+ * @author itai.lashover
+ */
+public class SaveStats {
+
+    /**
+     * Each SaveStats contains few fields:
+     * file : the file name that was given to saveAsync.
+     * saved : true iff the file was successfully saved.
+     * bytes : the size of the saved file, 0 if it was not saved.
+     * snapshotMillis : the time the calling thread took to take the snapshot of the graph.
+     * millis : the time from the call of saveAsync until the file was saved (or failed).
+     */
+    private final String file;
+    private final boolean saved;
+    private final long bytes;
+    private final long snapshotMillis;
+    private final long millis;
+
+    /**
+     * Constructor
+     *
+     * @param file           - the file name
+     * @param saved          - true iff the file was saved
+     * @param bytes          - the size of the file
+     * @param snapshotMillis - the time of the snapshot
+     * @param millis         - the time of the whole save
+     */
+    public SaveStats(String file, boolean saved, long bytes, long snapshotMillis, long millis) {
+        this.file = file;
+        this.saved = saved;
+        this.bytes = bytes;
+        this.snapshotMillis = snapshotMillis;
+        this.millis = millis;
+    }
+
+    /**
+     * This method returns the file name that was given to saveAsync.
+     *
+     * @return the file name
+     */
+    public String getFile() {
+        return this.file;
+    }
+
+    /**
+     * This method returns true iff the file was successfully saved.
+     *
+     * @return true or false.
+     */
+    public boolean isSaved() {
+        return this.saved;
+    }
+
+    /**
+     * This method returns the amount of bytes written.
+     *
+     * @return the size of the file, 0 if it was not saved.
+     */
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * This method returns the time the calling thread waited for the snapshot of the graph.
+     *
+     * @return milliseconds
+     */
+    public long getSnapshotMillis() {
+        return this.snapshotMillis;
+    }
+
+    /**
+     * This method returns the time from the call of saveAsync until the save ended.
+     *
+     * @return milliseconds
+     */
+    public long getMillis() {
+        return this.millis;
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public String toString() {
+        return this.file + (this.saved ? ": " + this.bytes + " bytes in " + this.millis + " ms (snapshot "
+                + this.snapshotMillis + " ms)" : ": not saved");
+    }
+}
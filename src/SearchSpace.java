@@ -0,0 +1,199 @@
+import java.util.Arrays;
+
+/**
+ * This class is the private state of one search (BFS / Dijkstra) of WGraph_Algo.
+ * The distance, the predecessor and the visited marks of each node are kept here, in arrays indexed by the node index,
+ * instead of in the tag, pre and info of the (shared) nodes of the graph.
+ * Each search starts with reset, which only increments a stamp: an entry is valid only if its stamp
+ * is the current one, so starting a new search never has to clear anything and a search costs O(touched nodes).
+ * The arrays are allocated once and then reused, each thread has its own SearchSpace,
+ * therefore several searches can run on the same graph at the same time.
+ *
+ * @author itai.lashover
+ */
+class SearchSpace {
+
+    /**
+     * Each SearchSpace contains few fields:
+     * dist : the current distance of each reached node from the source.
+     * pre : the index of the node from which each reached node was reached (-1 for the source).
+     * reached : the stamp of the search in which each node was reached.
+     * settled : the stamp of the search in which each node was settled (its distance is final).
+     * queue : an int array that can be used as a queue by a BFS.
+     * heap : the priority queue of a shortest path search (an indexed 4-ary heap with decrease-key).
+     * dial, radix : the monotone priority queues (see search_queue), created on first use.
+     * kind : the kind of priority queue that frontier returns.
+     * stamp : the stamp of the current search.
+     * touched : the amount of nodes reached by the current search.
+     */
+    private double[] dist = new double[0];
+    private int[] pre = new int[0];
+    private int[] reached = new int[0];
+    private int[] settled = new int[0];
+    private int[] queue = new int[0];
+    private final IndexedHeap heap = new IndexedHeap(4);
+    private DialQueue dial;
+    private RadixHeap radix;
+    private WGraph_Algo.Queue kind = WGraph_Algo.Queue.AUTO;
+    private int stamp;
+    private int touched;
+
+    /**
+     * This method starts a new search on a graph whose indexes are smaller than the given bound.
+     * Complexity: O(1) amortized, the arrays only grow when the graph grows.
+     *
+     * @param bound - the bound of the node indexes
+     */
+    void reset(int bound) {
+        if (this.reached.length < bound) {
+            int cap = Math.max(bound, this.reached.length + (this.reached.length >> 1));
+            this.dist = new double[cap];
+            this.pre = new int[cap];
+            this.reached = new int[cap];
+            this.settled = new int[cap];
+        }
+        this.heap.reset(bound);
+        if (++this.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.reached, 0);
+            Arrays.fill(this.settled, 0);
+            this.stamp = 1;
+        }
+        this.touched = 0;
+    }
+
+    /**
+     * This method returns true iff the node was reached by the current search.
+     *
+     * @param id - a node index
+     * @return true or false.
+     */
+    boolean isReached(int id) {
+        return this.reached[id] == this.stamp;
+    }
+
+    /**
+     * This method returns true iff the node was settled by the current search.
+     *
+     * @param id - a node index
+     * @return true or false.
+     */
+    boolean isSettled(int id) {
+        return this.settled[id] == this.stamp;
+    }
+
+    /**
+     * This method returns the current distance of the node, infinity if it was not reached.
+     *
+     * @param id - a node index
+     * @return the distance from the source.
+     */
+    double getDist(int id) {
+        return this.reached[id] == this.stamp ? this.dist[id] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * This method returns the predecessor of a reached node, -1 for the source.
+     *
+     * @param id - a node index
+     * @return the index of the predecessor.
+     */
+    int getPre(int id) {
+        return this.pre[id];
+    }
+
+    /**
+     * This method marks the node as reached (or improved) with the given distance and predecessor.
+     *
+     * @param id - a node index
+     * @param d  - the distance from the source
+     * @param p  - the index of the predecessor, -1 for the source
+     */
+    void reach(int id, double d, int p) {
+        if (this.reached[id] != this.stamp) {
+            this.reached[id] = this.stamp;
+            this.touched++;
+        }
+        this.dist[id] = d;
+        this.pre[id] = p;
+    }
+
+    /**
+     * This method marks the node as settled.
+     *
+     * @param id - a node index
+     */
+    void settle(int id) {
+        this.settled[id] = this.stamp;
+    }
+
+    /**
+     * This method returns the amount of nodes reached by the current search.
+     *
+     * @return touched
+     */
+    int getTouched() {
+        return this.touched;
+    }
+
+    /**
+     * This method returns the priority queue of the current search (emptied by reset).
+     *
+     * @return an IndexedHeap
+     */
+    IndexedHeap heap() {
+        return this.heap;
+    }
+
+    /**
+     * This method sets the kind of priority queue that frontier returns.
+     *
+     * @param kind - the kind of priority queue
+     */
+    void setQueue(WGraph_Algo.Queue kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * This method returns an empty priority queue for a Dijkstra search on the given graph (the keys must be monotone):
+     * by the kind of queue, a DialQueue if the weights of the graph are small integers (see WGraph_Algo.Queue).
+     * Call it after reset.
+     *
+     * @param g - the searched graph
+     * @return search_queue
+     */
+    search_queue frontier(indexed_graph g) {
+        WGraph_Algo.Queue k = this.kind;
+        if (k == WGraph_Algo.Queue.HEAP) {
+            return this.heap;
+        }
+        if (k != WGraph_Algo.Queue.RADIX && g.integerWeights() && g.maxWeight() <= WGraph_Algo.DIAL_MAX_WEIGHT) {
+            if (this.dial == null) {
+                this.dial = new DialQueue();
+            }
+            this.dial.setMaxWeight((int) g.maxWeight());
+            this.dial.reset(g.idBound());
+            return this.dial;
+        }
+        if (k == WGraph_Algo.Queue.AUTO) {
+            return this.heap;
+        }
+        if (this.radix == null) {
+            this.radix = new RadixHeap();
+        }
+        this.radix.reset(g.idBound());
+        return this.radix;
+    }
+
+    /**
+     * This method returns an int array of at least the given length, to be used as a BFS queue (or any other int per node index).
+     *
+     * @param bound - the bound of the node indexes
+     * @return an int array
+     */
+    int[] queue(int bound) {
+        if (this.queue.length < bound) {
+            this.queue = new int[bound];
+        }
+        return this.queue;
+    }
+}
@@ -0,0 +1,267 @@
+import java.util.Arrays;
+
+/**
+ * This class is the result of a single source shortest path search: the distances from the source to the reached nodes,
+ * and (for a Dijkstra search) the shortest path tree itself.
+ * It is compact - only the reached nodes are kept, in three primitive arrays in the order they were settled
+ * (by distance): their indexes (see indexed_graph), their distances, and the position of the predecessor of each one.
+ * A path is only built when it is asked for, by following the predecessors from the target back to the source.
+ * The distances can also be taken as one primitive array indexed by the node index (built on the first call).
+ * The indexes belong to the graph that was searched, so the result is valid until the nodes of that graph change.
+ *
+ * @author itai.lashover
+ */
+public class ShortestPathTree {
+
+    /**
+     * Each ShortestPathTree contains few fields:
+     * g : the searched graph, it maps node keys to indexes and back.
+     * ids : the index of each reached node, the source first.
+     * dist : the distance of each reached node (parallel to ids).
+     * parent : the position (in ids) of the predecessor of each reached node, -1 for the source. null if unknown.
+     * position : IntIntMap from a node index to its position in ids.
+     * complete : false if a bound stopped the search before all the reachable nodes were settled.
+     * byIndex : the distance of each node index, infinity if not reached (built on demand).
+     */
+    private final indexed_graph g;
+    private final int[] ids;
+    private final double[] dist;
+    private final int[] parent;
+    private final IntIntMap position;
+    private final boolean complete;
+    private double[] byIndex;
+
+    /**
+     * This constructor keeps the reached nodes of a search.
+     *
+     * @param g        - the searched graph
+     * @param ids      - the index of each reached node, the source first
+     * @param dist     - the distance of each reached node
+     * @param parent   - the position of the predecessor of each reached node (-1 for the source), or null
+     * @param complete - false if a bound stopped the search
+     */
+    ShortestPathTree(indexed_graph g, int[] ids, double[] dist, int[] parent, boolean complete) {
+        this.g = g;
+        this.ids = ids;
+        this.dist = dist;
+        this.parent = parent;
+        this.complete = complete;
+        this.position = new IntIntMap(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            this.position.put(ids[i], i);
+        }
+    }
+
+    /**
+     * This method keeps the distances of a search that did not record the predecessors (see DeltaStepping),
+     * the reached nodes are kept in the order of their indexes.
+     *
+     * @param g       - the searched graph
+     * @param src     - the index of the source node
+     * @param byIndex - the distance of each node index, infinity if it was not reached
+     * @return ShortestPathTree without predecessors
+     */
+    static ShortestPathTree of(indexed_graph g, int src, double[] byIndex) {
+        int n = 0;
+        for (double d : byIndex) {
+            if (d != Double.POSITIVE_INFINITY) {
+                n++;
+            }
+        }
+        int[] ids = new int[n];
+        double[] dist = new double[n];
+        ids[0] = src;
+        dist[0] = byIndex[src];
+        for (int i = 0, j = 1; i < byIndex.length; i++) {
+            if (i != src && byIndex[i] != Double.POSITIVE_INFINITY) {
+                ids[j] = i;
+                dist[j++] = byIndex[i];
+            }
+        }
+        ShortestPathTree t = new ShortestPathTree(g, ids, dist, null, true);
+        t.byIndex = byIndex;
+        return t;
+    }
+
+    /**
+     * This method returns the key of the source node.
+     *
+     * @return src
+     */
+    public int getSource() {
+        return this.g.keyOf(this.ids[0]);
+    }
+
+    /**
+     * This method returns the amount of reached nodes.
+     *
+     * @return size
+     */
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * This method returns false iff a bound (maxDistance or maxSettled) stopped the search
+     * before all the nodes that can be reached from the source were settled.
+     *
+     * @return true or false.
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * This method returns the length of the shortest path from the source to the node.
+     *
+     * @param key - a node key
+     * @return the distance, -1 if the node was not reached.
+     */
+    public double getDist(int key) {
+        int i = this.position.get(index(key));
+        return i < 0 ? -1 : this.dist[i];
+    }
+
+    /**
+     * This method returns true iff the search reached the node.
+     *
+     * @param key - a node key
+     * @return true or false.
+     */
+    public boolean reached(int key) {
+        return this.position.get(index(key)) >= 0;
+    }
+
+    /**
+     * This method returns the keys of the reached nodes, in the order they were settled (the source first).
+     *
+     * @return the keys of the reached nodes
+     */
+    public int[] getKeys() {
+        int[] keys = new int[this.ids.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = this.g.keyOf(this.ids[i]);
+        }
+        return keys;
+    }
+
+    /**
+     * This method returns the distances of the reached nodes, in the order of getKeys.
+     * Note: the array is not copied, it must not be changed.
+     *
+     * @return the distances of the reached nodes
+     */
+    public double[] getReachedDistances() {
+        return this.dist;
+    }
+
+    /**
+     * This method returns the position (in getKeys) of the predecessor of each reached node, -1 for the source.
+     * Note: the array is not copied, it must not be changed.
+     *
+     * @return the predecessors, null if the search did not record them.
+     */
+    public int[] getParents() {
+        return this.parent;
+    }
+
+    /**
+     * This method returns the shortest path from the source to the node, as an array of keys (the source first).
+     * The path is built now, by following the predecessors from the node back to the source.
+     * Complexity: O(k), k - being the amount of nodes in the path.
+     *
+     * @param key - a node key
+     * @return the keys of the path, null if the node was not reached.
+     */
+    public int[] path(int key) {
+        if (this.parent == null) {
+            throw new UnsupportedOperationException("This search did not record the predecessors");
+        }
+        int i = this.position.get(index(key));
+        if (i < 0) {
+            return null;
+        }
+        int n = 1;
+        for (int p = i; this.parent[p] >= 0; p = this.parent[p]) {
+            n++;
+        }
+        int[] path = new int[n];
+        for (int p = i; n > 0; p = this.parent[p]) {
+            path[--n] = this.g.keyOf(this.ids[p]);
+        }
+        return path;
+    }
+
+    /**
+     * This method returns both the distance and the path from the source to the node.
+     *
+     * @param key - a node key
+     * @return PathResult, distance -1 and a null path if the node was not reached.
+     */
+    public PathResult getPathResult(int key) {
+        int[] path = path(key);
+        return new PathResult(path == null ? -1 : getDist(key), path);
+    }
+
+    /**
+     * This method returns the distances of all the nodes, indexed by the node index (infinity if not reached).
+     * Note: the array is built by the first call, it is not copied and it must not be changed.
+     *
+     * @return the distance array
+     */
+    public double[] getDistances() {
+        double[] d = this.byIndex;
+        if (d == null) {
+            d = new double[this.g.idBound()];
+            Arrays.fill(d, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < this.ids.length; i++) {
+                d[this.ids[i]] = this.dist[i];
+            }
+            this.byIndex = d;
+        }
+        return d;
+    }
+
+    /**
+     * This method returns the bound of the node indexes (the length of getDistances).
+     *
+     * @return the bound of the indexes
+     */
+    public int indexBound() {
+        return this.g.idBound();
+    }
+
+    /**
+     * This method returns the index of the node in the distance array.
+     *
+     * @param key - a node key
+     * @return the index of the node
+     */
+    public int indexOf(int key) {
+        return index(key);
+    }
+
+    /**
+     * This method returns the key of the node with the given index.
+     *
+     * @param index - a node index
+     * @return the key of the node, -1 if the index is not a node.
+     */
+    public int keyAt(int index) {
+        return this.g.nodeAt(index) == null ? -1 : this.g.keyOf(index);
+    }
+
+    /**
+     * This private method returns the index of the given key.
+     *
+     * @param key - the node unique key
+     * @return the index of the node
+     */
+    private int index(int key) {
+        int id = this.g.idOf(key);
+        if (id < 0) {
+            throw new RuntimeException("This graph does not contain key " + key);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.Arrays;
+
+/**
+ * This class is a disjoint-set (union-find) forest over node indexes (see indexed_graph),
+ * with union by size and path halving, so each operation takes nearly O(1) amortized time.
+ * WGraph_Algo builds one to answer connectivity queries on graphs that do not keep their own connectivity
+ * (WGraph_DS keeps a DynamicConnectivity, because a union-find cannot split a set after a removal).
+ *
+ * @author itai.lashover
+ */
+class UnionFind {
+
+    /**
+     * Each UnionFind contains few fields:
+     * parent : the parent of each index in its tree (a root is its own parent).
+     * size : the size of the set of each root.
+     * count : the amount of sets.
+     */
+    private int[] parent;
+    private int[] size;
+    private int count;
+
+    /**
+     * Constructor
+     *
+     * @param capacity - the expected bound of the indexes
+     */
+    UnionFind(int capacity) {
+        this.parent = new int[Math.max(capacity, 16)];
+        this.size = new int[this.parent.length];
+    }
+
+    /**
+     * This method builds the sets of the given graph: a set for every connected component.
+     * Complexity: O(|V|+|E|), |V|=number of nodes, |E|=number of edges.
+     *
+     * @param g - an indexed graph
+     * @return a UnionFind of the indexes of the graph
+     */
+    static UnionFind of(indexed_graph g) {
+        UnionFind uf = new UnionFind(g.idBound());
+        for (int id = 0; id < g.idBound(); id++) {
+            if (g.nodeAt(id) != null) {
+                uf.add(id);
+            }
+        }
+        indexed_graph.edge_cursor c = g.edges();
+        for (int id = 0; id < g.idBound(); id++) {
+            if (g.nodeAt(id) == null) {
+                continue;
+            }
+            c.reset(id);
+            while (c.next()) {
+                if (c.target() > id) {
+                    uf.union(id, c.target());
+                }
+            }
+        }
+        return uf;
+    }
+
+    /**
+     * This method adds the index as a new set of its own.
+     *
+     * @param id - a node index
+     */
+    void add(int id) {
+        if (id >= this.parent.length) {
+            int cap = Math.max(id + 1, this.parent.length * 2);
+            this.parent = Arrays.copyOf(this.parent, cap);
+            this.size = Arrays.copyOf(this.size, cap);
+        }
+        this.parent[id] = id;
+        this.size[id] = 1;
+        this.count++;
+    }
+
+    /**
+     * This method returns the root of the set of the index (and halves the path to it on the way).
+     *
+     * @param id - a node index that was added
+     * @return the root of its set
+     */
+    int find(int id) {
+        int[] p = this.parent;
+        while (p[id] != id) {
+            p[id] = p[p[id]];
+            id = p[id];
+        }
+        return id;
+    }
+
+    /**
+     * This method merges the sets of the two indexes, the smaller set goes under the root of the bigger one.
+     *
+     * @param a - a node index
+     * @param b - a node index
+     * @return true iff the two indexes were in different sets.
+     */
+    boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) {
+            return false;
+        }
+        if (this.size[ra] < this.size[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        this.parent[rb] = ra;
+        this.size[ra] += this.size[rb];
+        this.count--;
+        return true;
+    }
+
+    /**
+     * This method returns the amount of sets.
+     *
+     * @return count
+     */
+    int count() {
+        return this.count;
+    }
+
+    /**
+     * This method returns the size of the set of the index.
+     *
+     * @param id - a node index
+     * @return the size of its set
+     */
+    int sizeOf(int id) {
+        return this.size[find(id)];
+    }
+}
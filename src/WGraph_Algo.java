@@ -1,5 +1,16 @@
 import java.util.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 /**
  * This class is an implementation of weighted_graph_algorithms interface.
@@ -9,17 +20,92 @@ import java.io.*;
  * 2. isConnected();
  * 3. double shortestPathDist(int src, int dest);
  * 4. List<node_data> shortestPath(int src, int dest);
- * 5. Save(file);
+ * 5. Save(file); (saveSerialized(file) for the Java serialization format of the older versions)
  * 6. Load(file);
+ * 7. PathResult shortestPathResult(int src, int dest); (distance and path of one search)
+ * 8. A* versions of 3,4,7 with a distance_heuristic (for example ALTLandmarks).
+ * 9. double[][] distanceMatrix(int[] sources, int[] targets); (many to many distances, in parallel)
+ * 10. areConnected(int a, int b) and connectedComponents(); (by the DynamicConnectivity of a WGraph_DS, by union-find for other graphs)
+ * 11. ShortestPathTree deltaStepping(int src); (parallel single source distances)
+ * 12. ShortestPathTree shortestPathTree(int src); (all the distances and paths of one search, optionally bounded)
+ * 13. NearestNodes nearest(int src, int k) and withinRadius(int src, double r); (neighborhood queries, optionally of target nodes)
+ * 14. int hopDistance(int src, int dest); (the least amount of edges, by a direction-optimizing BFS)
+ * 15. CompletableFuture<Boolean> saveAsync(file); (saves a snapshot of the graph on a background thread)
+ * The point to point searches are unidirectional or bidirectional Dijkstra (see Mode).
+ * The algorithms work on node indexes (see indexed_graph), and keep their state in a private SearchSpace of each thread,
+ * so the nodes of the graph are never changed and several queries can run on the same graph at the same time.
  *
  * @author itai.lashover
  */
 public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializable {
 
     /**
-     * The only field in the class is a weighted graph on which we want to perform the methods.
+     * The main field in the class is a weighted graph on which we want to perform the methods.
+     * frozen, frozenFrom : a WGraph_CSR snapshot of a graph that is not an indexed_graph, and the graph it was taken from.
+     * mode : the kind of search used by the point to point shortest path methods.
+     * queue : the kind of priority queue of the Dijkstra searches.
+     * lastSave : the report of the last save of saveAsync that ended (null before the first one).
+     * SPACE, BACK_SPACE : the private search state of each thread (BACK_SPACE is the backward side of a bidirectional search).
      */
     private weighted_graph wg;
+    private Mode mode = Mode.AUTO;
+    private Queue queue = Queue.AUTO;
+    private transient WGraph_CSR frozen;
+    private transient weighted_graph frozenFrom;
+    private transient volatile SaveStats lastSave;
+    private static final ThreadLocal<SearchSpace> SPACE = ThreadLocal.withInitial(SearchSpace::new);
+    private static final ThreadLocal<SearchSpace> BACK_SPACE = ThreadLocal.withInitial(SearchSpace::new);
+
+    /**
+     * The amount of nodes from which Mode.AUTO uses the bidirectional search.
+     */
+    public static final int BIDIRECTIONAL_THRESHOLD = 10000;
+
+    /**
+     * The amount of nodes from which isConnected() expands the levels of its BFS in the common ForkJoinPool.
+     */
+    public static final int PARALLEL_BFS_THRESHOLD = 1 << 18;
+
+    /**
+     * The amount of times saveAsync tries to take a snapshot of a graph that is changed by another thread.
+     */
+    public static final int SNAPSHOT_ATTEMPTS = 3;
+
+    /**
+     * The thread of saveAsync - one daemon thread, so the saves are written one after the other.
+     */
+    private static final ExecutorService SAVER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "WGraph_Algo saver");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * The kinds of search of the point to point shortest path methods (shortestPathDist, shortestPath, shortestPathResult):
+     * UNIDIRECTIONAL : one Dijkstra search from src, until dest is settled.
+     * BIDIRECTIONAL : a Dijkstra search from src and a Dijkstra search from dest that meet in the middle.
+     * AUTO : BIDIRECTIONAL if the graph has at least BIDIRECTIONAL_THRESHOLD nodes, UNIDIRECTIONAL otherwise.
+     */
+    public enum Mode {
+        AUTO, UNIDIRECTIONAL, BIDIRECTIONAL
+    }
+
+    /**
+     * The biggest integer weight for which Queue.AUTO uses a DialQueue (the queue has maxWeight+1 buckets).
+     */
+    public static final int DIAL_MAX_WEIGHT = 1 << 16;
+
+    /**
+     * The kinds of priority queue of the Dijkstra searches (the A* search always uses the heap):
+     * HEAP : an indexed 4-ary heap with decrease-key (IndexedHeap), for any weights.
+     * DIAL : a bucket queue (DialQueue), when every weight is an integer of at most DIAL_MAX_WEIGHT, otherwise RADIX.
+     * RADIX : a radix heap (RadixHeap) over the bits of the keys, for any non-negative weights.
+     * AUTO : DIAL if the weights qualify, otherwise HEAP.
+     * (On double weights the radix heap was not faster than the 4-ary heap, see tests/SearchQueueBenchmark.)
+     */
+    public enum Queue {
+        AUTO, HEAP, DIAL, RADIX
+    }
 
 
     /**
@@ -40,6 +126,42 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
 
     }
 
+    /**
+     * This method sets the kind of search of the point to point shortest path methods.
+     *
+     * @param mode - AUTO (default), UNIDIRECTIONAL or BIDIRECTIONAL
+     */
+    public void setMode(Mode mode) {
+        this.mode = Objects.requireNonNull(mode);
+    }
+
+    /**
+     * This method returns the kind of search of the point to point shortest path methods.
+     *
+     * @return the search mode
+     */
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * This method sets the kind of priority queue of the Dijkstra searches.
+     *
+     * @param queue - the kind of priority queue
+     */
+    public void setQueue(Queue queue) {
+        this.queue = Objects.requireNonNull(queue);
+    }
+
+    /**
+     * This method returns the kind of priority queue of the Dijkstra searches.
+     *
+     * @return the kind of priority queue
+     */
+    public Queue getQueue() {
+        return this.queue;
+    }
+
     /**
      * This method returns the underlying graph of which this class works.
      *
@@ -63,29 +185,94 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
 
     /**
      * This method returns true iff there is a valid path from every node to each other node.
-     * The method uses BFS algorithm.
-     * Note: BFS method changes the value of each node's tag.
-     * Thus the method calls resetInfo function that resets the info that changed.
+     * For a WGraph_DS the answer comes from the connectivity that the graph keeps up to date (see WGraph_DS.isConnected),
+     * for any other graph the method uses a direction-optimizing BFS (see BitsetBFS),
+     * in the common ForkJoinPool if the graph has at least PARALLEL_BFS_THRESHOLD nodes.
+     * Note: BFS keeps its visited marks in a bitset, the nodes of the graph are not changed.
      * Complexity: O(|V|+|E|), |V|=number of nodes, |E|=number of edges.
      *
      * @return true if connected, false otherwise
      */
     @Override
     public boolean isConnected() {
+        return isConnected(this.wg.nodeSize() >= PARALLEL_BFS_THRESHOLD ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * This method returns true iff there is a valid path from every node to each other node (see isConnected()),
+     * the levels of a BFS are expanded in parallel in the given pool.
+     *
+     * @param pool - the pool that expands the big levels of the BFS, null for a sequential BFS
+     * @return true if connected, false otherwise
+     */
+    public boolean isConnected(ForkJoinPool pool) {
         if (this.wg.nodeSize() == 0) {
             return true;
         }
-        boolean b = this.bfs(this.wg);
-        resetInfo();
-        return b;
+        if (this.wg instanceof WGraph_DS) {
+            return ((WGraph_DS) this.wg).isConnected();
+        }
+        indexed_graph g = graph();
+        int first = g.idOf(g.getV().iterator().next().getKey());
+        return BitsetBFS.reach(g, first, pool, space(SPACE).queue(g.idBound())) == g.nodeSize();
+    }
+
+    /**
+     * This method returns the least amount of edges on a path between src and dest (the weights are ignored),
+     * computed by a direction-optimizing BFS that stops at the level of dest (see BitsetBFS).
+     * Complexity: O(|V|+|E|), |V|=number of nodes, |E|=number of edges.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @return the amount of edges, -1 if there is no path.
+     */
+    public int hopDistance(int src, int dest) {
+        indexed_graph g = graph();
+        return BitsetBFS.hops(g, id(g, src), id(g, dest), space(SPACE).queue(g.idBound()));
+    }
+
+    /**
+     * This method returns true iff there is a path between the two nodes.
+     * For a WGraph_DS the answer comes from its DynamicConnectivity (Euler tour trees) - O(log|V|) once it is kept
+     * (O((|V|+|E|)log|V|) the first time, and a removal of an edge may scan a component for a replacement edge),
+     * for any other graph the method builds the connected components by a union-find - O(|V|+|E|).
+     *
+     * @param node1 - a node key
+     * @param node2 - a node key
+     * @return true or false.
+     */
+    public boolean areConnected(int node1, int node2) {
+        if (this.wg instanceof WGraph_DS) {
+            return ((WGraph_DS) this.wg).areConnected(node1, node2);
+        }
+        indexed_graph g = graph();
+        UnionFind uf = UnionFind.of(g);
+        return uf.find(id(g, node1)) == uf.find(id(g, node2));
+    }
+
+    /**
+     * This method returns the connected components of the graph: the component of each key and the component sizes.
+     * For a WGraph_DS the components come from its DynamicConnectivity, for any other graph they are built by a union-find
+     * over all the edges.
+     * Complexity: O(|V|log|V|) for a WGraph_DS whose connectivity is kept, otherwise O(|V|+|E|).
+     *
+     * @return ConnectedComponents
+     */
+    public ConnectedComponents connectedComponents() {
+        if (this.wg instanceof WGraph_DS) {
+            return ((WGraph_DS) this.wg).connectedComponents();
+        }
+        indexed_graph g = graph();
+        UnionFind uf = UnionFind.of(g);
+        return new ConnectedComponents(g, uf.count(), uf::find);
     }
 
     /**
      * This method returns the length of the shortest path between src to dest.
      * Note: if no such path --> returns -1
-     * The method uses a combination of BFS and Dijkstra's algorithms.
-     * Note2: Dijkstra method changes the value of each node's tag, info and pre.
-     * Thus the method calls resetTag, resetInfo and resetPre functions that resets the tag ,the info and rhe pre that changed.
+     * The method uses Dijkstra's algorithm, unidirectional or bidirectional according to the search mode.
+     * Note2: Dijkstra keeps its distances and predecessors in a private SearchSpace, the nodes of the graph are not changed,
+     * so there is nothing to reset afterwards and several queries can run on the same graph at the same time.
      * Complexity: O((|V|+|E|)log|V|), |V|=number of nodes, |E|=number of edges.
      *
      * @param src  - start node
@@ -94,11 +281,12 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
      */
     @Override
     public double shortestPathDist(int src, int dest) {
-        double d = Dijkstra(this.wg.getNode(src), this.wg.getNode(dest));
-        resetInfo();
-        resetTag();
-        resetPre();
-        if (d == Integer.MAX_VALUE) {
+        indexed_graph g = graph();
+        int s = id(g, src);
+        int t = id(g, dest);
+        double d = bidirectional(g) ? biDijkstra(g, s, t, space(SPACE), space(BACK_SPACE), null)
+                : Dijkstra(g, s, t, space(SPACE));
+        if (d == Double.POSITIVE_INFINITY) {
             return -1;
         }
         return d;
@@ -109,11 +297,7 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
      * This method returns  the shortest path between src to dest - as an ordered List of nodes:
      * src --> n1 --> n2 --> ... --> dest.
      * Note: if no such path --> null.
-     * The method uses a combination of BFS and Dijkstra's algorithms.
-     * Note2: Dijkstra method changes the value of each node's tag, info and pre.
-     * Thus the method calls resetTag, resetInfo and resetPre functions that resets the tag ,the info and rhe pre that changed.
-     * The method uses Dijkstra algorithm to build a List od nodes: dest --> ... -->src
-     * Thus the method need to reverse the list later.
+     * The method runs a single search (see route), and then turns the indexes of the path into nodes.
      * Complexity: O((|V|+|E|)log|V|), |V|=number of nodes, |E|=number of edges.
      *
      * @param src  - start node
@@ -122,42 +306,298 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
      */
     @Override
     public List<node_info> shortestPath(int src, int dest) {
-        List<node_info> list = new LinkedList<>();
-        if (shortestPathDist(src, dest) == Integer.MAX_VALUE) {
-            return null;
+        indexed_graph g = graph();
+        return nodes(g, route(g, id(g, src), id(g, dest)));
+    }
+
+    /**
+     * This method returns both the length and the path (as node keys) of the shortest path between src to dest,
+     * computed by a single search (unidirectional or bidirectional according to the search mode).
+     * Note: if no such path --> a PathResult with distance -1 and a null path.
+     * Complexity: O((|V|+|E|)log|V|), |V|=number of nodes, |E|=number of edges.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @return PathResult
+     */
+    public PathResult shortestPathResult(int src, int dest) {
+        indexed_graph g = graph();
+        return keys(g, route(g, id(g, src), id(g, dest)));
+    }
+
+    /**
+     * This method returns the length of the shortest path between src to dest, using A* search with the given heuristic.
+     * A* is Dijkstra's algorithm that pops the node with the smallest distance + estimate to dest,
+     * so it settles the nodes towards dest first, and far fewer nodes than Dijkstra when the estimates are good.
+     * The heuristic must be admissible (never bigger than the real distance), otherwise the result may not be the shortest.
+     * Note: ALTLandmarks is an admissible heuristic for any graph with non negative weights.
+     * Complexity: O((|V|+|E|)log|V|) with a consistent heuristic, |V|=number of nodes, |E|=number of edges.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @param h    - an admissible distance heuristic
+     * @return the length of the shortest path between src to dest, -1 if there is no path.
+     */
+    public double shortestPathDist(int src, int dest, distance_heuristic h) {
+        indexed_graph g = graph();
+        double d = aStar(g, id(g, src), id(g, dest), h, space(SPACE));
+        if (d == Double.POSITIVE_INFINITY) {
+            return -1;
+        }
+        return d;
+    }
+
+    /**
+     * This method returns the shortest path between src to dest - as an ordered List of nodes,
+     * using A* search with the given heuristic (see shortestPathDist(int, int, distance_heuristic)).
+     * Note: if no such path --> null.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @param h    - an admissible distance heuristic
+     * @return List of nodes.
+     */
+    public List<node_info> shortestPath(int src, int dest, distance_heuristic h) {
+        indexed_graph g = graph();
+        return nodes(g, aStarRoute(g, id(g, src), id(g, dest), h));
+    }
+
+    /**
+     * This method returns both the length and the path (as node keys) of the shortest path between src to dest,
+     * computed by a single A* search with the given heuristic (see shortestPathDist(int, int, distance_heuristic)).
+     * Note: if no such path --> a PathResult with distance -1 and a null path.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @param h    - an admissible distance heuristic
+     * @return PathResult
+     */
+    public PathResult shortestPathResult(int src, int dest, distance_heuristic h) {
+        indexed_graph g = graph();
+        return keys(g, aStarRoute(g, id(g, src), id(g, dest), h));
+    }
+
+    /**
+     * This method returns the matrix of the shortest path distances between every source and every target:
+     * matrix[i][j] is the length of the shortest path between sources[i] and targets[j], -1 if there is no path.
+     * Instead of |sources|*|targets| separate queries, the method runs one Dijkstra search per source,
+     * that stops as soon as all the targets are settled.
+     * The searches run in parallel in the common ForkJoinPool, each thread with its own SearchSpace.
+     * Complexity: O(|sources|*(|V|+|E|)log|V|) in the worst case, divided between the threads of the pool.
+     *
+     * @param sources - the keys of the source nodes
+     * @param targets - the keys of the target nodes
+     * @return the distance matrix, |sources| rows and |targets| columns.
+     */
+    public double[][] distanceMatrix(int[] sources, int[] targets) {
+        return distanceMatrix(sources, targets, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This method returns the matrix of the shortest path distances between every source and every target
+     * (see distanceMatrix(int[], int[])), with the searches running in the given ForkJoinPool.
+     *
+     * @param sources - the keys of the source nodes
+     * @param targets - the keys of the target nodes
+     * @param pool    - the pool that runs the searches
+     * @return the distance matrix, |sources| rows and |targets| columns.
+     */
+    public double[][] distanceMatrix(int[] sources, int[] targets, ForkJoinPool pool) {
+        indexed_graph g = graph();
+        int[] s = new int[sources.length];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = id(g, sources[i]);
         }
-        if (this.wg.getNode(src) == null) {
-            throw new RuntimeException("This graph does not contain key " + src);
+        if (targets.length == 0) {
+            // with no targets the early stop of the searches never happens, and there is nothing to fill
+            return new double[s.length][0];
         }
-        if (this.wg.getNode(dest) == null) {
-            throw new RuntimeException("This graph does not contain key " + dest);
+        int[] t = new int[targets.length];
+        boolean[] isTarget = new boolean[g.idBound()];
+        int count = 0;
+        for (int j = 0; j < t.length; j++) {
+            t[j] = id(g, targets[j]);
+            if (!isTarget[t[j]]) {
+                isTarget[t[j]] = true;
+                count++;
+            }
         }
-        if (src == dest) {
-            list.add(this.wg.getNode(dest));
-            return list;
-        }
-        Dijkstra(this.wg.getNode(src), this.wg.getNode(dest));
-        WGraph_DS.node src2 = (WGraph_DS.node) this.wg.getNode(src);
-        WGraph_DS.node dest2 = (WGraph_DS.node) this.wg.getNode(dest);
-        List<node_info> reverseList = new LinkedList<>();
-        WGraph_DS.node temp = dest2;
-        while (temp.getPre() != null) {
-            reverseList.add(temp);
-            temp = (WGraph_DS.node) temp.getPre();
-        }
-        node_info[] arr = reverseList.toArray(node_info[]::new);
-        list.add(src2);
-        for (int i = arr.length - 1; i >= 0; i--) {
-            list.add(arr[i]);
-        }
-        resetInfo();
-        resetTag();
-        resetPre();
-        return list;
+        double[][] matrix = new double[s.length][];
+        int distinct = count;
+        pool.submit(() -> IntStream.range(0, s.length).parallel().forEach(i -> {
+            SearchSpace space = space(SPACE);
+            Dijkstra(g, s[i], isTarget, distinct, space);
+            double[] row = new double[t.length];
+            for (int j = 0; j < t.length; j++) {
+                row[j] = space.isSettled(t[j]) ? space.getDist(t[j]) : -1;
+            }
+            matrix[i] = row;
+        })).join();
+        return matrix;
+    }
+
+    /**
+     * This method returns the distances from src to every node of the graph, computed by the parallel
+     * delta-stepping algorithm in the common ForkJoinPool (see DeltaStepping).
+     * The width of a bucket (delta) is chosen automatically: the biggest weight divided by the average degree.
+     * The distances are the same as the distances of Dijkstra.
+     * Complexity: O(|V|+|E|) work per round of relaxations, divided between the threads of the pool.
+     *
+     * @param src - the source node
+     * @return ShortestPathTree with the distance of every node.
+     */
+    public ShortestPathTree deltaStepping(int src) {
+        return deltaStepping(src, 0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This method returns the distances from src to every node of the graph, computed by the parallel
+     * delta-stepping algorithm in the given ForkJoinPool.
+     * A small delta does less useless work (fewer distances that are improved again later), a big delta
+     * gives the threads more work per bucket.
+     *
+     * @param src   - the source node
+     * @param delta - the width of a bucket, 0 or less to choose it automatically
+     * @param pool  - the pool that runs the parallel relaxations
+     * @return ShortestPathTree with the distance of every node.
+     */
+    public ShortestPathTree deltaStepping(int src, double delta, ForkJoinPool pool) {
+        indexed_graph g = graph();
+        int s = id(g, src);
+        return ShortestPathTree.of(g, s, DeltaStepping.run(g, s, delta, pool));
+    }
+
+    /**
+     * This method returns the shortest path tree of src: the distance and the shortest path from src to every node,
+     * computed by one Dijkstra search (instead of one search per target).
+     * The result is compact - primitive arrays of the reached nodes, their distances and their predecessors,
+     * and the path to a node is only built when it is asked for (see ShortestPathTree).
+     * Complexity: O((|V|+|E|)log|V|).
+     *
+     * @param src - the source node
+     * @return ShortestPathTree of all the nodes that can be reached from src.
+     */
+    public ShortestPathTree shortestPathTree(int src) {
+        return shortestPathTree(src, Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
     }
 
     /**
-     * This method saves this weighted (undirected) graph to the given file name.
+     * This method returns the shortest path tree of src, bounded: the search stops as soon as the next node
+     * is farther than maxDistance, or maxSettled nodes were settled.
+     * Only the settled nodes are in the result (their distances and paths are final),
+     * and ShortestPathTree.isComplete() tells if a bound stopped the search.
+     * Complexity: O((k+e)log k), k - being the amount of reached nodes and e - their edges.
+     *
+     * @param src         - the source node
+     * @param maxDistance - the farthest distance to settle
+     * @param maxSettled  - the maximal amount of nodes to settle
+     * @return ShortestPathTree of the settled nodes.
+     */
+    public ShortestPathTree shortestPathTree(int src, double maxDistance, int maxSettled) {
+        if (!(maxDistance >= 0) || maxSettled < 1) {
+            throw new IllegalArgumentException("The bounds must allow to settle at least the source");
+        }
+        indexed_graph g = graph();
+        return Dijkstra(g, id(g, src), maxDistance, maxSettled, space(SPACE));
+    }
+
+    /**
+     * This method returns the k nodes closest to src (src itself is the first), sorted by their distance.
+     * The Dijkstra search stops as soon as k nodes are settled.
+     * Complexity: O((m+e)log m), m - being the amount of reached nodes and e - their edges.
+     *
+     * @param src - the source node
+     * @param k   - the maximal amount of nodes to return
+     * @return NearestNodes, less than k if fewer nodes can be reached from src.
+     */
+    public NearestNodes nearest(int src, int k) {
+        return nearest(src, k, Double.POSITIVE_INFINITY, null);
+    }
+
+    /**
+     * This method returns the k target nodes closest to src, sorted by their distance (for example the k nearest facilities).
+     * A node is a target iff the predicate accepts its key (src included).
+     *
+     * @param src    - the source node
+     * @param k      - the maximal amount of nodes to return
+     * @param target - accepts the keys of the target nodes
+     * @return NearestNodes of the closest targets.
+     */
+    public NearestNodes nearest(int src, int k, IntPredicate target) {
+        return nearest(src, k, Double.POSITIVE_INFINITY, target);
+    }
+
+    /**
+     * This method returns the k nodes of the given set closest to src, sorted by their distance.
+     * The search also stops as soon as all the nodes of the set are settled.
+     *
+     * @param src     - the source node
+     * @param k       - the maximal amount of nodes to return
+     * @param targets - the keys of the target nodes
+     * @return NearestNodes of the closest targets.
+     */
+    public NearestNodes nearest(int src, int k, int[] targets) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        indexed_graph g = graph();
+        int s = id(g, src);
+        IntIntMap set = new IntIntMap(targets.length);
+        for (int key : targets) {
+            set.put(id(g, key), 0);
+        }
+        return Dijkstra(g, s, Math.min(k, set.size()), Double.POSITIVE_INFINITY, id -> set.get(id) >= 0, space(SPACE));
+    }
+
+    /**
+     * This method returns all the nodes within distance radius of src (src itself is the first), sorted by their distance.
+     * The Dijkstra search stops as soon as the next node is farther than radius.
+     * Complexity: O((m+e)log m), m - being the amount of reached nodes and e - their edges.
+     *
+     * @param src    - the source node
+     * @param radius - the maximal distance
+     * @return NearestNodes of the nodes within the radius.
+     */
+    public NearestNodes withinRadius(int src, double radius) {
+        return nearest(src, Integer.MAX_VALUE, radius, null);
+    }
+
+    /**
+     * This method returns all the target nodes within distance radius of src, sorted by their distance.
+     * A node is a target iff the predicate accepts its key (src included).
+     *
+     * @param src    - the source node
+     * @param radius - the maximal distance
+     * @param target - accepts the keys of the target nodes
+     * @return NearestNodes of the targets within the radius.
+     */
+    public NearestNodes withinRadius(int src, double radius, IntPredicate target) {
+        return nearest(src, Integer.MAX_VALUE, radius, target);
+    }
+
+    /**
+     * This method returns at most k target nodes within distance radius of src, the closest first.
+     * The Dijkstra search stops as soon as k targets are settled or the next node is farther than radius.
+     *
+     * @param src    - the source node
+     * @param k      - the maximal amount of nodes to return
+     * @param radius - the maximal distance
+     * @param target - accepts the keys of the target nodes, null for all the nodes
+     * @return NearestNodes of the closest targets.
+     */
+    public NearestNodes nearest(int src, int k, double radius, IntPredicate target) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        indexed_graph g = graph();
+        int s = id(g, src);
+        IntPredicate isTarget = target == null ? null : id -> target.test(g.keyOf(id));
+        return Dijkstra(g, s, k, radius, isTarget, space(SPACE));
+    }
+
+    /**
+     * This method saves this weighted (undirected) graph to the given file name,
+     * in the binary format of WGraph_Binary (every node and edge once, with a checksum).
      *
      * @param file - the file name (may include a relative path).
      * @return true - iff the file was successfully saved, otherwise false.
@@ -165,18 +605,31 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
     @Override
     public boolean save(String file) {
         try {
-            //Saving of object in a file
-            FileOutputStream fos = new FileOutputStream(file);
-            ObjectOutputStream out = new ObjectOutputStream(fos);
+            WGraph_Binary.write(this.wg, file);
+            System.out.println("The weighted graph has been saved");
+        } catch (IOException ex) {
+            System.out.print("Error writing file\n" + ex);
+            return false;
+        }
+        return true;
+    }
 
+    /**
+     * This method saves this weighted (undirected) graph to the given file name by Java serialization
+     * (the format of the older versions of save, for clients that read the file with an ObjectInputStream).
+     * A WGraph_DS is written as its SerialForm (flat arrays, not recursive), any other graph is first copied to a WGraph_DS,
+     * so the file is always a serialized WGraph_DS that load reads back.
+     * Complexity: O(|V|+|E|).
+     *
+     * @param file - the file name (may include a relative path).
+     * @return true - iff the file was successfully saved, otherwise false.
+     */
+    public boolean saveSerialized(String file) {
+        weighted_graph g = this.wg instanceof WGraph_DS ? this.wg : new WGraph_DS(this.wg);
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
             // Method for serialization of object
-            out.writeObject(this.wg);
-
-            out.close();
-            fos.close();
-
+            out.writeObject(g);
             System.out.println("The weighted graph has been serialized");
-
         } catch (IOException ex) {
             System.out.print("Error writing file\n" + ex);
             return false;
@@ -184,16 +637,165 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
         return true;
     }
 
+    /**
+     * This method saves a point-in-time snapshot of this graph to the given file name on a background thread,
+     * in the binary format of WGraph_Binary, so the caller does not wait for the file and the graph may be
+     * queried and changed while it is written.
+     * The snapshot is taken by the calling thread (see snapshot), the file is written through a FileChannel to file.tmp
+     * and then moved over file, so the file is always either the old graph or the whole new one.
+     * When the save ends the amount of bytes written and the elapsed time (from the call) are printed,
+     * and kept in a SaveStats (see getLastSave).
+     * Complexity: O(|V|+|E|) for the snapshot in the calling thread, the writing in the background.
+     *
+     * @param file - the file name (may include a relative path).
+     * @return a CompletableFuture of true - iff the file was successfully saved, otherwise false.
+     */
+    public CompletableFuture<Boolean> saveAsync(String file) {
+        return saveAsync(file, SAVER);
+    }
+
+    /**
+     * This method is saveAsync(file) with the file written by the given executor.
+     *
+     * @param file     - the file name (may include a relative path).
+     * @param executor - the executor that writes the file
+     * @return a CompletableFuture of true - iff the file was successfully saved, otherwise false.
+     */
+    public CompletableFuture<Boolean> saveAsync(String file, Executor executor) {
+        long start = System.nanoTime();
+        weighted_graph view;
+        try {
+            view = snapshot(this.wg);
+        } catch (RuntimeException ex) {
+            System.out.print("Error writing file\n" + ex);
+            long millis = (System.nanoTime() - start) / 1000000;
+            this.lastSave = new SaveStats(file, false, 0, millis, millis);
+            return CompletableFuture.completedFuture(false);
+        }
+        long snapshotMillis = (System.nanoTime() - start) / 1000000;
+        return CompletableFuture.supplyAsync(() -> {
+            Path tmp = null;
+            try {
+                // an invalid file name throws an InvalidPathException, which ends the save like an IOException
+                Path path = Paths.get(file);
+                tmp = Paths.get(file + ".tmp");
+                WGraph_Binary.write(view, tmp.toString());
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                long bytes = Files.size(path);
+                long millis = (System.nanoTime() - start) / 1000000;
+                this.lastSave = new SaveStats(file, true, bytes, snapshotMillis, millis);
+                System.out.println("The weighted graph has been saved (" + bytes + " bytes in " + millis + " ms)");
+                return true;
+            } catch (IOException | RuntimeException ex) {
+                System.out.print("Error writing file\n" + ex);
+                try {
+                    if (tmp != null) {
+                        Files.deleteIfExists(tmp);
+                    }
+                } catch (IOException ignored) {
+                }
+                this.lastSave = new SaveStats(file, false, 0, snapshotMillis, (System.nanoTime() - start) / 1000000);
+                return false;
+            }
+        }, executor);
+    }
+
+    /**
+     * This method returns the report of the last save of saveAsync that ended (successfully or not):
+     * the file, the amount of bytes written, the time of the snapshot and the time of the whole save.
+     * It is set before the future of that save is completed, so after saveAsync(file).get() it is the report of file
+     * (unless another save of this object ended in between).
+     *
+     * @return SaveStats, null if no save ended yet.
+     */
+    public SaveStats getLastSave() {
+        return this.lastSave;
+    }
+
+    /**
+     * This method returns a copy of the given graph that no other thread changes (the view saved by saveAsync):
+     * a read-only WGraph_Mapped or WGraph_Compressed is returned as it is,
+     * a WGraph_Journal is copied while its lock is held (its changes wait for the copy),
+     * any other graph is copied to a WGraph_CSR, and the copy is kept only if the MC of the graph did not change
+     * while it was copied (otherwise the copy is taken again, up to SNAPSHOT_ATTEMPTS times).
+     * Complexity: O(|V|+|E|) for each attempt.
+     *
+     * @param g - a weighted graph
+     * @return a snapshot of g
+     * @throws ConcurrentModificationException if g was changed during every attempt
+     */
+    static weighted_graph snapshot(weighted_graph g) {
+        if (g instanceof WGraph_Mapped || g instanceof WGraph_Compressed) {
+            return g;
+        }
+        if (g instanceof WGraph_Journal) {
+            synchronized (g) {
+                return new WGraph_CSR(g);
+            }
+        }
+        for (int attempt = 1; ; attempt++) {
+            int mc = g.getMC();
+            try {
+                WGraph_CSR copy = new WGraph_CSR(g);
+                if (g.getMC() == mc) {
+                    return copy;
+                }
+            } catch (RuntimeException ex) {
+                // the graph was changed in the middle of the copy
+                if (attempt == SNAPSHOT_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+            if (attempt == SNAPSHOT_ATTEMPTS) {
+                throw new ConcurrentModificationException("The graph was changed during every snapshot");
+            }
+        }
+    }
+
     /**
      * This method loads a graph to this graph algorithm.
      * if the file was successfully loaded - the underlying graph of this class will be changed (to the loaded one),
      * In case the graph was not successfully loaded, the original graph would remain "as is".
+     * A file in the binary format of WGraph_Binary is loaded into a new (pre-sized) WGraph_DS,
+     * a file of WGraph_Compressed is read into a (read-only) WGraph_Compressed,
+     * a file in the layout of WGraph_Mapped is mapped as a read-only graph (nothing is read until it is used),
+     * any other file is read as a serialized graph (the format of the older versions).
      *
      * @param file - file name
      * @return true - iff the graph was successfully loaded, otherwise false.
      */
     @Override
     public boolean load(String file) {
+        if (WGraph_Binary.isBinary(file)) {
+            try {
+                this.init(WGraph_Binary.read(file));
+                System.out.println("The weighted graph has been loaded");
+                return true;
+            } catch (IOException ex) {
+                System.out.print("Error reading file\n" + ex);
+                return false;
+            }
+        }
+        if (WGraph_Compressed.isCompressed(file)) {
+            try {
+                this.init(WGraph_Compressed.read(file));
+                System.out.println("The weighted graph has been loaded");
+                return true;
+            } catch (IOException ex) {
+                System.out.print("Error reading file\n" + ex);
+                return false;
+            }
+        }
+        if (WGraph_Mapped.isMapped(file)) {
+            try {
+                this.init(WGraph_Mapped.open(file));
+                System.out.println("The weighted graph has been mapped");
+                return true;
+            } catch (IOException ex) {
+                System.out.print("Error reading file\n" + ex);
+                return false;
+            }
+        }
         try {
             // Reading the object from a file
             FileInputStream fis = new FileInputStream(file);
@@ -216,132 +818,507 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
     }
 
     /**
-     * This private method based on breadth-first search.
-     * BFS is an algorithm for traversing or searching graph data structures.
-     * The method checks whether or not the graph is linked,
-     * in other words it checks whether there is a path between each node and each node.
-     * The method uses the info of each vertex to know whether it has been visited or not
-     * The method stored a queue of the visited nodes:
-     * Pop the first node from the queue
-     * Check if the node has already been visited, if so skip it(tag = Green -> visited, tag = Blue -> not visited).
-     * Otherwise mark it as visited (update his own info) and add the node to the queue.
-     * Add this node's neighbors to the queue and repeat these steps
-     * After the queue is empty check the info of all the nodes in this graph.,
-     * If all the nodes in the graph are marked as visited the method will return true,
-     * Otherwise false.
-     * Note: The method change the info values.
-     * Complexity: O(|V|+|E|), |V|=number of nodes, |E|=number of edges.
+     * This private method returns the graph of this class as an indexed_graph.
+     * WGraph_DS and WGraph_CSR are indexed graphs, any other implementation is frozen into a WGraph_CSR snapshot,
+     * which is kept until the graph (or its Mode Count) changes.
+     *
+     * @return an indexed_graph with the same nodes and edges as the graph of this class
+     */
+    private indexed_graph graph() {
+        weighted_graph g = this.wg;
+        if (g instanceof indexed_graph) {
+            return (indexed_graph) g;
+        }
+        WGraph_CSR f = this.frozen;
+        if (f == null || this.frozenFrom != g || f.getMC() != g.getMC()) {
+            f = new WGraph_CSR(g);
+            this.frozen = f;
+            this.frozenFrom = g;
+        }
+        return f;
+    }
+
+    /**
+     * This method returns the given graph as an indexed_graph:
+     * the graph itself if it is already indexed, otherwise a new WGraph_CSR snapshot of it.
      *
      * @param g - a weighted graph
-     * @return true if all the nodes in the graph are marked as visited, false otherwise
-     */
-    private boolean bfs(weighted_graph g) {
-        node_info n = g.getV().iterator().next();
-        Queue<node_info> queue = new LinkedList<>();
-        n.setInfo("Green");
-        queue.add(n);
-        while (!queue.isEmpty()) {
-            WGraph_DS.node temp = (WGraph_DS.node) queue.poll();
-            Collection<node_info> h = temp.getNi();
-            for (node_info next : h) {
-                if (next.getInfo().equals("Blue")) {
-                    next.setInfo("Green");
-                    queue.add(next);
-                }
+     * @return an indexed_graph with the same nodes and edges as g
+     */
+    static indexed_graph indexed(weighted_graph g) {
+        if (g instanceof indexed_graph) {
+            return (indexed_graph) g;
+        }
+        return new WGraph_CSR(g);
+    }
+
+    /**
+     * This private method returns the SearchSpace of this thread, set to the kind of priority queue of this object.
+     *
+     * @param local - SPACE or BACK_SPACE
+     * @return SearchSpace
+     */
+    private SearchSpace space(ThreadLocal<SearchSpace> local) {
+        SearchSpace space = local.get();
+        space.setQueue(this.queue);
+        return space;
+    }
+
+    /**
+     * This private method returns the index of the given key.
+     *
+     * @param g   - an indexed graph
+     * @param key - the node unique key
+     * @return the index of the node
+     */
+    private int id(indexed_graph g, int key) {
+        int id = g.idOf(key);
+        if (id < 0) {
+            throw new RuntimeException("This graph does not contain key " + key);
+        }
+        return id;
+    }
+
+    /**
+     * This private method returns true iff the point to point searches on the given graph should be bidirectional.
+     *
+     * @param g - an indexed graph
+     * @return true or false.
+     */
+    private boolean bidirectional(indexed_graph g) {
+        return this.mode == Mode.BIDIRECTIONAL || (this.mode == Mode.AUTO && g.nodeSize() >= BIDIRECTIONAL_THRESHOLD);
+    }
+
+    /**
+     * This private method runs one search from src to dest (according to the search mode),
+     * and returns the distance together with the indexes (not the keys) of the nodes of the path.
+     *
+     * @param g    - an indexed graph
+     * @param src  - the index of the source node
+     * @param dest - the index of the destination node
+     * @return a PathResult of indexes, distance -1 and a null path if there is no path.
+     */
+    private PathResult route(indexed_graph g, int src, int dest) {
+        SearchSpace space = space(SPACE);
+        if (bidirectional(g)) {
+            SearchSpace back = space(BACK_SPACE);
+            int[] meet = new int[2];
+            double d = biDijkstra(g, src, dest, space, back, meet);
+            if (d == Double.POSITIVE_INFINITY) {
+                return new PathResult(-1, null);
+            }
+            int[] first = path(space, src, meet[0]);
+            int[] second = path(back, dest, meet[1]);
+            // when src == dest both sides "meet" in the same node, which must appear only once
+            int skip = meet[0] == meet[1] ? 1 : 0;
+            int[] path = Arrays.copyOf(first, first.length + second.length - skip);
+            for (int i = skip; i < second.length; i++) {
+                path[first.length + i - skip] = second[second.length - 1 - i];
             }
+            return new PathResult(d, path);
+        }
+        double d = Dijkstra(g, src, dest, space);
+        if (d == Double.POSITIVE_INFINITY) {
+            return new PathResult(-1, null);
         }
+        return new PathResult(d, path(space, src, dest));
+    }
 
-        for (node_info node : this.wg.getV()) {
-            if (node.getInfo().equals("Blue")) {
-                return false;
+    /**
+     * This private method runs one A* search from src to dest,
+     * and returns the distance together with the indexes (not the keys) of the nodes of the path.
+     *
+     * @param g    - an indexed graph
+     * @param src  - the index of the source node
+     * @param dest - the index of the destination node
+     * @param h    - a distance heuristic
+     * @return a PathResult of indexes, distance -1 and a null path if there is no path.
+     */
+    private PathResult aStarRoute(indexed_graph g, int src, int dest, distance_heuristic h) {
+        SearchSpace space = space(SPACE);
+        double d = aStar(g, src, dest, h, space);
+        if (d == Double.POSITIVE_INFINITY) {
+            return new PathResult(-1, null);
+        }
+        return new PathResult(d, path(space, src, dest));
+    }
+
+    /**
+     * This private method turns a PathResult of indexes into a list of nodes.
+     *
+     * @param g - an indexed graph
+     * @param r - a PathResult of indexes
+     * @return List of nodes, null if there is no path.
+     */
+    private List<node_info> nodes(indexed_graph g, PathResult r) {
+        if (!r.hasPath()) {
+            return null;
+        }
+        List<node_info> list = new ArrayList<>(r.getPath().length);
+        for (int id : r.getPath()) {
+            list.add(g.nodeAt(id));
+        }
+        return list;
+    }
+
+    /**
+     * This private method turns the indexes of a PathResult into node keys, in place.
+     *
+     * @param g - an indexed graph
+     * @param r - a PathResult of indexes
+     * @return the same PathResult, with keys.
+     */
+    private PathResult keys(indexed_graph g, PathResult r) {
+        if (r.hasPath()) {
+            int[] path = r.getPath();
+            for (int i = 0; i < path.length; i++) {
+                path[i] = g.keyOf(path[i]);
             }
         }
-        return true;
+        return r;
+    }
+
+    /**
+     * This private method returns the indexes of the nodes of the path that the last search found from src to dest.
+     * The method counts the nodes by following the predecessors from dest back to src,
+     * and then fills an array of that size from its end, so the path is built without any list or reversing.
+     * Complexity: O(k), k - being the amount of nodes in the path.
+     *
+     * @param space - the state of a search that reached dest
+     * @param src   - the index of the source node
+     * @param dest  - the index of the destination node
+     * @return the indexes of the path, src first.
+     */
+    private int[] path(SearchSpace space, int src, int dest) {
+        int n = 1;
+        for (int v = dest; v != src; v = space.getPre(v)) {
+            n++;
+        }
+        int[] path = new int[n];
+        for (int v = dest; n > 0; v = space.getPre(v)) {
+            path[--n] = v;
+        }
+        return path;
     }
 
     /**
      * This private method based on Dijkstra's algorithm.
      * Dijkstra's algorithm is an algorithm for finding the shortest paths between nodes in a graph.
      * In other words it finds the shortest paths between the source node and the destination node.
-     * The method uses the tag of each node to update his current distance from the source node.
-     * The method stored a priority queue(priority is determined by the tag) of the visited nodes:
-     * Pop the first node from the queue.
+     * The distance and the predecessor of each node are kept in the given SearchSpace.
+     * The priority queue is the search_queue of the SearchSpace (see Queue), which returns each node at most once:
+     * Pop the closest node from the heap, its distance is final.
      * Visit each one of this nodes neighbors:
-     * Check if the node has already been visited, if so skip it(tag = Green -> visited, tag = Blue -> not visited).
-     * Updates his tag to be the distance between the node and the source node.
-     * Updates his pre To be the node from which he came to.
-     * Add this node to the queue.
-     * After going through all the neighbors of the node,
-     * updates that we visited this node by change his info to "Green" and therefore will not visit it again.
-     * Repeat these steps until the queue is empty or has reached the destination node.
-     * If the queue is empty it means it did not reach the destination node (the graph is not connected), return infinity.
-     * Otherwise returns the tag of the destination node
-     * Note: The method change the info, tag and pre values.
+     * If going through this node shortens the distance of the neighbor, update his distance and his predecessor,
+     * and push the neighbor with the new distance (decrease-key if it is already in the heap).
+     * Repeat these steps until the heap is empty or the destination node was popped.
+     * If the heap is empty it means it did not reach the destination node (the graph is not connected), return infinity.
+     * With dest = -1 the search never stops early, and the SearchSpace holds the distances to every reachable node
+     * (ALTLandmarks uses it this way).
      * Complexity: O((|V|+|E|)log|V|), |V|=number of nodes, |E|=number of edges.
      *
-     * @param src  - the source node_info
-     * @param dest - the destination node_info
-     * @return the shortest path between the two nodes and infinity(Integer.MAX_VALUE) if there is no path like this.
-     */
-    private double Dijkstra(node_info src, node_info dest) {
-        double shortest = Integer.MAX_VALUE;
-        PriorityQueue<node_info> pq = new PriorityQueue<>();
-        src.setInfo("Green");
-        src.setTag(0);
-        pq.add(src);
-
-        while (!pq.isEmpty()) {
-            WGraph_DS.node temp = (WGraph_DS.node) pq.poll();
-            for (node_info n : temp.getNi()) {
-                if (n.getInfo().equals("Blue")) {
-                    WGraph_DS.node temp2 = (WGraph_DS.node) n;
-                    if (n.getTag() > temp.getTag() + this.wg.getEdge(n.getKey(), temp.getKey())) {
-                        n.setTag(Math.min(n.getTag(), temp.getTag() + this.wg.getEdge(n.getKey(), temp.getKey())));
-                        temp2.setPre(temp);
-                    }
-                    pq.add(n);
+     * @param g     - an indexed graph
+     * @param src   - the index of the source node
+     * @param dest  - the index of the destination node, -1 for a full search
+     * @param space - the private state of this search
+     * @return the shortest path between the two nodes and infinity if there is no path like this.
+     */
+    static double Dijkstra(indexed_graph g, int src, int dest, SearchSpace space) {
+        space.reset(g.idBound());
+        search_queue heap = space.frontier(g);
+        indexed_graph.edge_cursor c = g.edges();
+        space.reach(src, 0, -1);
+        heap.push(src, 0);
+        while (!heap.isEmpty()) {
+            double du = heap.minKey();
+            int u = heap.poll();
+            space.settle(u);
+            if (u == dest) {
+                return du;
+            }
+            c.reset(u);
+            while (c.next()) {
+                int v = c.target();
+                double d = du + c.weight();
+                if (d < space.getDist(v)) {
+                    space.reach(v, d, u);
+                    heap.push(v, d);
                 }
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
 
+    /**
+     * This private method is the bounded version of Dijkstra's algorithm that keeps its settled nodes:
+     * the search from src stops when the next node is farther than maxDistance, maxSettled nodes were settled,
+     * or the heap is empty. The settled nodes are collected in the order they were settled, each one with the
+     * position of its predecessor (space.queue holds the position of every settled node index).
+     * Complexity: O((k+e)log k), k - being the amount of reached nodes and e - their edges.
+     *
+     * @param g           - an indexed graph
+     * @param src         - the index of the source node
+     * @param maxDistance - the farthest distance to settle
+     * @param maxSettled  - the maximal amount of nodes to settle
+     * @param space       - the private state of this search
+     * @return ShortestPathTree of the settled nodes
+     */
+    private static ShortestPathTree Dijkstra(indexed_graph g, int src, double maxDistance, int maxSettled, SearchSpace space) {
+        space.reset(g.idBound());
+        search_queue heap = space.frontier(g);
+        indexed_graph.edge_cursor c = g.edges();
+        int[] position = space.queue(g.idBound());
+        int[] ids = new int[16];
+        double[] dist = new double[16];
+        int[] parent = new int[16];
+        int n = 0;
+        space.reach(src, 0, -1);
+        heap.push(src, 0);
+        while (!heap.isEmpty() && n < maxSettled && heap.minKey() <= maxDistance) {
+            double du = heap.minKey();
+            int u = heap.poll();
+            space.settle(u);
+            if (n == ids.length) {
+                ids = Arrays.copyOf(ids, n * 2);
+                dist = Arrays.copyOf(dist, n * 2);
+                parent = Arrays.copyOf(parent, n * 2);
             }
-            temp.setInfo("Green");
-            if (temp == dest) {
-                return temp.getTag();
+            int p = space.getPre(u);
+            ids[n] = u;
+            dist[n] = du;
+            parent[n] = p < 0 ? -1 : position[p];
+            position[u] = n++;
+            c.reset(u);
+            while (c.next()) {
+                int v = c.target();
+                double d = du + c.weight();
+                if (d < space.getDist(v)) {
+                    space.reach(v, d, u);
+                    heap.push(v, d);
+                }
             }
         }
-        return shortest;
+        return new ShortestPathTree(g, Arrays.copyOf(ids, n), Arrays.copyOf(dist, n), Arrays.copyOf(parent, n), heap.isEmpty());
     }
 
+    /**
+     * This private method is the neighborhood version of Dijkstra's algorithm: the settled nodes that are targets
+     * are collected in the order they were settled (so sorted by their distance), and the search stops when
+     * k targets were collected, the next node is farther than radius, or the heap is empty.
+     * Complexity: O((m+e)log m), m - being the amount of reached nodes and e - their edges.
+     *
+     * @param g        - an indexed graph
+     * @param src      - the index of the source node
+     * @param k        - the maximal amount of targets
+     * @param radius   - the maximal distance
+     * @param isTarget - accepts the indexes of the target nodes, null for all the nodes
+     * @param space    - the private state of this search
+     * @return NearestNodes of the collected targets
+     */
+    private static NearestNodes Dijkstra(indexed_graph g, int src, int k, double radius, IntPredicate isTarget, SearchSpace space) {
+        space.reset(g.idBound());
+        search_queue heap = space.frontier(g);
+        indexed_graph.edge_cursor c = g.edges();
+        int[] keys = new int[Math.min(k, 16)];
+        double[] dists = new double[keys.length];
+        int n = 0;
+        space.reach(src, 0, -1);
+        heap.push(src, 0);
+        while (n < k && !heap.isEmpty() && heap.minKey() <= radius) {
+            double du = heap.minKey();
+            int u = heap.poll();
+            space.settle(u);
+            if (isTarget == null || isTarget.test(u)) {
+                if (n == keys.length) {
+                    keys = Arrays.copyOf(keys, (int) Math.min(k, n * 2L));
+                    dists = Arrays.copyOf(dists, keys.length);
+                }
+                keys[n] = g.keyOf(u);
+                dists[n++] = du;
+            }
+            c.reset(u);
+            while (c.next()) {
+                int v = c.target();
+                double d = du + c.weight();
+                if (d < space.getDist(v)) {
+                    space.reach(v, d, u);
+                    heap.push(v, d);
+                }
+            }
+        }
+        return new NearestNodes(Arrays.copyOf(keys, n), Arrays.copyOf(dists, n));
+    }
 
     /**
-     * This private method resets the value of info in each node in the graph.
-     * Reset the value = change it back to default value: Blue
+     * This private method is the one to many version of Dijkstra's algorithm:
+     * the search from src stops as soon as count target nodes are settled (or the heap is empty),
+     * after that the distance of every settled target is final.
+     * Complexity: O((|V|+|E|)log|V|) in the worst case, usually far less when the targets are close to src.
+     *
+     * @param g        - an indexed graph
+     * @param src      - the index of the source node
+     * @param isTarget - isTarget[id] is true iff the node of this index is a target
+     * @param count    - the amount of targets
+     * @param space    - the private state of this search
      */
-    private void resetInfo() {
-        for (node_info n : this.wg.getV()) {
-            n.setInfo("Blue");
+    private static void Dijkstra(indexed_graph g, int src, boolean[] isTarget, int count, SearchSpace space) {
+        space.reset(g.idBound());
+        search_queue heap = space.frontier(g);
+        indexed_graph.edge_cursor c = g.edges();
+        space.reach(src, 0, -1);
+        heap.push(src, 0);
+        while (!heap.isEmpty()) {
+            double du = heap.minKey();
+            int u = heap.poll();
+            space.settle(u);
+            if (isTarget[u] && --count == 0) {
+                return;
+            }
+            c.reset(u);
+            while (c.next()) {
+                int v = c.target();
+                double d = du + c.weight();
+                if (d < space.getDist(v)) {
+                    space.reach(v, d, u);
+                    heap.push(v, d);
+                }
+            }
         }
     }
 
     /**
-     * This private method resets the values of all the tags of the nodes in the graph.
-     * Reset the value = change it back to default value: Integer.MAX_VALUE (infinity).
+     * This private method is the A* version of Dijkstra's algorithm.
+     * The heap key of a node is its distance from src plus the estimate of the heuristic from the node to dest,
+     * so the search is pulled towards dest. A node whose estimate is infinity cannot reach dest and is never pushed.
+     * The search stops when dest is popped. With an admissible heuristic that is not consistent,
+     * a popped node may still be reached by a shorter path later, in that case it is simply pushed again (reopened).
+     * Complexity: O((|V|+|E|)log|V|) with a consistent heuristic, |V|=number of nodes, |E|=number of edges.
+     *
+     * @param g     - an indexed graph
+     * @param src   - the index of the source node
+     * @param dest  - the index of the destination node
+     * @param h     - a distance heuristic (on node keys)
+     * @param space - the private state of this search
+     * @return the shortest path between the two nodes and infinity if there is no path like this.
      */
-    private void resetTag() {
-        for (node_info n : this.wg.getV()) {
-            n.setTag(Integer.MAX_VALUE);
+    private double aStar(indexed_graph g, int src, int dest, distance_heuristic h, SearchSpace space) {
+        space.reset(g.idBound());
+        IndexedHeap heap = space.heap();
+        indexed_graph.edge_cursor c = g.edges();
+        int target = g.keyOf(dest);
+        space.reach(src, 0, -1);
+        double hs = h.estimate(g.keyOf(src), target);
+        if (hs == Double.POSITIVE_INFINITY) {
+            return Double.POSITIVE_INFINITY;
+        }
+        heap.push(src, hs);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            space.settle(u);
+            double du = space.getDist(u);
+            if (u == dest) {
+                return du;
+            }
+            c.reset(u);
+            while (c.next()) {
+                int v = c.target();
+                double d = du + c.weight();
+                if (d < space.getDist(v)) {
+                    double hv = h.estimate(g.keyOf(v), target);
+                    if (hv != Double.POSITIVE_INFINITY) {
+                        space.reach(v, d, u);
+                        heap.push(v, d + hv);
+                    }
+                }
+            }
         }
+        return Double.POSITIVE_INFINITY;
     }
 
     /**
-     * This private method resets the value of pre in each node in the graph.
-     * Reset the value = change it back to default value: null.
+     * This private method is the bidirectional version of Dijkstra's algorithm for a point to point query.
+     * A forward search from src and a backward search from dest (the graph is undirected, so both scan the same edges)
+     * run in turns, each time the side with the smaller heap advances by one node.
+     * Whenever a side relaxes an edge (u,v) and v was already reached by the other side,
+     * the path src ~> u - v ~> dest is a candidate, and mu is the length of the best candidate so far.
+     * Stopping criterion: once the smallest keys of the two heaps add up to at least mu,
+     * no path that was not seen yet can be shorter than mu, so mu is the length of the shortest path.
+     * mu adds the weights of the two halves in another order than a search from src, so the returned length is summed
+     * again along the path from src (O(length of the path)), the same sum as Dijkstra and shortestPathTree.
+     * The forward side keeps its state in the first SearchSpace and the backward side in the second one.
+     * Complexity: O((|V|+|E|)log|V|) in the worst case, usually far fewer nodes are settled than by one search.
+     *
+     * @param g     - an indexed graph
+     * @param src   - the index of the source node
+     * @param dest  - the index of the destination node
+     * @param fwd   - the private state of the forward search
+     * @param bwd   - the private state of the backward search
+     * @param meet  - if not null, filled with the meeting edge: meet[0] reached by fwd, meet[1] reached by bwd
+     * @return the length of the shortest path and infinity if there is no path like this.
      */
-    private void resetPre() {
-        WGraph_DS.node temp;
-        for (node_info n : this.wg.getV()) {
-            temp = (WGraph_DS.node) n;
-            temp.setPre(null);
+    private double biDijkstra(indexed_graph g, int src, int dest, SearchSpace fwd, SearchSpace bwd, int[] meet) {
+        fwd.reset(g.idBound());
+        bwd.reset(g.idBound());
+        fwd.reach(src, 0, -1);
+        bwd.reach(dest, 0, -1);
+        if (meet != null) {
+            meet[0] = src;
+            meet[1] = src;
         }
+        if (src == dest) {
+            return 0;
+        }
+        int from = -1;
+        int to = -1;
+        double across = 0;
+        search_queue fh = fwd.frontier(g);
+        search_queue bh = bwd.frontier(g);
+        fh.push(src, 0);
+        bh.push(dest, 0);
+        indexed_graph.edge_cursor c = g.edges();
+        double mu = Double.POSITIVE_INFINITY;
+        while (!fh.isEmpty() && !bh.isEmpty() && fh.minKey() + bh.minKey() < mu) {
+            boolean forward = fh.size() <= bh.size();
+            SearchSpace self = forward ? fwd : bwd;
+            SearchSpace other = forward ? bwd : fwd;
+            search_queue heap = forward ? fh : bh;
+            double du = heap.minKey();
+            int u = heap.poll();
+            self.settle(u);
+            c.reset(u);
+            while (c.next()) {
+                int v = c.target();
+                double d = du + c.weight();
+                if (d < self.getDist(v)) {
+                    self.reach(v, d, u);
+                    heap.push(v, d);
+                }
+                if (other.isReached(v) && d + other.getDist(v) < mu) {
+                    mu = d + other.getDist(v);
+                    from = forward ? u : v;
+                    to = forward ? v : u;
+                    across = c.weight();
+                }
+            }
+        }
+        if (mu == Double.POSITIVE_INFINITY) {
+            return mu;
+        }
+        if (meet != null) {
+            meet[0] = from;
+            meet[1] = to;
+        }
+        // the distances of the forward side are already summed from src, the backward half is added edge by edge
+        double d = fwd.getDist(from) + across;
+        for (int v = to; v != dest; ) {
+            int p = bwd.getPre(v);
+            c.reset(v);
+            while (c.next() && c.target() != p) {
+            }
+            d += c.weight();
+            v = p;
+        }
+        return d;
     }
 
     /**
@@ -375,13 +1352,17 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
     ////////////////////////////////\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\
     //////////////////////////MY SAVE & LOAD\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\
     //////////////////////////////////\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\\
+    /**
+     * This method saves this weighted (undirected) graph to the given file name as text,
+     * one line per edge (see WGraph_EdgeList). The tag and info of the nodes are not saved.
+     * Complexity: O(|V|+|E|).
+     *
+     * @param file - the file name (may include a relative path).
+     * @return true - iff the file was successfully saved, otherwise false.
+     */
     public boolean mySave(String file) {
         try {
-            FileWriter fw = new FileWriter(file);
-            PrintWriter outs = new PrintWriter(fw);
-            outs.println(this.wg);
-            outs.close();
-            fw.close();
+            WGraph_EdgeList.write(this.wg, file);
         } catch (IOException ex) {
             System.out.print("Error writing file\n" + ex);
             return false;
@@ -389,25 +1370,48 @@ public class WGraph_Algo implements weighted_graph_algorithms, java.io.Serializa
         return true;
     }
 
+    /**
+     * This method loads a graph that was saved by mySave.
+     * The lines are parsed in parallel in the common ForkJoinPool (see WGraph_EdgeList).
+     * A file of the older versions (the whole graph in one line, as returned by WGraph_DS.toString) is read as well.
+     * In case the graph was not successfully loaded, the original graph would remain "as is".
+     *
+     * @param file - file name
+     * @return true - iff the graph was successfully loaded, otherwise false.
+     */
     public boolean myLoad(String file) {
-        String str;
         try {
-            FileReader fr = new FileReader(file);
-            BufferedReader br = new BufferedReader(fr);
-            str = br.readLine();
-            br.close();
-            fr.close();
-        } catch (IOException ex) {
+            if (isSingleLine(file)) {
+                String str;
+                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                    str = br.readLine();
+                }
+                init(strToGraph(str));
+            }
+            else {
+                init(WGraph_EdgeList.read(file));
+            }
+        } catch (IOException | RuntimeException ex) {
             System.out.print("Error reading file\n" + ex);
-            System.exit(2);
             return false;
         }
-        if (str.length() != 0) {
-            init(strToGraph(str));
-        }
         return true;
     }
 
+    /**
+     * This private method returns true iff the file is in the format of the older versions of mySave
+     * (it starts with the first node, "{Key:").
+     *
+     * @param file - file name
+     * @return true or false.
+     * @throws IOException if the file could not be read
+     */
+    private static boolean isSingleLine(String file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            return in.read() == '{';
+        }
+    }
+
     private weighted_graph strToGraph(String s) {
         weighted_graph nwg = new WGraph_DS();
         String[] arr = s.split("\\|");
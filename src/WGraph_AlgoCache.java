@@ -0,0 +1,337 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a caching layer around WGraph_Algo, for query mixes in which a few (src, dest) pairs repeat a lot.
+ * It implements weighted_graph_algorithms, so it can be used instead of a WGraph_Algo.
+ * The result of each shortest path query (a PathResult) is kept in a bounded LRU cache, keyed by the ordered pair of nodes.
+ * (src, dest) and (dest, src) are kept apart: the length of a path is summed from its src, so the two directions may
+ * differ in the last bits, and a cached result is always the result of WGraph_Algo for the same call.
+ * The cache is bounded both by the amount of entries and by an estimate of their memory (a long path costs more),
+ * and the least recently used entries are evicted first.
+ * Every entry is valid only for the Mode Count of the graph at the time it was computed:
+ * once the graph changes (its Mode Count changes, or another graph is set by init / load) the whole cache is discarded.
+ * The hits, misses, evictions and invalidations are counted.
+ * The methods can be called from several threads at the same time.
+ *
+ * @author itai.lashover
+ */
+public class WGraph_AlgoCache implements weighted_graph_algorithms {
+
+    /**
+     * Each WGraph_AlgoCache contains few fields:
+     * algo : the WGraph_Algo that computes the results that are not in the cache.
+     * cache : the cached results by ordered pair, a LinkedHashMap in access order (the first entry is the least recently used).
+     * maxEntries, maxBytes : the bounds of the cache.
+     * bytes : the estimated memory of the cached results.
+     * graph, mc : the graph and its Mode Count that the cached results belong to.
+     * hits, misses, evictions, invalidations : the counters of the cache.
+     * ENTRY_BYTES : the estimated memory of an entry without its path (the map entry, the key and the PathResult).
+     */
+    private final WGraph_Algo algo = new WGraph_Algo();
+    private final LinkedHashMap<Long, PathResult> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxBytes;
+    private long bytes;
+    private weighted_graph graph;
+    private int mc;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    static final int ENTRY_BYTES = 120;
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+    /**
+     * Default constructor, a cache of up to 10,000 results and 16MB.
+     */
+    public WGraph_AlgoCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries - the maximal amount of cached results
+     * @param maxBytes   - the maximal estimated memory of the cached results
+     */
+    public WGraph_AlgoCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("The bounds of the cache must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Init the graph on which this set of algorithms operates on, the cache is discarded.
+     *
+     * @param g - a weighted graph
+     */
+    @Override
+    public void init(weighted_graph g) {
+        this.algo.init(g);
+        clear();
+    }
+
+    /**
+     * Return the underlying graph of which this class works.
+     *
+     * @return weighted graph
+     */
+    @Override
+    public weighted_graph getGraph() {
+        return this.algo.getGraph();
+    }
+
+    /**
+     * This method returns the WGraph_Algo behind the cache (for example to set its search mode).
+     *
+     * @return WGraph_Algo
+     */
+    public WGraph_Algo getAlgo() {
+        return this.algo;
+    }
+
+    /**
+     * Compute a deep copy of this weighted graph.
+     *
+     * @return weighted graph
+     */
+    @Override
+    public weighted_graph copy() {
+        return this.algo.copy();
+    }
+
+    /**
+     * Returns true if and only if (iff) there is a valid path from EVREY node to each
+     * other node (see WGraph_Algo.isConnected), this result is not cached.
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean isConnected() {
+        return this.algo.isConnected();
+    }
+
+    /**
+     * This method returns the length of the shortest path between src to dest, from the cache if it is there.
+     * Note: if no such path --> returns -1
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @return the length of the shortest path between src to dest, -1 if there is no path.
+     */
+    @Override
+    public double shortestPathDist(int src, int dest) {
+        return shortestPathResult(src, dest).getDist();
+    }
+
+    /**
+     * This method returns the shortest path between src to dest - as an ordered List of nodes,
+     * from the cache if it is there.
+     * Note: if no such path --> null.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @return List of nodes.
+     */
+    @Override
+    public List<node_info> shortestPath(int src, int dest) {
+        PathResult r = shortestPathResult(src, dest);
+        if (!r.hasPath()) {
+            return null;
+        }
+        weighted_graph g = getGraph();
+        List<node_info> list = new ArrayList<>(r.getPath().length);
+        for (int key : r.getPath()) {
+            list.add(g.getNode(key));
+        }
+        return list;
+    }
+
+    /**
+     * This method returns both the length and the path (as node keys) of the shortest path between src to dest,
+     * from the cache if it is there, otherwise it is computed by WGraph_Algo.shortestPathResult and cached.
+     * Note: the path of the returned PathResult may be shared with the cache, it must not be changed.
+     * Complexity: O(1) for a hit.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @return PathResult
+     */
+    public PathResult shortestPathResult(int src, int dest) {
+        long key = key(src, dest);
+        weighted_graph g = getGraph();
+        int version;
+        synchronized (this) {
+            validate(g);
+            PathResult r = this.cache.get(key);
+            if (r != null) {
+                this.hits++;
+                return r;
+            }
+            this.misses++;
+            version = this.mc;
+        }
+        PathResult r = this.algo.shortestPathResult(src, dest);
+        synchronized (this) {
+            // the graph may have changed while the result was computed
+            if (g == this.graph && g.getMC() == version && version == this.mc) {
+                put(key, r);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * This method saves the weighted (undirected) graph to the given file name (see WGraph_Algo.save).
+     *
+     * @param file - the file name (may include a relative path).
+     * @return true - iff the file was successfully saved, otherwise false.
+     */
+    @Override
+    public boolean save(String file) {
+        return this.algo.save(file);
+    }
+
+    /**
+     * This method loads a graph to this graph algorithm (see WGraph_Algo.load), the cache is discarded.
+     *
+     * @param file - file name
+     * @return true - iff the graph was successfully loaded, otherwise false.
+     */
+    @Override
+    public boolean load(String file) {
+        if (!this.algo.load(file)) {
+            return false;
+        }
+        clear();
+        return true;
+    }
+
+    /**
+     * This method discards all the cached results (the counters are not changed).
+     */
+    public synchronized void clear() {
+        this.cache.clear();
+        this.bytes = 0;
+        this.graph = getGraph();
+        this.mc = this.graph == null ? 0 : this.graph.getMC();
+    }
+
+    /**
+     * This method returns the amount of cached results.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * This method returns the estimated memory of the cached results, in bytes.
+     *
+     * @return bytes
+     */
+    public synchronized long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * This method returns the amount of queries that were answered from the cache.
+     *
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * This method returns the amount of queries that were not in the cache.
+     *
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * This method returns the amount of results that were evicted to keep the cache within its bounds.
+     *
+     * @return evictions
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * This method returns the amount of times the whole cache was discarded because the graph changed.
+     *
+     * @return invalidations
+     */
+    public synchronized long getInvalidations() {
+        return this.invalidations;
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public synchronized String toString() {
+        return "{Size:" + this.cache.size() + ",Bytes:" + this.bytes + ",Hits:" + this.hits + ",Misses:" + this.misses
+                + ",Evictions:" + this.evictions + ",Invalidations:" + this.invalidations + "}";
+    }
+
+    /**
+     * This private method discards the cache if the graph changed since the cached results were computed.
+     * Must be called while holding the lock of this cache.
+     */
+    private void validate(weighted_graph g) {
+        if (g != this.graph || (g != null && g.getMC() != this.mc)) {
+            if (!this.cache.isEmpty()) {
+                this.invalidations++;
+            }
+            this.cache.clear();
+            this.bytes = 0;
+            this.graph = g;
+            this.mc = g == null ? 0 : g.getMC();
+        }
+    }
+
+    /**
+     * This private method adds a result to the cache, and evicts the least recently used results
+     * while the cache is over one of its bounds.
+     * Must be called while holding the lock of this cache.
+     */
+    private void put(long key, PathResult r) {
+        PathResult old = this.cache.put(key, r);
+        if (old != null) {
+            this.bytes -= bytes(old);
+        }
+        this.bytes += bytes(r);
+        while (!this.cache.isEmpty() && (this.cache.size() > this.maxEntries || this.bytes > this.maxBytes)) {
+            Map.Entry<Long, PathResult> eldest = this.cache.entrySet().iterator().next();
+            this.bytes -= bytes(eldest.getValue());
+            this.cache.remove(eldest.getKey());
+            this.evictions++;
+        }
+    }
+
+    /**
+     * This private method returns the key of the ordered pair (src, dest) in the cache.
+     */
+    private static long key(int src, int dest) {
+        return ((long) src << 32) | (dest & 0xffffffffL);
+    }
+
+    /**
+     * This private method returns the estimated memory of a cached result.
+     */
+    private static long bytes(PathResult r) {
+        return ENTRY_BYTES + (r.hasPath() ? 16 + 4L * r.getPath().length : 0);
+    }
+}
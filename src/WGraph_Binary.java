@@ -0,0 +1,342 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class is the binary file format of a weighted graph (used by WGraph_Algo.save and WGraph_Algo.load).
+ * Unlike Java serialization, every node and every edge is written once, as primitives, and nothing is recursive.
+ * The file is written and read through a FileChannel with a 1MB buffer:
+ * 1. Header - MAGIC, VERSION, the amount of nodes, the amount of edges and the Mode Count of the graph (ints,
+ *    the files of version 1 have no Mode Count).
+ * 2. Nodes - for each node: key (int), degree (int), tag (double), info (int length in bytes, -1 for null, UTF-8 bytes).
+ * 3. Edges - for each edge once: key1 (int), key2 (int), weight (double).
+ * 4. Trailer - the CRC32 of all the bytes before it (long).
+ * The loader pre-sizes the node store by the amount of nodes and the adjacency table of each node by its degree,
+ * so nothing is rehashed while the graph is built, and it checks the checksum before the graph is returned.
+ *
+ * @author itai.lashover
+ */
+public class WGraph_Binary {
+
+    /**
+     * The first int of every file ("WGRB"), and the version of the format.
+     */
+    public static final int MAGIC = 0x57475242;
+    public static final int VERSION = 2;
+
+    /**
+     * The size of the buffer between the graph and the file channel.
+     */
+    static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The least amount of bytes of a node (without info) and of an edge in the file.
+     */
+    private static final int NODE_BYTES = 20;
+    private static final int EDGE_BYTES = 16;
+
+    /**
+     * This class has only static methods.
+     */
+    private WGraph_Binary() {
+    }
+
+    /**
+     * This method writes the graph to the given file in the binary format.
+     * Complexity: O(|V|+|E|).
+     *
+     * @param g    - a weighted graph
+     * @param file - the file name (may include a relative path).
+     * @throws IOException if the file could not be written
+     */
+    public static void write(weighted_graph g, String file) throws IOException {
+        indexed_graph ig = WGraph_Algo.indexed(g);
+        try (Writer out = new Writer(Paths.get(file))) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(ig.nodeSize());
+            out.putInt(ig.edgeSize());
+            out.putInt(ig.getMC());
+            for (int id = 0; id < ig.idBound(); id++) {
+                node_info n = ig.nodeAt(id);
+                if (n == null) {
+                    continue;
+                }
+                out.putInt(n.getKey());
+                out.putInt(ig.degree(id));
+                out.putDouble(n.getTag());
+                out.putString(n.getInfo());
+            }
+            indexed_graph.edge_cursor c = ig.edges();
+            int edges = 0;
+            for (int id = 0; id < ig.idBound(); id++) {
+                if (ig.nodeAt(id) == null) {
+                    continue;
+                }
+                c.reset(id);
+                while (c.next()) {
+                    if (c.target() > id) {
+                        out.putInt(ig.keyOf(id));
+                        out.putInt(ig.keyOf(c.target()));
+                        out.putDouble(c.weight());
+                        edges++;
+                    }
+                }
+            }
+            if (edges != ig.edgeSize()) {
+                throw new IOException("The graph changed while it was written");
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * This method reads a graph from a file that was written by write.
+     * Complexity: O(|V|+|E|).
+     *
+     * @param file - file name
+     * @return a new WGraph_DS
+     * @throws IOException if the file could not be read, is not in this format, or its checksum is wrong
+     */
+    public static WGraph_DS read(String file) throws IOException {
+        try (Reader in = new Reader(Paths.get(file))) {
+            if (in.getInt() != MAGIC) {
+                throw new IOException(file + " is not a binary weighted graph file");
+            }
+            int version = in.getInt();
+            if (version != VERSION && version != 1) {
+                throw new IOException("Unsupported version " + version + " of the binary weighted graph format");
+            }
+            int nodes = in.getInt();
+            int edges = in.getInt();
+            if (nodes < 0 || edges < 0) {
+                throw new IOException(file + " is corrupted");
+            }
+            int mc = version == 1 ? -1 : in.getInt();
+            // the counts are checked only by the checksum at the end, so they pre-size no more than the file can hold
+            WGraph_DS g = new WGraph_DS((int) Math.min(nodes, in.remaining() / NODE_BYTES));
+            for (int i = 0; i < nodes; i++) {
+                int key = in.getInt();
+                int degree = in.getInt();
+                double tag = in.getDouble();
+                String info = in.getString();
+                if (degree < 0) {
+                    throw new IOException(file + " is corrupted");
+                }
+                g.addNode(key, (int) Math.min(Math.min(degree, edges), in.remaining() / EDGE_BYTES));
+                node_info n = g.getNode(key);
+                n.setTag(tag);
+                n.setInfo(info);
+            }
+            for (int i = 0; i < edges; i++) {
+                int a = in.getInt();
+                int b = in.getInt();
+                double w = in.getDouble();
+                // a damaged edge must fail as a corrupted file, not in connect (the checksum is checked at the end)
+                if (!(w >= 0) || a == b || g.getNode(a) == null || g.getNode(b) == null) {
+                    throw new IOException(file + " is corrupted");
+                }
+                g.connect(a, b, w);
+            }
+            in.finish();
+            if (g.nodeSize() != nodes || g.edgeSize() != edges) {
+                throw new IOException(file + " is corrupted");
+            }
+            if (mc >= 0) {
+                g.restoreMC(mc);
+            }
+            return g;
+        }
+    }
+
+    /**
+     * This method returns true iff the file starts with MAGIC (it was written by write).
+     *
+     * @param file - file name
+     * @return true or false.
+     */
+    public static boolean isBinary(String file) {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(4);
+            while (b.hasRemaining() && ch.read(b) > 0) {
+            }
+            return !b.hasRemaining() && b.getInt(0) == MAGIC;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * This private class writes primitives to a file channel through a direct buffer, and computes their CRC32.
+     */
+    private static final class Writer implements AutoCloseable {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        Writer(Path path) throws IOException {
+            this.ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void putInt(int x) throws IOException {
+            room(4);
+            this.buf.putInt(x);
+        }
+
+        void putDouble(double x) throws IOException {
+            room(8);
+            this.buf.putDouble(x);
+        }
+
+        void putString(String s) throws IOException {
+            if (s == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int i = 0; i < bytes.length; ) {
+                room(1);
+                int n = Math.min(bytes.length - i, this.buf.remaining());
+                this.buf.put(bytes, i, n);
+                i += n;
+            }
+        }
+
+        /**
+         * Writes the checksum of everything before it, and flushes the buffer.
+         */
+        void finish() throws IOException {
+            flush();
+            this.buf.putLong(this.crc.getValue());
+            this.buf.flip();
+            while (this.buf.hasRemaining()) {
+                this.ch.write(this.buf);
+            }
+            this.buf.clear();
+        }
+
+        private void room(int n) throws IOException {
+            if (this.buf.remaining() < n) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            this.buf.flip();
+            this.crc.update(this.buf.duplicate());
+            while (this.buf.hasRemaining()) {
+                this.ch.write(this.buf);
+            }
+            this.buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.ch.close();
+        }
+    }
+
+    /**
+     * This private class reads primitives from a file channel through a direct buffer, and computes the CRC32
+     * of all the bytes before the trailer.
+     */
+    private static final class Reader implements AutoCloseable {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+        private final long body;
+        private long read;
+
+        Reader(Path path) throws IOException {
+            this.ch = FileChannel.open(path, StandardOpenOption.READ);
+            this.body = this.ch.size() - 8;
+            this.buf.limit(0);
+        }
+
+        int getInt() throws IOException {
+            need(4);
+            return this.buf.getInt();
+        }
+
+        double getDouble() throws IOException {
+            need(8);
+            return this.buf.getDouble();
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > remaining()) {
+                throw new IOException("Unexpected end of file");
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; ) {
+                need(1);
+                int n = Math.min(length - i, this.buf.remaining());
+                this.buf.get(bytes, i, n);
+                i += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the amount of bytes of the body that were not read yet.
+         */
+        long remaining() {
+            return this.body - (this.read - this.buf.remaining());
+        }
+
+        /**
+         * Checks that the body was read to its end and that its checksum is the one in the trailer.
+         */
+        void finish() throws IOException {
+            need(8);
+            if (this.read - this.buf.remaining() != this.body) {
+                throw new IOException("The file has extra bytes after the graph");
+            }
+            if (this.buf.getLong() != this.crc.getValue()) {
+                throw new IOException("The checksum of the file is wrong");
+            }
+        }
+
+        /**
+         * Makes sure that the buffer holds at least n more bytes, reading more of the file if needed.
+         */
+        private void need(int n) throws IOException {
+            if (this.buf.remaining() >= n) {
+                return;
+            }
+            this.buf.compact();
+            while (this.buf.position() < n) {
+                int start = this.buf.position();
+                int r = this.ch.read(this.buf);
+                if (r < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+                // the checksum covers the bytes before the trailer
+                long crcBytes = Math.min(r, Math.max(0, this.body - this.read));
+                if (crcBytes > 0) {
+                    ByteBuffer fresh = this.buf.duplicate();
+                    fresh.position(start).limit(start + (int) crcBytes);
+                    this.crc.update(fresh);
+                }
+                this.read += r;
+            }
+            this.buf.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.ch.close();
+        }
+    }
+}
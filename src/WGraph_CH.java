@@ -0,0 +1,649 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is an implementation of weighted_graph_algorithms interface based on Contraction Hierarchies (CH),
+ * for static graphs with many point to point queries.
+ * The graph is preprocessed once:
+ * 1. Node ordering - the nodes are contracted one by one, the next node is the one with the smallest priority
+ *    (edge difference + the amount of contracted neighbors + depth), the priorities are updated lazily.
+ * 2. Shortcuts - contracting a node v removes it from the remaining graph, and for every two neighbors u,w of v
+ *    a shortcut u-w (with the weight of u-v-w) is added, unless a witness search finds a path u~>w that does not pass
+ *    through v and is not longer.
+ * 3. Upward CSR - every edge (original or shortcut) is kept only at its endpoint with the lower rank,
+ *    so from each node the search can only go up in the hierarchy.
+ *    The graph is undirected, so the downward graph of the backward search is the same upward CSR.
+ * A query is a bidirectional Dijkstra that only goes up from src and from dest, and settles very few nodes.
+ * The shortcuts of the path are unpacked into the original edges by the middle node of each shortcut.
+ * The preprocessing is done on the first query and again after the graph (or its Mode Count) changes.
+ * The queries keep their state in a private SearchSpace of each thread, so several queries can run at the same time.
+ * isConnected, copy, save and load are done by a WGraph_Algo on the same graph.
+ *
+ * @author itai.lashover
+ */
+public class WGraph_CH implements weighted_graph_algorithms, java.io.Serializable {
+
+    /**
+     * Each WGraph_CH contains few fields:
+     * algo : a WGraph_Algo on the same graph, for the methods that do not need the hierarchy.
+     * ch : the hierarchy of the graph, null until the first query.
+     * FWD, BWD : the private search state of each thread (the upward search from src and the upward search from dest).
+     * WITNESS_LIMIT : the maximal amount of nodes settled by one witness search,
+     * a witness search that stops early only adds a shortcut that may not be needed.
+     */
+    private final WGraph_Algo algo = new WGraph_Algo();
+    private transient volatile Hierarchy ch;
+    private static final ThreadLocal<SearchSpace> FWD = ThreadLocal.withInitial(SearchSpace::new);
+    private static final ThreadLocal<SearchSpace> BWD = ThreadLocal.withInitial(SearchSpace::new);
+    static final int WITNESS_LIMIT = 500;
+
+    /**
+     * Default constructor
+     */
+    public WGraph_CH() {
+    }
+
+    /**
+     * Init the graph on which this set of algorithms operates on.
+     * Note: the graph is preprocessed by the first query.
+     *
+     * @param g - a weighted graph
+     */
+    @Override
+    public void init(weighted_graph g) {
+        this.algo.init(g);
+        this.ch = null;
+    }
+
+    /**
+     * Return the underlying graph of which this class works.
+     *
+     * @return weighted graph
+     */
+    @Override
+    public weighted_graph getGraph() {
+        return this.algo.getGraph();
+    }
+
+    /**
+     * Compute a deep copy of this weighted graph.
+     *
+     * @return weighted graph
+     */
+    @Override
+    public weighted_graph copy() {
+        return this.algo.copy();
+    }
+
+    /**
+     * Returns true if and only if (iff) there is a valid path from EVREY node to each
+     * other node (see WGraph_Algo.isConnected).
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean isConnected() {
+        return this.algo.isConnected();
+    }
+
+    /**
+     * This method returns the length of the shortest path between src to dest.
+     * Note: if no such path --> returns -1
+     * Complexity: a few upward searches in the hierarchy, usually far fewer nodes than a Dijkstra on the whole graph.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @return the length of the shortest path between src to dest, -1 if there is no path.
+     */
+    @Override
+    public double shortestPathDist(int src, int dest) {
+        Hierarchy h = hierarchy();
+        double d = h.query(h.id(src), h.id(dest), FWD.get(), BWD.get(), null);
+        if (d == Double.POSITIVE_INFINITY) {
+            return -1;
+        }
+        return d;
+    }
+
+    /**
+     * This method returns the shortest path between src to dest - as an ordered List of nodes:
+     * src --> n1 --> n2 --> ... --> dest.
+     * The shortcuts of the path in the hierarchy are unpacked, so every two following nodes are neighbors in the graph.
+     * Note: if no such path --> null.
+     *
+     * @param src  - start node
+     * @param dest - end (target) node
+     * @return List of nodes.
+     */
+    @Override
+    public List<node_info> shortestPath(int src, int dest) {
+        Hierarchy h = hierarchy();
+        SearchSpace fwd = FWD.get();
+        SearchSpace bwd = BWD.get();
+        int s = h.id(src);
+        int t = h.id(dest);
+        int[] meet = new int[1];
+        if (h.query(s, t, fwd, bwd, meet) == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        int[] up = h.path(s, t, meet[0], fwd, bwd);
+        weighted_graph g = getGraph();
+        List<node_info> list = new ArrayList<>();
+        list.add(g.getNode(h.g.keyOf(s)));
+        for (int i = 0; i + 1 < up.length; i++) {
+            h.unpack(up[i], up[i + 1], g, list);
+        }
+        return list;
+    }
+
+    /**
+     * This method saves the weighted (undirected) graph to the given file name (see WGraph_Algo.save).
+     *
+     * @param file - the file name (may include a relative path).
+     * @return true - iff the file was successfully saved, otherwise false.
+     */
+    @Override
+    public boolean save(String file) {
+        return this.algo.save(file);
+    }
+
+    /**
+     * This method loads a graph to this graph algorithm (see WGraph_Algo.load).
+     * The hierarchy is built again by the next query.
+     *
+     * @param file - file name
+     * @return true - iff the graph was successfully loaded, otherwise false.
+     */
+    @Override
+    public boolean load(String file) {
+        if (!this.algo.load(file)) {
+            return false;
+        }
+        this.ch = null;
+        return true;
+    }
+
+    /**
+     * This method returns the amount of shortcuts that the preprocessing added to the graph
+     * (the graph is preprocessed if it was not yet).
+     *
+     * @return the amount of shortcuts
+     */
+    public int shortcutSize() {
+        return hierarchy().shortcuts;
+    }
+
+    /**
+     * This private method returns the hierarchy of the graph, and builds it if the graph changed since it was built
+     * (another graph, another Mode Count or other sizes - adding a node does not change the Mode Count).
+     *
+     * @return the hierarchy
+     */
+    private Hierarchy hierarchy() {
+        weighted_graph g = getGraph();
+        Hierarchy h = this.ch;
+        if (h == null || !h.builtFrom(g)) {
+            synchronized (this) {
+                h = this.ch;
+                if (h == null || !h.builtFrom(g)) {
+                    if (g == null) {
+                        throw new RuntimeException("There is no graph to preprocess");
+                    }
+                    h = new Hierarchy(g);
+                    this.ch = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * This private class is the preprocessed (immutable) hierarchy of one graph.
+     */
+    private static final class Hierarchy {
+
+        /**
+         * Each Hierarchy contains few fields:
+         * from, mc, nodes, edges : the graph that was preprocessed and its Mode Count and sizes at that time.
+         * g : a WGraph_CSR snapshot of the graph, its dense indexes are the indexes of the hierarchy.
+         * rank : the position of each node in the contraction order.
+         * offsets, targets, weights, mids : the upward CSR, the edges of each node to nodes of a higher rank,
+         * mids[e] is the middle node of a shortcut and -1 for an original edge.
+         * shortcuts : the amount of shortcuts in the upward CSR.
+         */
+        final weighted_graph from;
+        final int mc;
+        final int nodes;
+        final int edges;
+        final WGraph_CSR g;
+        final int[] rank;
+        final int[] offsets;
+        final int[] targets;
+        final double[] weights;
+        final int[] mids;
+        final int shortcuts;
+
+        /**
+         * The remaining graph during the contraction: the neighbors of each node with the weight and the middle node
+         * of each edge (every pair of nodes has at most one edge, the shortest one).
+         * A contracted node is removed from the lists of its neighbors, and its own list is kept as it was at that time:
+         * exactly its edges to the nodes of a higher rank.
+         * These fields are used only by the constructor.
+         */
+        private int[][] nb;
+        private double[][] wt;
+        private int[][] md;
+        private int[] deg;
+        private int[] deleted;
+        private int[] depth;
+        private SearchSpace witness;
+        private int[] mark;
+        private int markStamp;
+
+        /**
+         * This constructor preprocesses the given graph.
+         * Complexity: depends on the graph, about O(|V| log|V|) witness searches for road-like graphs.
+         *
+         * @param from - a weighted graph
+         */
+        Hierarchy(weighted_graph from) {
+            this.from = from;
+            this.mc = from.getMC();
+            this.nodes = from.nodeSize();
+            this.edges = from.edgeSize();
+            this.g = from instanceof WGraph_CSR ? (WGraph_CSR) from : new WGraph_CSR(from);
+            int n = this.g.idBound();
+            this.nb = new int[n][];
+            this.wt = new double[n][];
+            this.md = new int[n][];
+            this.deg = new int[n];
+            this.deleted = new int[n];
+            this.depth = new int[n];
+            this.witness = new SearchSpace();
+            this.mark = new int[n];
+            indexed_graph.edge_cursor c = this.g.edges();
+            for (int v = 0; v < n; v++) {
+                int k = this.g.getV(this.g.keyOf(v)).size();
+                this.nb[v] = new int[Math.max(k, 2)];
+                this.wt[v] = new double[this.nb[v].length];
+                this.md[v] = new int[this.nb[v].length];
+                c.reset(v);
+                while (c.next()) {
+                    this.nb[v][this.deg[v]] = c.target();
+                    this.wt[v][this.deg[v]] = c.weight();
+                    this.md[v][this.deg[v]++] = -1;
+                }
+            }
+            this.rank = order(n);
+            // the upward CSR
+            this.offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                int up = 0;
+                for (int i = 0; i < this.deg[v]; i++) {
+                    if (this.rank[this.nb[v][i]] > this.rank[v]) {
+                        up++;
+                    }
+                }
+                this.offsets[v + 1] = this.offsets[v] + up;
+            }
+            int m = this.offsets[n];
+            this.targets = new int[m];
+            this.weights = new double[m];
+            this.mids = new int[m];
+            int count = 0;
+            for (int v = 0, e = 0; v < n; v++) {
+                for (int i = 0; i < this.deg[v]; i++) {
+                    if (this.rank[this.nb[v][i]] > this.rank[v]) {
+                        this.targets[e] = this.nb[v][i];
+                        this.weights[e] = this.wt[v][i];
+                        this.mids[e] = this.md[v][i];
+                        if (this.mids[e] >= 0) {
+                            count++;
+                        }
+                        e++;
+                    }
+                }
+            }
+            this.shortcuts = count;
+            this.nb = null;
+            this.wt = null;
+            this.md = null;
+            this.deg = null;
+            this.deleted = null;
+            this.depth = null;
+            this.witness = null;
+            this.mark = null;
+        }
+
+        /**
+         * This method contracts all the nodes and returns the rank of each node.
+         * The nodes are kept in an IndexedHeap by priority, and the priority of a node is computed again when it is popped:
+         * if it is now bigger than the next priority in the heap, the node is pushed back (lazy update).
+         * After a node is contracted, the priorities of its remaining neighbors are updated.
+         */
+        private int[] order(int n) {
+            int[] rank = new int[n];
+            IndexedHeap queue = new IndexedHeap(4);
+            queue.reset(n);
+            for (int v = 0; v < n; v++) {
+                queue.push(v, priority(v));
+            }
+            int next = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                double p = priority(v);
+                if (!queue.isEmpty() && p > queue.minKey()) {
+                    queue.push(v, p);
+                    continue;
+                }
+                contract(v, true);
+                rank[v] = next++;
+                for (int i = 0; i < this.deg[v]; i++) {
+                    unlink(this.nb[v][i], v);
+                }
+                for (int i = 0; i < this.deg[v]; i++) {
+                    int u = this.nb[v][i];
+                    this.deleted[u]++;
+                    this.depth[u] = Math.max(this.depth[u], this.depth[v] + 1);
+                    queue.update(u, priority(u));
+                }
+            }
+            return rank;
+        }
+
+        /**
+         * This private method returns the priority of a node: twice the edge difference (the amount of shortcuts its
+         * contraction adds minus the amount of its remaining edges), plus the amount of its neighbors that were
+         * already contracted and its depth in the hierarchy (both spread the contraction evenly over the graph,
+         * which keeps the hierarchy flat and the upward searches small).
+         */
+        private double priority(int v) {
+            return 2 * (contract(v, false) - this.deg[v]) + this.deleted[v] + this.depth[v];
+        }
+
+        /**
+         * This private method finds the shortcuts that contracting v needs, and adds them if add is true.
+         * For every pair u,w of remaining neighbors of v, a witness search from u (that skips v) looks for
+         * a path to w that is not longer than u-v-w.
+         *
+         * @return the amount of shortcuts.
+         */
+        private int contract(int v, boolean add) {
+            // the shortcuts never touch the list of v itself
+            int k = this.deg[v];
+            int[] ns = this.nb[v];
+            double[] ws = this.wt[v];
+            int count = 0;
+            int[] su = add ? new int[4] : null;
+            int[] sw = add ? new int[4] : null;
+            double[] sd = add ? new double[4] : null;
+            for (int i = 0; i + 1 < k; i++) {
+                double max = 0;
+                for (int j = i + 1; j < k; j++) {
+                    max = Math.max(max, ws[i] + ws[j]);
+                }
+                witness(ns[i], v, max, ns, i + 1, k, add ? WITNESS_LIMIT : WITNESS_LIMIT / 10);
+                for (int j = i + 1; j < k; j++) {
+                    double d = ws[i] + ws[j];
+                    if (this.witness.getDist(ns[j]) > d) {
+                        if (add) {
+                            if (count == su.length) {
+                                su = Arrays.copyOf(su, count * 2);
+                                sw = Arrays.copyOf(sw, count * 2);
+                                sd = Arrays.copyOf(sd, count * 2);
+                            }
+                            su[count] = ns[i];
+                            sw[count] = ns[j];
+                            sd[count] = d;
+                        }
+                        count++;
+                    }
+                }
+            }
+            if (add) {
+                for (int i = 0; i < count; i++) {
+                    link(su[i], sw[i], sd[i], v);
+                    link(sw[i], su[i], sd[i], v);
+                }
+            }
+            return count;
+        }
+
+        /**
+         * This private method is a Dijkstra search from src in the remaining graph, that never passes through skip.
+         * It stops when the targets ts[from..to-1] are all settled, at the distance max, or after limit settled nodes.
+         * The priority computation uses a smaller limit than the contraction itself, it only needs an estimate.
+         */
+        private void witness(int src, int skip, double max, int[] ts, int from, int to, int limit) {
+            SearchSpace space = this.witness;
+            space.reset(this.nb.length);
+            IndexedHeap heap = space.heap();
+            int mark = ++this.markStamp;
+            for (int j = from; j < to; j++) {
+                this.mark[ts[j]] = mark;
+            }
+            int left = to - from;
+            space.reach(src, 0, -1);
+            heap.push(src, 0);
+            int settled = 0;
+            while (!heap.isEmpty() && heap.minKey() <= max && settled++ < limit) {
+                double du = heap.minKey();
+                int u = heap.poll();
+                if (this.mark[u] == mark && --left == 0) {
+                    return;
+                }
+                for (int i = 0; i < this.deg[u]; i++) {
+                    int x = this.nb[u][i];
+                    if (x == skip) {
+                        continue;
+                    }
+                    double d = du + this.wt[u][i];
+                    if (d < space.getDist(x)) {
+                        space.reach(x, d, u);
+                        heap.push(x, d);
+                    }
+                }
+            }
+        }
+
+        /**
+         * This private method removes the edge a-b (at a), by moving the last edge of a into its place.
+         */
+        private void unlink(int a, int b) {
+            for (int i = 0; i < this.deg[a]; i++) {
+                if (this.nb[a][i] == b) {
+                    int last = --this.deg[a];
+                    this.nb[a][i] = this.nb[a][last];
+                    this.wt[a][i] = this.wt[a][last];
+                    this.md[a][i] = this.md[a][last];
+                    return;
+                }
+            }
+        }
+
+        /**
+         * This private method adds the edge a-b (at a), or shortens it if it is already there.
+         */
+        private void link(int a, int b, double w, int mid) {
+            for (int i = 0; i < this.deg[a]; i++) {
+                if (this.nb[a][i] == b) {
+                    if (w < this.wt[a][i]) {
+                        this.wt[a][i] = w;
+                        this.md[a][i] = mid;
+                    }
+                    return;
+                }
+            }
+            if (this.deg[a] == this.nb[a].length) {
+                int size = this.deg[a] * 2;
+                this.nb[a] = Arrays.copyOf(this.nb[a], size);
+                this.wt[a] = Arrays.copyOf(this.wt[a], size);
+                this.md[a] = Arrays.copyOf(this.md[a], size);
+            }
+            this.nb[a][this.deg[a]] = b;
+            this.wt[a][this.deg[a]] = w;
+            this.md[a][this.deg[a]++] = mid;
+        }
+
+        /**
+         * This method returns true iff this hierarchy was built from the given graph, and the graph did not change since.
+         */
+        boolean builtFrom(weighted_graph g) {
+            return this.from == g && this.mc == g.getMC() && this.nodes == g.nodeSize() && this.edges == g.edgeSize();
+        }
+
+        /**
+         * This method returns the index of the given key.
+         */
+        int id(int key) {
+            int id = this.g.idOf(key);
+            if (id < 0) {
+                throw new RuntimeException("This graph does not contain key " + key);
+            }
+            return id;
+        }
+
+        /**
+         * This method is the CH query: a bidirectional Dijkstra in which both sides only go up in the hierarchy.
+         * Every time a node is settled, if the other side already reached it, src ~> node ~> dest is a candidate (mu).
+         * A side stops once its smallest key is at least mu, the query ends when both sides stopped.
+         * Stall-on-demand: a settled node that a higher node reaches by a shorter path is not on any shortest upward path,
+         * so its edges are not relaxed.
+         *
+         * @param src  - the index of the source node
+         * @param dest - the index of the destination node
+         * @param fwd  - the private state of the search from src
+         * @param bwd  - the private state of the search from dest
+         * @param meet - if not null, meet[0] is filled with the top node of the shortest path
+         * @return the length of the shortest path and infinity if there is no path like this.
+         */
+        double query(int src, int dest, SearchSpace fwd, SearchSpace bwd, int[] meet) {
+            int n = this.rank.length;
+            fwd.reset(n);
+            bwd.reset(n);
+            IndexedHeap fh = fwd.heap();
+            IndexedHeap bh = bwd.heap();
+            fwd.reach(src, 0, -1);
+            bwd.reach(dest, 0, -1);
+            fh.push(src, 0);
+            bh.push(dest, 0);
+            double mu = Double.POSITIVE_INFINITY;
+            while (true) {
+                boolean f = !fh.isEmpty() && fh.minKey() < mu;
+                boolean b = !bh.isEmpty() && bh.minKey() < mu;
+                if (!f && !b) {
+                    break;
+                }
+                boolean forward = f && (!b || fh.minKey() <= bh.minKey());
+                SearchSpace self = forward ? fwd : bwd;
+                SearchSpace other = forward ? bwd : fwd;
+                IndexedHeap heap = forward ? fh : bh;
+                double du = heap.minKey();
+                int u = heap.poll();
+                self.settle(u);
+                if (other.isReached(u) && du + other.getDist(u) < mu) {
+                    mu = du + other.getDist(u);
+                    if (meet != null) {
+                        meet[0] = u;
+                    }
+                }
+                if (stalled(u, du, self)) {
+                    continue;
+                }
+                for (int e = this.offsets[u]; e < this.offsets[u + 1]; e++) {
+                    int v = this.targets[e];
+                    double d = du + this.weights[e];
+                    if (d < self.getDist(v)) {
+                        self.reach(v, d, u);
+                        heap.push(v, d);
+                    }
+                }
+            }
+            return mu;
+        }
+
+        /**
+         * This private method returns true iff u can be stalled: a node of a higher rank, already reached by this side,
+         * gives u a shorter distance than du. The graph is undirected, so the edges from the higher nodes down to u
+         * are the upward edges of u.
+         */
+        private boolean stalled(int u, double du, SearchSpace self) {
+            for (int e = this.offsets[u]; e < this.offsets[u + 1]; e++) {
+                if (self.getDist(this.targets[e]) + this.weights[e] < du) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * This method returns the indexes of the path in the hierarchy (with shortcuts) that the last query found:
+         * src ~> top by the predecessors of the forward search, then top ~> dest by the predecessors of the backward search.
+         */
+        int[] path(int src, int dest, int top, SearchSpace fwd, SearchSpace bwd) {
+            int a = 1;
+            for (int v = top; v != src; v = fwd.getPre(v)) {
+                a++;
+            }
+            int b = 0;
+            for (int v = top; v != dest; v = bwd.getPre(v)) {
+                b++;
+            }
+            int[] path = new int[a + b];
+            int i = a;
+            for (int v = top; i > 0; v = fwd.getPre(v)) {
+                path[--i] = v;
+            }
+            i = a;
+            for (int v = top; v != dest; ) {
+                v = bwd.getPre(v);
+                path[i++] = v;
+            }
+            return path;
+        }
+
+        /**
+         * This method adds the nodes of the edge a-b (without a) to the list, with its shortcuts unpacked:
+         * a shortcut a-b with the middle node m is the edges a-m and m-b.
+         * The method uses an explicit stack, so long chains of shortcuts do not overflow the call stack.
+         */
+        void unpack(int a, int b, weighted_graph graph, List<node_info> list) {
+            int[] stack = new int[16];
+            int top = 0;
+            stack[top++] = a;
+            stack[top++] = b;
+            while (top > 0) {
+                int y = stack[--top];
+                int x = stack[--top];
+                int m = mid(x, y);
+                if (m < 0) {
+                    list.add(graph.getNode(this.g.keyOf(y)));
+                    continue;
+                }
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                // x-m must be unpacked before m-y, so it is pushed last
+                stack[top++] = m;
+                stack[top++] = y;
+                stack[top++] = x;
+                stack[top++] = m;
+            }
+        }
+
+        /**
+         * This private method returns the middle node of the edge a-b in the upward CSR (-1 for an original edge).
+         */
+        private int mid(int a, int b) {
+            int low = this.rank[a] < this.rank[b] ? a : b;
+            int high = low == a ? b : a;
+            for (int e = this.offsets[low]; e < this.offsets[low + 1]; e++) {
+                if (this.targets[e] == high) {
+                    return this.mids[e];
+                }
+            }
+            throw new RuntimeException("There is no edge between " + this.g.keyOf(a) + " and " + this.g.keyOf(b));
+        }
+    }
+}
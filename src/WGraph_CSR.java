@@ -0,0 +1,575 @@
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class is a read-only implementation of weighted_graph interface.
+ * WGraph_CSR is an immutable snapshot (a "frozen" copy) of any weighted graph,
+ * stored in compressed sparse row (CSR) form:
+ * each node gets a dense index 0..n-1, and the neighbors of the node with index i are
+ * targets[offsets[i]] ... targets[offsets[i+1]-1] (sorted by index), with the matching weights in weights[].
+ * The whole graph is five flat arrays, so it is compact and it can be traversed without hashing or boxing.
+ * The dense index is also the index of indexed_graph, so WGraph_Algo runs its traversals directly over these arrays.
+ * Every method that changes the graph throws an UnsupportedOperationException.
+ *
+ * @author itai.lashover
+ */
+public class WGraph_CSR implements weighted_graph, indexed_graph, Serializable {
+
+    /**
+     * Each WGraph_CSR contains few fields:
+     * keys : the key of the node of each index.
+     * index : IntIntMap from the key of a node to its index.
+     * offsets : the first position of the neighbors of each index (offsets[n] = 2|E|).
+     * targets : the index of each neighbor, each undirected edge appears twice (once from each side).
+     * weights : the weight of each edge in targets.
+     * info, tag : the meta data of each node, copied from the original graph.
+     * numOfEdge : the amount of edges in this graph.
+     * mc : the Mode Count of the original graph at the moment it was frozen.
+     * maxWeight : the biggest weight of an edge, integerWeights : true iff every weight is an integer.
+     */
+    private final int[] keys;
+    private final IntIntMap index;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final String[] info;
+    private final double[] tag;
+    private final int numOfEdge;
+    private final int mc;
+    private final double maxWeight;
+    private final boolean integerWeights;
+
+    /**
+     * This constructor freezes the given graph into a new CSR snapshot.
+     * The rows are filled by going over the nodes in index order and appending each node to the rows of its neighbors,
+     * so every row ends up sorted by index without any sorting.
+     * An indexed_graph is read by its indexes and its edge cursor (without hashing), any other graph by getV and getEdge.
+     * Complexity: O(|V|+|E|), |V|=number of nodes, |E|=number of edges.
+     *
+     * @param g - a weighted graph
+     */
+    public WGraph_CSR(weighted_graph g) {
+        int n = g.nodeSize();
+        this.keys = new int[n];
+        this.info = new String[n];
+        this.tag = new double[n];
+        this.index = new IntIntMap(n);
+        this.offsets = new int[n + 1];
+        if (g instanceof indexed_graph) {
+            // the nodes in the order of their indexes, and the edges by the edge cursor (no hashing)
+            indexed_graph ig = (indexed_graph) g;
+            int[] dense = new int[ig.idBound()];
+            int id = 0;
+            for (int v = 0; v < ig.idBound(); v++) {
+                node_info nv = ig.nodeAt(v);
+                if (nv == null) {
+                    dense[v] = -1;
+                    continue;
+                }
+                dense[v] = id;
+                this.keys[id] = nv.getKey();
+                this.info[id] = nv.getInfo();
+                this.tag[id] = nv.getTag();
+                this.index.put(nv.getKey(), id);
+                this.offsets[id + 1] = this.offsets[id] + ig.degree(v);
+                id++;
+            }
+            this.targets = new int[this.offsets[n]];
+            this.weights = new double[this.offsets[n]];
+            int[] fill = Arrays.copyOf(this.offsets, n);
+            indexed_graph.edge_cursor c = ig.edges();
+            for (int v = 0; v < ig.idBound(); v++) {
+                if (dense[v] < 0) {
+                    continue;
+                }
+                c.reset(v);
+                while (c.next()) {
+                    int t = dense[c.target()];
+                    this.targets[fill[t]] = dense[v];
+                    this.weights[fill[t]++] = c.weight();
+                }
+            }
+        } else {
+            int id = 0;
+            for (node_info v : g.getV()) {
+                this.keys[id] = v.getKey();
+                this.info[id] = v.getInfo();
+                this.tag[id] = v.getTag();
+                this.index.put(v.getKey(), id);
+                id++;
+            }
+            for (int u = 0; u < n; u++) {
+                this.offsets[u + 1] = this.offsets[u] + g.getV(this.keys[u]).size();
+            }
+            this.targets = new int[this.offsets[n]];
+            this.weights = new double[this.offsets[n]];
+            int[] fill = Arrays.copyOf(this.offsets, n);
+            for (int u = 0; u < n; u++) {
+                for (node_info v : g.getV(this.keys[u])) {
+                    int t = this.index.get(v.getKey());
+                    this.targets[fill[t]] = u;
+                    this.weights[fill[t]++] = g.getEdge(this.keys[u], v.getKey());
+                }
+            }
+        }
+        this.numOfEdge = g.edgeSize();
+        this.mc = g.getMC();
+        double max = 0;
+        boolean integers = true;
+        for (double w : this.weights) {
+            max = Math.max(max, w);
+            integers &= w == Math.rint(w);
+        }
+        this.maxWeight = max;
+        this.integerWeights = integers;
+    }
+
+    /**
+     * This method returns the bound of the node indexes, which is the amount of nodes.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int idBound() {
+        return this.keys.length;
+    }
+
+    /**
+     * This method returns the amount of edges of the node with the given index.
+     *
+     * @param id - an index 0..n-1
+     * @return the degree
+     */
+    @Override
+    public int degree(int id) {
+        return this.offsets[id + 1] - this.offsets[id];
+    }
+
+    /**
+     * This method returns the biggest edge weight (0 for a graph without edges).
+     *
+     * @return the biggest weight
+     */
+    @Override
+    public double maxWeight() {
+        return this.maxWeight;
+    }
+
+    /**
+     * This method returns true iff the weight of every edge is an integer.
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean integerWeights() {
+        return this.integerWeights;
+    }
+
+    /**
+     * This method returns the index of the node with the given key.
+     * Complexity: O(1) on average.
+     *
+     * @param key - the node unique key.
+     * @return the index, -1 if none.
+     */
+    @Override
+    public int idOf(int key) {
+        return this.index.get(key);
+    }
+
+    /**
+     * This method returns the key of the node with the given index.
+     *
+     * @param id - an index 0..n-1
+     * @return the key of the node
+     */
+    @Override
+    public int keyOf(int id) {
+        return this.keys[id];
+    }
+
+    /**
+     * This method returns the node_info of the node with the given index.
+     *
+     * @param id - an index 0..n-1
+     * @return the node_info
+     */
+    @Override
+    public node_info nodeAt(int id) {
+        return new vertex(id);
+    }
+
+    /**
+     * This method returns a new cursor over the rows of the snapshot.
+     *
+     * @return edge_cursor
+     */
+    @Override
+    public edge_cursor edges() {
+        return new edge_cursor() {
+            private int e;
+            private int end;
+
+            @Override
+            public void reset(int id) {
+                this.e = offsets[id] - 1;
+                this.end = offsets[id + 1];
+            }
+
+            @Override
+            public boolean next() {
+                return ++this.e < this.end;
+            }
+
+            @Override
+            public int target() {
+                return targets[this.e];
+            }
+
+            @Override
+            public double weight() {
+                return weights[this.e];
+            }
+        };
+    }
+
+    /**
+     * This private method returns the position of the edge id1-->id2 in the targets array.
+     * The neighbors of each node are sorted, so the method uses binary search.
+     * Complexity: O(log(k)), k - being the degree of id1.
+     *
+     * @param id1 - an index
+     * @param id2 - an index
+     * @return the position of the edge, a negative number if none.
+     */
+    private int edgeAt(int id1, int id2) {
+        return Arrays.binarySearch(this.targets, this.offsets[id1], this.offsets[id1 + 1], id2);
+    }
+
+    /**
+     * This method return the node_info by the node unique key.
+     *
+     * @param key - the node unique key.
+     * @return the node_data, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int id = this.index.get(key);
+        return id < 0 ? null : new vertex(id);
+    }
+
+    /**
+     * This method returns true iff (if and only if) there is an edge between node1 and node2.
+     * Complexity: O(log(k)), k - being the degree of node1.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     * @return true or false.
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        int id1 = this.index.get(node1);
+        int id2 = this.index.get(node2);
+        return id1 >= 0 && id2 >= 0 && edgeAt(id1, id2) >= 0;
+    }
+
+    /**
+     * This method returns the weight of the edge (node1, node2).
+     * In case there is no such edge : return -1
+     * Complexity: O(log(k)), k - being the degree of node1.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     * @return double.
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        int id1 = this.index.get(node1);
+        int id2 = this.index.get(node2);
+        if (id1 < 0 || id2 < 0) {
+            throw new RuntimeException("One or more of your keys does not exist in the graph");
+        }
+        int e = edgeAt(id1, id2);
+        return e < 0 ? -1 : this.weights[e];
+    }
+
+    /**
+     * A snapshot can not be changed.
+     *
+     * @param key - the key of the new node
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("WGraph_CSR is a read-only snapshot");
+    }
+
+    /**
+     * A snapshot can not be changed.
+     *
+     * @param node1 - node's key
+     * @param node2 - node's key
+     * @param w     - edge length
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("WGraph_CSR is a read-only snapshot");
+    }
+
+    /**
+     * This method returns a Collection representing all the nodes in the graph.
+     * The nodes are created on the fly while iterating, in index order.
+     * Complexity: this method run in O(1) time.
+     *
+     * @return Collection of nodes
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new rowIterator(0, keys.length, false);
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    /**
+     * This method returns a collection of the neighbors of the node by his key.
+     * Complexity: this method run in O(1) time.
+     *
+     * @param node_id - key
+     * @return Collection of nodes
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        int id = this.index.get(node_id);
+        if (id < 0) {
+            throw new RuntimeException("This graph does not contain key " + node_id);
+        }
+        int from = this.offsets[id];
+        int to = this.offsets[id + 1];
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new rowIterator(from, to, true);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    /**
+     * A snapshot can not be changed.
+     *
+     * @param key - the key of the node to be deleted
+     * @return nothing, always throws.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("WGraph_CSR is a read-only snapshot");
+    }
+
+    /**
+     * A snapshot can not be changed.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("WGraph_CSR is a read-only snapshot");
+    }
+
+    /**
+     * This method returns the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int nodeSize() {
+        return this.keys.length;
+    }
+
+    /**
+     * This method returns the number of edges (unidirectional graph).
+     *
+     * @return the number of edges in the graph
+     */
+    @Override
+    public int edgeSize() {
+        return this.numOfEdge;
+    }
+
+    /**
+     * This method returns the Mode Count of the original graph at the moment the snapshot was taken.
+     *
+     * @return the mode count
+     */
+    @Override
+    public int getMC() {
+        return this.mc;
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        for (int id = 0; id < this.keys.length; id++) {
+            if (id > 0) {
+                str.append(" |");
+            }
+            str.append(new vertex(id));
+        }
+        return str.toString();
+    }
+
+    /**
+     * This method returns true if the arguments are equal to each other and false otherwise.
+     * Equality is determined by comparing the nodes (key, info and tag) and the weighted edges of the two snapshots.
+     *
+     * @param o - an object
+     * @return true if the arguments are equal to each other and false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WGraph_CSR)) return false;
+        WGraph_CSR that = (WGraph_CSR) o;
+        if (this.numOfEdge != that.numOfEdge || this.keys.length != that.keys.length) {
+            return false;
+        }
+        for (int id = 0; id < this.keys.length; id++) {
+            int id2 = that.index.get(this.keys[id]);
+            if (id2 < 0 || !Objects.equals(this.info[id], that.info[id2]) || this.tag[id] != that.tag[id2]
+                    || this.offsets[id + 1] - this.offsets[id] != that.offsets[id2 + 1] - that.offsets[id2]) {
+                return false;
+            }
+            for (int e = this.offsets[id]; e < this.offsets[id + 1]; e++) {
+                int t2 = that.index.get(this.keys[this.targets[e]]);
+                int e2 = t2 < 0 ? -1 : that.edgeAt(id2, t2);
+                if (e2 < 0 || that.weights[e2] != this.weights[e]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**Override hashcode because equals changed.
+     *
+     * @return hashcode
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.keys.length, this.numOfEdge);
+    }
+
+    /**
+     * This private inner class iterates over a range of indexes (all the nodes)
+     * or over a range of the targets array (the neighbors of one node).
+     */
+    private class rowIterator implements Iterator<node_info> {
+        private int next;
+        private final int to;
+        private final boolean row;
+
+        rowIterator(int from, int to, boolean row) {
+            this.next = from;
+            this.to = to;
+            this.row = row;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < this.to;
+        }
+
+        @Override
+        public node_info next() {
+            if (this.next >= this.to) {
+                throw new NoSuchElementException();
+            }
+            int i = this.next++;
+            return new vertex(this.row ? targets[i] : i);
+        }
+    }
+
+    /**
+     * This private inner class is an implementation of node_info interface.
+     * A vertex is a light view of one index of the snapshot, the info and the tag are kept in the snapshot arrays,
+     * so two views of the same index are equal and see the same meta data.
+     */
+    private class vertex implements node_info {
+        private final int id;
+
+        vertex(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int getKey() {
+            return keys[this.id];
+        }
+
+        @Override
+        public String getInfo() {
+            return info[this.id];
+        }
+
+        @Override
+        public void setInfo(String s) {
+            info[this.id] = s;
+        }
+
+        @Override
+        public double getTag() {
+            return tag[this.id];
+        }
+
+        @Override
+        public void setTag(double t) {
+            tag[this.id] = t;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder("[");
+            for (int e = offsets[this.id]; e < offsets[this.id + 1]; e++) {
+                str.append(keys[targets[e]]).append("(").append(weights[e]).append(")");
+                str.append(e == offsets[this.id + 1] - 1 ? "]" : ",");
+            }
+            return "{Key:" + keys[this.id] + ",Neighbors:" + str + "}";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof vertex)) return false;
+            vertex that = (vertex) o;
+            return this.id == that.id && this.owner() == that.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.id;
+        }
+
+        private WGraph_CSR owner() {
+            return WGraph_CSR.this;
+        }
+    }
+}
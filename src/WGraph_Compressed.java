@@ -0,0 +1,1073 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * This class is a compressed read-only implementation of weighted_graph interface.
+ * Like WGraph_CSR every node gets a dense index 0..n-1, but the rows are kept in one byte array of varints
+ * (7 bits in each byte, the high bit marks that more bytes follow):
+ * the row of index i starts at offsets[i] with the degree, then for every neighbor (sorted by index) -
+ * the gap from the previous neighbor (the first neighbor is stored relative to i, zigzag encoded), and its weight.
+ * The weights are encoded in one of the ways of Weights: by a dictionary of the distinct weights (exact),
+ * as multiples of a quantization step (lossy), or as raw doubles.
+ * The rows are decoded on the fly by the edge_cursor of indexed_graph, so WGraph_Algo runs its searches directly on
+ * the compressed form. getEdge and hasEdge decode the row of node1, so they take O(k) (k - the degree of node1).
+ * The graph can be written to a file and read back as it is (write / read), without being decompressed.
+ * Every method that changes the graph throws an UnsupportedOperationException (the info and tag of a node can be set).
+ *
+ * @author itai.lashover
+ */
+public class WGraph_Compressed implements weighted_graph, indexed_graph {
+
+    /**
+     * The first int of every file ("WGRC"), and the version of the format.
+     */
+    public static final int MAGIC = 0x57475243;
+    public static final int VERSION = 1;
+
+    /**
+     * The biggest amount of distinct weights of a dictionary.
+     */
+    public static final int DICTIONARY_LIMIT = 1 << 16;
+
+    /**
+     * The encodings of the weights:
+     * DICTIONARY : the index of the weight in a dictionary of the distinct weights (the most common weights first).
+     * QUANTIZED : the weight divided by a step and rounded to the nearest integer (the weights change by up to step/2).
+     * RAW : the 8 bytes of the double.
+     */
+    public enum Weights {
+        DICTIONARY, QUANTIZED, RAW
+    }
+
+    /**
+     * Each WGraph_Compressed contains few fields:
+     * keys : the key of the node of each index.
+     * index : IntIntMap from the key of a node to its index.
+     * offsets : the first byte of the row of each index in adj (offsets[n] = adj.length).
+     * adj : the rows, as described above.
+     * weights, dictionary, step : the encoding of the weights, the dictionary (DICTIONARY) and the step (QUANTIZED).
+     * info, tag : the meta data of each node (null until the first node has any).
+     * numOfEdge, mc : the amount of edges, and the Mode Count of the original graph.
+     * maxWeight : the biggest weight of an edge, integerWeights : true iff every weight is an integer.
+     */
+    private final int[] keys;
+    private final IntIntMap index;
+    private final int[] offsets;
+    private final byte[] adj;
+    private final Weights weights;
+    private final double[] dictionary;
+    private final double step;
+    private String[] info;
+    private double[] tag;
+    private final int numOfEdge;
+    private final int mc;
+    private final double maxWeight;
+    private final boolean integerWeights;
+
+    /**
+     * This constructor compresses the given graph without changing any weight:
+     * the weights are in a DICTIONARY if there are at most DICTIONARY_LIMIT distinct weights, otherwise RAW.
+     * Complexity: O(|V|+|E|log(k)), k - being the biggest degree.
+     *
+     * @param g - a weighted graph
+     */
+    public WGraph_Compressed(weighted_graph g) {
+        this(g, null, 0);
+    }
+
+    /**
+     * This constructor compresses the given graph with QUANTIZED weights:
+     * every weight is rounded to the nearest multiple of step.
+     *
+     * @param g    - a weighted graph
+     * @param step - the quantization step, positive
+     */
+    public WGraph_Compressed(weighted_graph g, double step) {
+        this(g, Weights.QUANTIZED, step);
+    }
+
+    /**
+     * This private constructor compresses the given graph with the given encoding of the weights
+     * (null to choose between DICTIONARY and RAW).
+     */
+    private WGraph_Compressed(weighted_graph g, Weights encoding, double step) {
+        if (encoding == Weights.QUANTIZED && !(step > 0)) {
+            throw new IllegalArgumentException("The quantization step must be positive");
+        }
+        indexed_graph ig = WGraph_Algo.indexed(g);
+        int n = ig.nodeSize();
+        this.keys = new int[n];
+        this.index = new IntIntMap(n);
+        int[] dense = new int[ig.idBound()];
+        int next = 0;
+        for (int id = 0; id < ig.idBound(); id++) {
+            node_info v = ig.nodeAt(id);
+            if (v == null) {
+                continue;
+            }
+            dense[id] = next;
+            this.keys[next] = v.getKey();
+            this.index.put(v.getKey(), next);
+            if (v.getInfo() != null) {
+                info()[next] = v.getInfo();
+            }
+            if (v.getTag() != 0) {
+                tag()[next] = v.getTag();
+            }
+            next++;
+        }
+        HashMap<Long, Integer> codes = encoding == null ? dictionary(ig) : null;
+        this.weights = encoding != null ? encoding : codes != null ? Weights.DICTIONARY : Weights.RAW;
+        this.step = step;
+        this.dictionary = codes == null ? null : new double[codes.size()];
+        if (codes != null) {
+            codes.forEach((bits, code) -> this.dictionary[code] = Double.longBitsToDouble(bits));
+        }
+        this.offsets = new int[n + 1];
+        Bytes out = new Bytes();
+        indexed_graph.edge_cursor c = ig.edges();
+        long[] row = new long[16];
+        double[] rowWeight = new double[16];
+        double max = 0;
+        boolean integers = true;
+        for (int id = 0; id < ig.idBound(); id++) {
+            if (ig.nodeAt(id) == null) {
+                continue;
+            }
+            int u = dense[id];
+            int degree = 0;
+            c.reset(id);
+            while (c.next()) {
+                if (degree == row.length) {
+                    row = Arrays.copyOf(row, degree * 2);
+                    rowWeight = Arrays.copyOf(rowWeight, degree * 2);
+                }
+                // the target in the high bits, the position of the weight in the low bits
+                row[degree] = ((long) dense[c.target()] << 32) | degree;
+                rowWeight[degree++] = c.weight();
+            }
+            Arrays.sort(row, 0, degree);
+            this.offsets[u] = out.size;
+            out.putVarint(degree);
+            int prev = u;
+            for (int e = 0; e < degree; e++) {
+                int t = (int) (row[e] >>> 32);
+                double w = rowWeight[(int) row[e]];
+                out.putVarint(e == 0 ? zigzag(t - u) & 0xFFFFFFFFL : t - prev);
+                prev = t;
+                switch (this.weights) {
+                    case DICTIONARY:
+                        out.putVarint(codes.get(Double.doubleToLongBits(w)));
+                        break;
+                    case QUANTIZED:
+                        long q = Math.round(w / step);
+                        out.putVarint(q);
+                        w = q * step;
+                        break;
+                    default:
+                        out.putLong(Double.doubleToLongBits(w));
+                }
+                max = Math.max(max, w);
+                integers &= w == Math.rint(w);
+            }
+        }
+        this.offsets[n] = out.size;
+        this.adj = out.toArray();
+        this.numOfEdge = ig.edgeSize();
+        this.mc = ig.getMC();
+        this.maxWeight = max;
+        this.integerWeights = integers;
+    }
+
+    /**
+     * This private constructor wraps the arrays that were read from a file.
+     */
+    private WGraph_Compressed(int[] keys, int[] offsets, byte[] adj, Weights weights, double[] dictionary, double step,
+                              String[] info, double[] tag, int numOfEdge, int mc, double maxWeight, boolean integerWeights) {
+        this.keys = keys;
+        this.index = new IntIntMap(keys.length);
+        for (int id = 0; id < keys.length; id++) {
+            this.index.put(keys[id], id);
+        }
+        this.offsets = offsets;
+        this.adj = adj;
+        this.weights = weights;
+        this.dictionary = dictionary;
+        this.step = step;
+        this.info = info;
+        this.tag = tag;
+        this.numOfEdge = numOfEdge;
+        this.mc = mc;
+        this.maxWeight = maxWeight;
+        this.integerWeights = integerWeights;
+    }
+
+    /**
+     * This private method returns the codes of a dictionary of the weights of the graph,
+     * the most common weight gets code 0. Returns null if there are more than DICTIONARY_LIMIT distinct weights.
+     */
+    private static HashMap<Long, Integer> dictionary(indexed_graph g) {
+        HashMap<Long, int[]> count = new HashMap<>();
+        indexed_graph.edge_cursor c = g.edges();
+        for (int id = 0; id < g.idBound(); id++) {
+            if (g.nodeAt(id) == null) {
+                continue;
+            }
+            c.reset(id);
+            while (c.next()) {
+                int[] k = count.computeIfAbsent(Double.doubleToLongBits(c.weight()), w -> new int[1]);
+                k[0]++;
+                if (count.size() > DICTIONARY_LIMIT) {
+                    return null;
+                }
+            }
+        }
+        Long[] order = count.keySet().toArray(new Long[0]);
+        Arrays.sort(order, (a, b) -> Integer.compare(count.get(b)[0], count.get(a)[0]));
+        HashMap<Long, Integer> codes = new HashMap<>();
+        for (int i = 0; i < order.length; i++) {
+            codes.put(order[i], i);
+        }
+        return codes;
+    }
+
+    /**
+     * This method returns the encoding of the weights.
+     *
+     * @return Weights
+     */
+    public Weights getWeights() {
+        return this.weights;
+    }
+
+    /**
+     * This method returns the size of the compressed rows in bytes.
+     *
+     * @return the amount of bytes
+     */
+    public long adjacencyBytes() {
+        return this.adj.length;
+    }
+
+    /**
+     * This method writes this graph to the given file as it is (the rows are not decoded).
+     * The file is a header (MAGIC, VERSION, sizes and the encoding of the weights), the keys (as varints of the gaps
+     * between them) and the length of each row, the rows, the meta data of the nodes and a CRC32 of all of them.
+     * Complexity: O(|V|+size of the rows).
+     *
+     * @param file - the file name (may include a relative path).
+     * @throws IOException if the file could not be written
+     */
+    public void write(String file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16), crc))) {
+            int n = this.keys.length;
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(this.numOfEdge);
+            out.writeInt(this.mc);
+            out.writeInt(this.weights.ordinal());
+            out.writeDouble(this.step);
+            out.writeDouble(this.maxWeight);
+            out.writeBoolean(this.integerWeights);
+            out.writeInt(this.dictionary == null ? 0 : this.dictionary.length);
+            if (this.dictionary != null) {
+                for (double w : this.dictionary) {
+                    out.writeDouble(w);
+                }
+            }
+            int prev = 0;
+            for (int id = 0; id < n; id++) {
+                writeVarint(out, zigzag(this.keys[id] - prev) & 0xFFFFFFFFL);
+                writeVarint(out, this.offsets[id + 1] - this.offsets[id]);
+                prev = this.keys[id];
+            }
+            out.write(this.adj);
+            out.writeBoolean(this.info != null);
+            if (this.info != null) {
+                for (String s : this.info) {
+                    // 0 for null, otherwise the length + 1
+                    byte[] bytes = s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+                    writeVarint(out, bytes == null ? 0 : bytes.length + 1L);
+                    if (bytes != null) {
+                        out.write(bytes);
+                    }
+                }
+            }
+            out.writeBoolean(this.tag != null);
+            if (this.tag != null) {
+                for (double t : this.tag) {
+                    out.writeDouble(t);
+                }
+            }
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+    }
+
+    /**
+     * This method reads a graph from a file that was written by write.
+     * Complexity: O(|V|+size of the rows).
+     *
+     * @param file - file name
+     * @return a new WGraph_Compressed
+     * @throws IOException if the file could not be read, is not in this format, or its checksum is wrong
+     */
+    public static WGraph_Compressed read(String file) throws IOException {
+        CRC32 crc = new CRC32();
+        // the counts are checked only by the checksum at the end, so each one is checked against the bytes left
+        // in the file (without the checksum) before it sizes an array
+        long length = new File(file).length() - 8;
+        Counter counter = new Counter(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(counter, crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a compressed weighted graph file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of the compressed weighted graph format");
+            }
+            int n = in.readInt();
+            int numOfEdge = in.readInt();
+            int mc = in.readInt();
+            int encoding = in.readInt();
+            double step = in.readDouble();
+            double maxWeight = in.readDouble();
+            boolean integerWeights = in.readBoolean();
+            int words = in.readInt();
+            // every node takes at least 2 bytes (the gap of its key and the length of its row)
+            if (n < 0 || numOfEdge < 0 || encoding < 0 || encoding >= Weights.values().length || words < 0
+                    || words > (length - counter.count) / 8 || n > (length - counter.count - 8L * words) / 2) {
+                throw new IOException(file + " is corrupted");
+            }
+            double[] dictionary = encoding == Weights.DICTIONARY.ordinal() ? new double[words] : null;
+            for (int i = 0; i < words; i++) {
+                double w = in.readDouble();
+                if (dictionary != null) {
+                    dictionary[i] = w;
+                }
+            }
+            int[] keys = new int[n];
+            int[] offsets = new int[n + 1];
+            int prev = 0;
+            for (int id = 0; id < n; id++) {
+                int gap = (int) readVarint(in);
+                keys[id] = prev + ((gap >>> 1) ^ -(gap & 1));
+                prev = keys[id];
+                long row = readVarint(in);
+                if (row < 0 || offsets[id] + row > Math.min(Integer.MAX_VALUE, length - counter.count)) {
+                    throw new IOException(file + " is corrupted");
+                }
+                offsets[id + 1] = (int) (offsets[id] + row);
+            }
+            byte[] adj = new byte[offsets[n]];
+            in.readFully(adj);
+            String[] info = null;
+            if (in.readBoolean()) {
+                info = new String[n];
+                for (int id = 0; id < n; id++) {
+                    long size = readVarint(in);
+                    if (size < 0 || size - 1 > length - counter.count) {
+                        throw new IOException(file + " is corrupted");
+                    }
+                    if (size > 0) {
+                        byte[] bytes = new byte[(int) size - 1];
+                        in.readFully(bytes);
+                        info[id] = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                }
+            }
+            double[] tag = null;
+            if (in.readBoolean()) {
+                if (n > (length - counter.count) / 8) {
+                    throw new IOException(file + " is corrupted");
+                }
+                tag = new double[n];
+                for (int id = 0; id < n; id++) {
+                    tag[id] = in.readDouble();
+                }
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("The checksum of the file is wrong");
+            }
+            if (in.read() >= 0) {
+                throw new IOException("The file has extra bytes after the graph");
+            }
+            return new WGraph_Compressed(keys, offsets, adj, Weights.values()[encoding], dictionary, step,
+                    info, tag, numOfEdge, mc, maxWeight, integerWeights);
+        } catch (EOFException ex) {
+            throw new IOException(file + " is truncated", ex);
+        }
+    }
+
+    /**
+     * This private method writes a varint (7 bits in each byte) to the stream.
+     */
+    private static void writeVarint(DataOutputStream out, long x) throws IOException {
+        while ((x & ~0x7FL) != 0) {
+            out.write((int) ((x & 0x7F) | 0x80));
+            x >>>= 7;
+        }
+        out.write((int) x);
+    }
+
+    /**
+     * This private method reads a varint that was written by writeVarint.
+     */
+    private static long readVarint(DataInputStream in) throws IOException {
+        long x = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            x |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return x;
+            }
+        }
+        throw new IOException("A varint is too long");
+    }
+
+    /**
+     * This method returns true iff the file starts with MAGIC (it was written by write).
+     *
+     * @param file - file name
+     * @return true or false.
+     */
+    public static boolean isCompressed(String file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * This method returns the bound of the node indexes, which is the amount of nodes.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int idBound() {
+        return this.keys.length;
+    }
+
+    /**
+     * This method returns the amount of edges of the node with the given index (the first varint of its row).
+     *
+     * @param id - an index 0..n-1
+     * @return the degree
+     */
+    @Override
+    public int degree(int id) {
+        int p = this.offsets[id];
+        int x = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = this.adj[p++];
+            x |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return x;
+            }
+        }
+    }
+
+    /**
+     * This method returns the biggest edge weight (0 for a graph without edges).
+     *
+     * @return the biggest weight
+     */
+    @Override
+    public double maxWeight() {
+        return this.maxWeight;
+    }
+
+    /**
+     * This method returns true iff the weight of every edge is an integer.
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean integerWeights() {
+        return this.integerWeights;
+    }
+
+    /**
+     * This method returns the index of the node with the given key.
+     * Complexity: O(1) on average.
+     *
+     * @param key - the node unique key.
+     * @return the index, -1 if none.
+     */
+    @Override
+    public int idOf(int key) {
+        return this.index.get(key);
+    }
+
+    /**
+     * This method returns the key of the node with the given index.
+     *
+     * @param id - an index 0..n-1
+     * @return the key of the node
+     */
+    @Override
+    public int keyOf(int id) {
+        return this.keys[id];
+    }
+
+    /**
+     * This method returns the node_info of the node with the given index.
+     *
+     * @param id - an index 0..n-1
+     * @return the node_info
+     */
+    @Override
+    public node_info nodeAt(int id) {
+        return new vertex(id);
+    }
+
+    /**
+     * This method returns a new cursor that decodes the rows.
+     *
+     * @return edge_cursor
+     */
+    @Override
+    public edge_cursor edges() {
+        return new cursor();
+    }
+
+    /**
+     * This private method returns the weight of the edge id1-->id2 by decoding the row of id1.
+     * Complexity: O(k), k - being the degree of id1.
+     *
+     * @return the weight, -1 if there is no such edge.
+     */
+    private double edge(int id1, int id2) {
+        cursor c = new cursor();
+        c.reset(id1);
+        while (c.next()) {
+            if (c.target >= id2) {
+                return c.target == id2 ? c.weight() : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method return the node_info by the node unique key.
+     *
+     * @param key - the node unique key.
+     * @return the node_data, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int id = this.index.get(key);
+        return id < 0 ? null : new vertex(id);
+    }
+
+    /**
+     * This method returns true iff (if and only if) there is an edge between node1 and node2.
+     * Complexity: O(k), k - being the degree of node1.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     * @return true or false.
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        int id1 = this.index.get(node1);
+        int id2 = this.index.get(node2);
+        return id1 >= 0 && id2 >= 0 && edge(id1, id2) >= 0;
+    }
+
+    /**
+     * This method returns the weight of the edge (node1, node2).
+     * In case there is no such edge : return -1
+     * Complexity: O(k), k - being the degree of node1.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     * @return double.
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        int id1 = this.index.get(node1);
+        int id2 = this.index.get(node2);
+        if (id1 < 0 || id2 < 0) {
+            throw new RuntimeException("One or more of your keys does not exist in the graph");
+        }
+        return edge(id1, id2);
+    }
+
+    /**
+     * A compressed graph can not be changed.
+     *
+     * @param key - the key of the new node
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("WGraph_Compressed is read-only");
+    }
+
+    /**
+     * A compressed graph can not be changed.
+     *
+     * @param node1 - node's key
+     * @param node2 - node's key
+     * @param w     - edge length
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("WGraph_Compressed is read-only");
+    }
+
+    /**
+     * This method returns a Collection representing all the nodes in the graph, in index order.
+     * Complexity: this method run in O(1) time.
+     *
+     * @return Collection of nodes
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new Iterator<node_info>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next < keys.length;
+                    }
+
+                    @Override
+                    public node_info next() {
+                        if (this.next >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        return new vertex(this.next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    /**
+     * This method returns a collection of the neighbors of the node by his key, the row is decoded while iterating.
+     * Complexity: this method run in O(1) time.
+     *
+     * @param node_id - key
+     * @return Collection of nodes
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        int id = this.index.get(node_id);
+        if (id < 0) {
+            throw new RuntimeException("This graph does not contain key " + node_id);
+        }
+        int degree = degree(id);
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                cursor c = new cursor();
+                c.reset(id);
+                return new Iterator<node_info>() {
+                    private int left = degree;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.left > 0;
+                    }
+
+                    @Override
+                    public node_info next() {
+                        if (this.left-- <= 0 || !c.next()) {
+                            throw new NoSuchElementException();
+                        }
+                        return new vertex(c.target);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return degree;
+            }
+        };
+    }
+
+    /**
+     * A compressed graph can not be changed.
+     *
+     * @param key - the key of the node to be deleted
+     * @return nothing, always throws.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("WGraph_Compressed is read-only");
+    }
+
+    /**
+     * A compressed graph can not be changed.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("WGraph_Compressed is read-only");
+    }
+
+    /**
+     * This method returns the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int nodeSize() {
+        return this.keys.length;
+    }
+
+    /**
+     * This method returns the number of edges (unidirectional graph).
+     *
+     * @return the number of edges in the graph
+     */
+    @Override
+    public int edgeSize() {
+        return this.numOfEdge;
+    }
+
+    /**
+     * This method returns the Mode Count of the original graph at the moment it was compressed.
+     *
+     * @return the mode count
+     */
+    @Override
+    public int getMC() {
+        return this.mc;
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        for (int id = 0; id < this.keys.length; id++) {
+            if (id > 0) {
+                str.append(" |");
+            }
+            str.append(new vertex(id));
+        }
+        return str.toString();
+    }
+
+    /**
+     * This method returns true if the arguments are equal to each other and false otherwise.
+     * Equality is determined by comparing the nodes (key, info and tag) and the weighted edges of the two graphs.
+     *
+     * @param o - an object
+     * @return true if the arguments are equal to each other and false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WGraph_Compressed)) return false;
+        WGraph_Compressed that = (WGraph_Compressed) o;
+        if (this.numOfEdge != that.numOfEdge || this.keys.length != that.keys.length) {
+            return false;
+        }
+        cursor c = new cursor();
+        for (int id = 0; id < this.keys.length; id++) {
+            int id2 = that.index.get(this.keys[id]);
+            if (id2 < 0 || !Objects.equals(getInfo(id), that.getInfo(id2)) || getTag(id) != that.getTag(id2)
+                    || degree(id) != that.degree(id2)) {
+                return false;
+            }
+            c.reset(id);
+            while (c.next()) {
+                int t2 = that.index.get(this.keys[c.target]);
+                if (t2 < 0 || that.edge(id2, t2) != c.weight()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**Override hashcode because equals changed.
+     *
+     * @return hashcode
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.keys.length, this.numOfEdge);
+    }
+
+    private String getInfo(int id) {
+        return this.info == null ? null : this.info[id];
+    }
+
+    private double getTag(int id) {
+        return this.tag == null ? 0 : this.tag[id];
+    }
+
+    private String[] info() {
+        if (this.info == null) {
+            this.info = new String[this.keys.length];
+        }
+        return this.info;
+    }
+
+    private double[] tag() {
+        if (this.tag == null) {
+            this.tag = new double[this.keys.length];
+        }
+        return this.tag;
+    }
+
+    /**
+     * This private method returns the zigzag code of x (0, -1, 1, -2, ... become 0, 1, 2, 3, ...).
+     */
+    private static int zigzag(int x) {
+        return (x << 1) ^ (x >> 31);
+    }
+
+    /**
+     * This private inner class is the edge_cursor of the compressed rows, it decodes one edge on every next().
+     */
+    private class cursor implements edge_cursor {
+        private int p;
+        private int left;
+        private int id;
+        private boolean first;
+        private int target;
+        private double weight;
+
+        @Override
+        public void reset(int id) {
+            this.p = offsets[id];
+            this.left = (int) readVarint();
+            this.id = id;
+            this.first = true;
+        }
+
+        @Override
+        public boolean next() {
+            if (this.left == 0) {
+                return false;
+            }
+            this.left--;
+            int gap = (int) readVarint();
+            if (this.first) {
+                // the first neighbor is relative to the node itself
+                this.target = this.id + ((gap >>> 1) ^ -(gap & 1));
+                this.first = false;
+            }
+            else {
+                this.target += gap;
+            }
+            switch (weights) {
+                case DICTIONARY:
+                    this.weight = dictionary[(int) readVarint()];
+                    break;
+                case QUANTIZED:
+                    this.weight = readVarint() * step;
+                    break;
+                default:
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) {
+                        bits = (bits << 8) | (adj[this.p++] & 0xFF);
+                    }
+                    this.weight = Double.longBitsToDouble(bits);
+            }
+            return true;
+        }
+
+        @Override
+        public int target() {
+            return this.target;
+        }
+
+        @Override
+        public double weight() {
+            return this.weight;
+        }
+
+        private long readVarint() {
+            long x = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = adj[this.p++];
+                x |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return x;
+                }
+            }
+        }
+    }
+
+    /**
+     * This private inner class is an implementation of node_info interface.
+     * A vertex is a light view of one index of the compressed graph, the info and the tag are kept in the graph arrays.
+     */
+    private class vertex implements node_info {
+        private final int id;
+
+        vertex(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int getKey() {
+            return keys[this.id];
+        }
+
+        @Override
+        public String getInfo() {
+            return WGraph_Compressed.this.getInfo(this.id);
+        }
+
+        @Override
+        public void setInfo(String s) {
+            info()[this.id] = s;
+        }
+
+        @Override
+        public double getTag() {
+            return WGraph_Compressed.this.getTag(this.id);
+        }
+
+        @Override
+        public void setTag(double t) {
+            tag()[this.id] = t;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder("[");
+            cursor c = new cursor();
+            c.reset(this.id);
+            int left = degree(this.id);
+            while (c.next()) {
+                str.append(keys[c.target]).append("(").append(c.weight).append(")");
+                str.append(--left == 0 ? "]" : ",");
+            }
+            return "{Key:" + keys[this.id] + ",Neighbors:" + str + "}";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof vertex)) return false;
+            vertex that = (vertex) o;
+            return this.id == that.id && this.owner() == that.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.id;
+        }
+
+        private WGraph_Compressed owner() {
+            return WGraph_Compressed.this;
+        }
+    }
+
+    /**
+     * This private class counts the bytes that were read from the stream under it.
+     */
+    private static final class Counter extends FilterInputStream {
+        private long count;
+
+        Counter(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                this.count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                this.count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            this.count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * This private class is a growable array of bytes, written as varints or raw longs.
+     */
+    private static final class Bytes {
+        private byte[] data = new byte[1 << 12];
+        private int size;
+
+        void putVarint(long x) {
+            while ((x & ~0x7FL) != 0) {
+                put((byte) ((x & 0x7F) | 0x80));
+                x >>>= 7;
+            }
+            put((byte) x);
+        }
+
+        void putLong(long x) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                put((byte) (x >>> shift));
+            }
+        }
+
+        private void put(byte b) {
+            if (this.size == this.data.length) {
+                if (this.data.length == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("The compressed rows are bigger than 2GB");
+                }
+                this.data = Arrays.copyOf(this.data, (int) Math.min(Integer.MAX_VALUE - 8, this.data.length * 2L));
+            }
+            this.data[this.size++] = b;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(this.data, this.size);
+        }
+    }
+}
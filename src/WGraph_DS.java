@@ -1,50 +1,100 @@
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
  * This class is an implementation of weighted_graph interface.
  * WGraph_DS class implement an unidirectional weighted graph.
  * It support a large number of nodes (over 10^6, with average degree of 10).
- * This implementation based on HashMap data structure.
+ * The nodes are stored in an IntNodeMap (a primitive int --> node open addressing table),
+ * so looking up a node by its key never boxes the key or allocates.
+ * Every node also gets a dense index (see indexed_graph), the index of a removed node is reused by the next added node,
+ * so the algorithms can keep their private state in arrays indexed by the node index.
+ * The connectivity of the graph is kept in a DynamicConnectivity (a spanning forest of Euler tour trees),
+ * created by the first connectivity query and then updated by every addNode, connect, removeEdge and removeNode.
+ * Java serialization writes the graph as a SerialForm - flat arrays of the nodes and of the edges (see writeReplace),
+ * so it does not follow the neighbors of the nodes recursively.
  *
  * @author itai.lashover
  */
-public class WGraph_DS implements weighted_graph, Serializable {
+public class WGraph_DS implements weighted_graph, indexed_graph, Serializable {
 
     /**
      * Each WGraph_DS contains few fields:
-     * wg : HashMap data structure that represent a graph, used to store all the node_data in the graph.
+     * wg : IntNodeMap data structure that represent a graph, used to store all the node_data in the graph.
      * numOfEdge : A variable that stored the amount of edges in this graph.
      * numOfNode : A variable that stored the amount of nodes in this graph.
      * mc : Mode Count a variable that stored the amount of changes(add node, remove node, add edge, remove edge)made in this graph.
+     * byId : the node of each index (null if the index is free).
+     * idBound : the bound of the indexes that were ever used.
+     * freeIds, freeCount : a stack of the indexes of removed nodes, to be reused.
+     * dc : the connected components of the graph, null until the first connectivity query.
+     * fractionalEdges : the amount of edges whose weight is not an integer.
+     * maxWeight : the biggest weight that was ever given to an edge (an upper bound of the weights).
      */
-    private HashMap<Integer, node_info> wg;
+    private IntNodeMap wg;
     private int numOfEdge;
     private int numOfNode;
     private int mc;
+    private node[] byId;
+    private int idBound;
+    private int[] freeIds;
+    private int freeCount;
+    private transient DynamicConnectivity dc;
+    private int fractionalEdges;
+    private double maxWeight;
+
+    /**
+     * The initial capacity of the adjacency table of each node.
+     */
+    private static final int MIN_NI_CAPACITY = 4;
+
+    /**
+     * The biggest capacity of an adjacency table that reserve allocates.
+     */
+    private static final int MAX_NI_CAPACITY = 1 << 30;
 
     /**
      * Default constructor
      */
     public WGraph_DS() {
-        this.wg = new HashMap<>();
+        this.wg = new IntNodeMap();
+        this.byId = new node[16];
+        this.freeIds = new int[0];
         this.numOfEdge = 0;
         this.numOfNode = 0;
     }
 
+    /**
+     * Constructor that pre-sizes the node store, so that the given amount of nodes can be added without resizing.
+     *
+     * @param expectedNodes - the expected amount of nodes
+     */
+    public WGraph_DS(int expectedNodes) {
+        this.wg = new IntNodeMap(expectedNodes);
+        this.byId = new node[Math.max(16, expectedNodes)];
+        this.freeIds = new int[0];
+    }
+
     /**
      * This method is a deep copy constructor.
      * It's build a new WGraph_DS with the same numOfEdge,numOfNode and mc.
-     * Note: This constructor does not build a new HashMap.
-     * The constructor calls another methods "edgeDeepCopy" and "nodeDeepCopy" that copy this HashMap.
+     * Note: This constructor does not build a new IntNodeMap.
+     * The constructor calls another methods "edgeDeepCopy" and "nodeDeepCopy" that copy this IntNodeMap.
      *
      * @param gra other graph that you want to duplicate.
      */
     public WGraph_DS(weighted_graph gra) {
-        this.wg = nodeDeepCopy(gra);
+        this.wg = new IntNodeMap(gra.nodeSize());
+        this.byId = new node[Math.max(16, gra.nodeSize())];
+        this.freeIds = new int[0];
+        nodeDeepCopy(gra);
         edgeDeepCopy(gra);
         this.numOfEdge = gra.edgeSize();
         this.numOfNode = gra.nodeSize();
@@ -52,43 +102,68 @@ public class WGraph_DS implements weighted_graph, Serializable {
     }
 
     /**
-     * This private method gets a graph and return a duplicate of his HashMap.
-     * At first the method build a new and empty HashMap.
-     * Then the method add a deep copy nodes to the new HashMap in the right keys.
-     * Note: This method build a new and empty HashMap of nodes.
-     * That means the method will not copy the edges, just the vertices.
+     * This private method gets a graph and adds to this (empty, pre-sized) graph a deep copy of each of his nodes.
+     * Note: That means the method will not copy the edges, just the vertices.
      * Complexity: O(n) , |V|=n.
      *
-     * @param other other graph that you want to duplicate his HashMap.
-     * @return HashMap   new and identical HashMap.
+     * @param other other graph that you want to duplicate his nodes.
      */
-    private HashMap<Integer, node_info> nodeDeepCopy(weighted_graph other) {
-        HashMap<Integer, node_info> h = new HashMap<>();
+    private void nodeDeepCopy(weighted_graph other) {
         for (node_info n : other.getV()) {
-            h.put(n.getKey(), new node(n));
+            register(new node(n));
+        }
+    }
+
+    /**
+     * This private method adds the given node to the node store and gives it an index,
+     * the index of a removed node if there is one, otherwise a new one.
+     * Complexity: O(1) amortized.
+     *
+     * @param n - a new node
+     */
+    private void register(node n) {
+        int id = this.freeCount > 0 ? this.freeIds[--this.freeCount] : this.idBound++;
+        if (id == this.byId.length) {
+            this.byId = Arrays.copyOf(this.byId, id * 2);
         }
-        return h;
+        n.id = id;
+        this.byId[id] = n;
+        this.wg.put(n.key, n);
     }
 
     /**
-     * This private method gets a graph and adds to this HashMap the same weighted edges.
+     * This private method removes the given node from the node store and frees its index.
+     * Complexity: O(1) amortized.
+     *
+     * @param n - a node of this graph
+     */
+    private void release(node n) {
+        this.wg.remove(n.key);
+        this.byId[n.id] = null;
+        if (this.freeCount == this.freeIds.length) {
+            this.freeIds = Arrays.copyOf(this.freeIds, Math.max(4, this.freeCount * 2));
+        }
+        this.freeIds[this.freeCount++] = n.id;
+    }
+
+    /**
+     * This private method gets a graph and adds to this graph the same weighted edges.
      * Note: The method will used only after we have used the previous "nodeDeepCopy" method.
-     * Thus in the beginning of the method we already have a HashMap with nodes.
+     * Thus in the beginning of the method we already have an IntNodeMap with nodes.
      * All that is left is to connect the right nodes.
      * The method check which nodes connected in the other graph and connect them in this graph.
+     * Note: The method only uses the weighted_graph interface, so the other graph may be any implementation.
      * Complexity: O(n^2) , |V|=n.
      *
-     * @param other other graph that you want to duplicate his HashMap.
+     * @param other other graph that you want to duplicate his edges.
      */
     private void edgeDeepCopy(weighted_graph other) {
         Collection<node_info> valArr = other.getV();
         for (node_info n : valArr) {
-            node temp = (node) n;
-            Collection<node_info> niArr = temp.getNi();
+            Collection<node_info> niArr = other.getV(n.getKey());
             for (node_info n2 : niArr) {
-                node temp2 = (node) n2;
-                if(!this.hasEdge(temp.getKey(),temp2.getKey())) {
-                    this.connect(temp.getKey(), temp2.getKey(), other.getEdge(temp.getKey(), temp2.getKey()));
+                if(!this.hasEdge(n.getKey(),n2.getKey())) {
+                    this.connect(n.getKey(), n2.getKey(), other.getEdge(n.getKey(), n2.getKey()));
                 }
             }
         }
@@ -103,9 +178,6 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public node_info getNode(int key) {
-        if (this.wg.isEmpty() || !this.wg.containsKey(key)) {
-            return null;
-        }
         return this.wg.get(key);
     }
 
@@ -134,14 +206,11 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public double getEdge(int node1, int node2) {
-        if(!this.wg.containsKey(node1) || !this.wg.containsKey(node2)){
+        node n1 = (node) this.wg.get(node1);
+        if(n1 == null || !this.wg.containsKey(node2)){
             throw new RuntimeException("One or more of your keys does not exist in the graph");
         }
-        node n1 = (node) this.wg.get(node1);
-        if (n1.hasNi(node2)) {
-            return n1.niDis.get(node2);
-        } else
-            return -1;
+        return n1.getNiDis(node2);
     }
 
     /**
@@ -155,8 +224,31 @@ public class WGraph_DS implements weighted_graph, Serializable {
     public void addNode(int key) {
         if (!this.wg.containsKey(key)) {
             node n = new node(key);
-            this.wg.put(key, n);
+            register(n);
+            this.numOfNode++;
+            if (this.dc != null) {
+                this.dc.addNode(n.id);
+            }
+        }
+    }
+
+    /**
+     * This method adds a new node whose adjacency table is pre-sized for the given amount of neighbors
+     * (used by the loaders, that know the degree of every node in advance).
+     * Note: if there is already a node with such a key -> no action be performed.
+     *
+     * @param key    - the key of the new node
+     * @param degree - the expected amount of neighbors
+     */
+    void addNode(int key, int degree) {
+        if (!this.wg.containsKey(key)) {
+            node n = new node(key);
+            n.reserve(degree);
+            register(n);
             this.numOfNode++;
+            if (this.dc != null) {
+                this.dc.addNode(n.id);
+            }
         }
     }
 
@@ -175,16 +267,26 @@ public class WGraph_DS implements weighted_graph, Serializable {
         }
         node n1 = (node) this.wg.get(node1);
         node n2 = (node) this.wg.get(node2);
-        if(hasEdge(node1,node2) && getEdge(node1,node2) != w){
+        if (n1 == null || n2 == null || node1 == node2) {
+            return;
+        }
+        double old = n1.getNiDis(node2);
+        if (old == -1) {
             n1.addNi(n2, w);
             n2.addNi(n1, w);
             this.mc++;
+            this.numOfEdge++;
+            weightAdded(w);
+            if (this.dc != null) {
+                this.dc.addEdge(n1.id, n2.id);
+            }
         }
-        else if (!n1.hasNi(node2) && node1 != node2 && n1 != null & n2 != null) {
+        else if (old != w) {
             n1.addNi(n2, w);
             n2.addNi(n1, w);
             this.mc++;
-            this.numOfEdge++;
+            weightRemoved(old);
+            weightAdded(w);
         }
     }
 
@@ -225,18 +327,27 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public node_info removeNode(int key) {
-        if (wg.containsValue(wg.get(key))) {
-            node temp = (node) wg.get(key);
+        node temp = (node) wg.get(key);
+        if (temp != null) {
             Collection<node_info> valArr = temp.getNi();
+            int[] ids = this.dc == null ? null : new int[valArr.size()];
+            int i = 0;
             for (node_info n : valArr) {
                 node n1 = (node) n;
+                weightRemoved(n1.getNiDis(key));
                 n1.removeNode(temp);
                 this.numOfEdge--;
                 this.mc++;
+                if (ids != null) {
+                    ids[i++] = n1.id;
+                }
             }
-            wg.remove(key);
+            release(temp);
             this.numOfNode--;
             mc++;
+            if (this.dc != null) {
+                this.dc.removeNode(temp.id, ids);
+            }
             return temp;
         }
         return null;
@@ -255,11 +366,66 @@ public class WGraph_DS implements weighted_graph, Serializable {
         node n1 = (node) this.wg.get(node1);
         node n2 = (node) this.wg.get(node2);
         if (n1.hasNi(node2) && n2.hasNi(node1) && node1 != node2) {
+            weightRemoved(n1.getNiDis(node2));
             n1.removeNode(n2);
             n2.removeNode(n1);
             mc++;
             this.numOfEdge--;
+            if (this.dc != null) {
+                this.dc.removeEdge(n1.id, n2.id);
+            }
+        }
+    }
+
+    /**
+     * This method returns true iff there is a path between every two nodes of the graph (an empty graph is connected).
+     * Complexity: O(1) once the connectivity is kept (see DynamicConnectivity), O((|V|+|E|)log|V|) the first time.
+     *
+     * @return true or false.
+     */
+    public synchronized boolean isConnected() {
+        return this.numOfNode == 0 || connectivity().count() == 1;
+    }
+
+    /**
+     * This method returns true iff there is a path between the two nodes.
+     * Complexity: O(log|V|) once the connectivity is kept, O((|V|+|E|)log|V|) the first time.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     * @return true or false.
+     */
+    public synchronized boolean areConnected(int node1, int node2) {
+        node n1 = (node) this.wg.get(node1);
+        node n2 = (node) this.wg.get(node2);
+        if (n1 == null || n2 == null) {
+            throw new RuntimeException("One or more of your keys does not exist in the graph");
         }
+        return connectivity().connected(n1.id, n2.id);
+    }
+
+    /**
+     * This method returns the connected components of the graph: the component of each key and the component sizes.
+     * Complexity: O(|V|log|V|) once the connectivity is kept.
+     *
+     * @return ConnectedComponents
+     */
+    public synchronized ConnectedComponents connectedComponents() {
+        DynamicConnectivity c = connectivity();
+        return new ConnectedComponents(this, c.count(), c::component);
+    }
+
+    /**
+     * This private method returns the connectivity of the graph, and builds it if it is not kept yet.
+     * From then on every change of the graph updates it.
+     *
+     * @return DynamicConnectivity
+     */
+    private DynamicConnectivity connectivity() {
+        if (this.dc == null) {
+            this.dc = new DynamicConnectivity(this);
+        }
+        return this.dc;
     }
 
     /**
@@ -296,43 +462,195 @@ public class WGraph_DS implements weighted_graph, Serializable {
         return mc;
     }
 
+    /**
+     * This method sets the Mode Count of a graph that was read from a file to the Mode Count of the saved graph
+     * (used by WGraph_Binary.read), so data that was saved with the graph (see ALTLandmarks.matches) still matches it.
+     *
+     * @param mc - the Mode Count of the saved graph
+     */
+    void restoreMC(int mc) {
+        this.mc = mc;
+    }
+
+    /**
+     * This method returns the bound of the node indexes (see indexed_graph).
+     * Complexity: O(1).
+     *
+     * @return the bound of the indexes
+     */
+    @Override
+    public int idBound() {
+        return this.idBound;
+    }
+
+    /**
+     * This method returns the index of the node with the given key.
+     * Complexity: O(1).
+     *
+     * @param key - the node unique key
+     * @return the index, -1 if none.
+     */
+    @Override
+    public int idOf(int key) {
+        node n = (node) this.wg.get(key);
+        return n == null ? -1 : n.id;
+    }
+
+    /**
+     * This method returns the key of the node with the given index.
+     * Complexity: O(1).
+     *
+     * @param id - the index of an existing node
+     * @return the key
+     */
+    @Override
+    public int keyOf(int id) {
+        return this.byId[id].key;
+    }
+
+    /**
+     * This method returns the node with the given index.
+     * Complexity: O(1).
+     *
+     * @param id - the index of an existing node
+     * @return the node
+     */
+    @Override
+    public node_info nodeAt(int id) {
+        return this.byId[id];
+    }
+
+    /**
+     * This method returns the amount of edges of the node with the given index.
+     * Complexity: O(1).
+     *
+     * @param id - the index of an existing node
+     * @return the degree
+     */
+    @Override
+    public int degree(int id) {
+        return this.byId[id].niSize;
+    }
+
+    /**
+     * This method returns an upper bound of the edge weights: the biggest weight that was ever given to an edge
+     * (it does not go down when that edge is removed).
+     * Complexity: O(1).
+     *
+     * @return the bound of the weights
+     */
+    @Override
+    public double maxWeight() {
+        return this.maxWeight;
+    }
+
+    /**
+     * This method returns true iff the weight of every edge is an integer (counted by connect and the removals).
+     * Complexity: O(1).
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean integerWeights() {
+        return this.fractionalEdges == 0;
+    }
+
+    /**
+     * This private method counts a new edge weight.
+     */
+    private void weightAdded(double w) {
+        if (w != Math.rint(w)) {
+            this.fractionalEdges++;
+        }
+        this.maxWeight = Math.max(this.maxWeight, w);
+    }
+
+    /**
+     * This private method uncounts the weight of a removed edge.
+     */
+    private void weightRemoved(double w) {
+        if (w != Math.rint(w)) {
+            this.fractionalEdges--;
+        }
+    }
+
+    /**
+     * This method returns a new cursor over the adjacency tables of the nodes.
+     *
+     * @return edge_cursor
+     */
+    @Override
+    public edge_cursor edges() {
+        return new cursor();
+    }
+
+    /**
+     * This private inner class scans the adjacency table of one node slot by slot, skipping the empty slots.
+     */
+    private class cursor implements edge_cursor {
+        private node u;
+        private int slot;
+
+        @Override
+        public void reset(int id) {
+            this.u = byId[id];
+            this.slot = -1;
+        }
+
+        @Override
+        public boolean next() {
+            node_info[] ni = this.u.ni;
+            while (++this.slot < ni.length) {
+                if (ni[this.slot] != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int target() {
+            return ((node) this.u.ni[this.slot]).id;
+        }
+
+        @Override
+        public double weight() {
+            return this.u.niDis[this.slot];
+        }
+    }
+
     /**
      * toString method
      */
     public String toString() {
-        String str = "";
+        StringBuilder str = new StringBuilder();
         Iterator<node_info> itr = this.wg.values().iterator();
         while (itr.hasNext()) {
-            node_info n = itr.next();
-            if (!itr.hasNext()) {
-                str += n;
-            } else {
-                str += n + " |";
+            str.append(itr.next());
+            if (itr.hasNext()) {
+                str.append(" |");
             }
         }
-        return str;
+        return str.toString();
     }
 
     /**
-     * This private method returns true if the two HashMaps are equal to each other and false otherwise.
-     * Equality is determined by comparing the keys and values of the two Hashmaps.
+     * This private method returns true if the two node stores are equal to each other and false otherwise.
+     * Equality is determined by comparing the keys and values of the two IntNodeMaps.
+     * Each node of this graph is compared with the node of the same key in the other graph,
+     * so the result does not depend on the order in which the nodes were added.
      * Note: The method uses "equals" method that compares each pair of nodes.
      *
-     * @param other - an HashMap<Integer,node_info>
+     * @param other - an IntNodeMap
      * @return true if the arguments are equal to each other and false otherwise
      */
-    private boolean graphNodeEquals(HashMap<Integer, node_info> other) {
-        if (!this.wg.keySet().equals(other.keySet())) {
+    private boolean graphNodeEquals(IntNodeMap other) {
+        if (this.wg.size() != other.size()) {
             return false;
         }
-        Collection<node_info> c1 = this.wg.values();
-        Iterator<node_info> iterator1 = c1.iterator();
-        Collection<node_info> c2 = other.values();
-        Iterator<node_info> iterator2 = c2.iterator();
-        while (iterator1.hasNext() && iterator2.hasNext()) {
-            node n1 = (node) iterator1.next();
-            node n2 = (node) iterator2.next();
-            if (!n1.equals(n2)) {
+        for (node_info n : this.wg.values()) {
+            node_info n2 = other.get(n.getKey());
+            if (n2 == null || !n.equals(n2)) {
                 return false;
             }
         }
@@ -344,7 +662,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
      * Consequently, if both arguments are null, true is returned
      * and if exactly one argument is null, false is returned.
      * Otherwise, equality is determined by comparing all the fields of the object.
-     * Note: The method uses "graphNodeEquals" method that compares the two HashMaps.
+     * Note: The method uses "graphNodeEquals" method that compares the two IntNodeMaps.
      *
      * @param o - an object
      * @return true if the arguments are equal to each other and false otherwise
@@ -370,6 +688,126 @@ public class WGraph_DS implements weighted_graph, Serializable {
         return Objects.hash(wg, numOfEdge, numOfNode, mc);
     }
 
+    /**
+     * This method replaces this graph in a Java serialization stream (ObjectOutputStream) by its SerialForm,
+     * so a graph of any shape is serialized without recursion, as primitive arrays.
+     * Complexity: O(|V|+|E|).
+     *
+     * @return the SerialForm of this graph
+     */
+    private Object writeReplace() {
+        return new SerialForm(this);
+    }
+
+    /**
+     * A WGraph_DS is never read from a stream by itself, only by SerialForm.readResolve.
+     *
+     * @param in - the stream
+     * @throws InvalidObjectException always
+     */
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("A WGraph_DS is serialized as a SerialForm");
+    }
+
+    /**
+     * This private static class is the serialized form of a WGraph_DS.
+     * Each SerialForm contains few fields:
+     * keys, info, tag : the key, info and tag of each node (in the order of the node indexes).
+     * ends : the two ends of each edge (positions in keys), every edge appears once.
+     * weights : the weight of each edge.
+     * mc : the Mode Count of the graph.
+     */
+    private static class SerialForm implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int[] keys;
+        private final String[] info;
+        private final double[] tag;
+        private final int[] ends;
+        private final double[] weights;
+        private final int mc;
+
+        /**
+         * This constructor flattens the given graph.
+         *
+         * @param g - a graph
+         */
+        SerialForm(WGraph_DS g) {
+            int n = g.numOfNode;
+            this.keys = new int[n];
+            this.info = new String[n];
+            this.tag = new double[n];
+            this.ends = new int[2 * g.numOfEdge];
+            this.weights = new double[g.numOfEdge];
+            this.mc = g.mc;
+            int[] position = new int[g.idBound];
+            int p = 0;
+            for (int id = 0; id < g.idBound; id++) {
+                node u = g.byId[id];
+                if (u != null) {
+                    position[id] = p;
+                    this.keys[p] = u.key;
+                    this.info[p] = u.info;
+                    this.tag[p] = u.tag;
+                    p++;
+                }
+            }
+            edge_cursor c = g.edges();
+            int e = 0;
+            for (int id = 0; id < g.idBound; id++) {
+                if (g.byId[id] == null) {
+                    continue;
+                }
+                c.reset(id);
+                while (c.next()) {
+                    if (c.target() > id) {
+                        this.ends[2 * e] = position[id];
+                        this.ends[2 * e + 1] = position[c.target()];
+                        this.weights[e++] = c.weight();
+                    }
+                }
+            }
+        }
+
+        /**
+         * This method builds the graph of this serialized form (pre-sized, like WGraph_Binary.read).
+         * Complexity: O(|V|+|E|).
+         *
+         * @return a new WGraph_DS
+         * @throws InvalidObjectException if the arrays do not describe a graph
+         */
+        private Object readResolve() throws InvalidObjectException {
+            int n = this.keys.length;
+            if (this.info.length != n || this.tag.length != n || this.ends.length != 2 * this.weights.length) {
+                throw new InvalidObjectException("The serialized graph is corrupted");
+            }
+            int[] degree = new int[n];
+            for (int end : this.ends) {
+                if (end < 0 || end >= n) {
+                    throw new InvalidObjectException("The serialized graph is corrupted");
+                }
+                degree[end]++;
+            }
+            WGraph_DS g = new WGraph_DS(n);
+            for (int i = 0; i < n; i++) {
+                g.addNode(this.keys[i], degree[i]);
+                node u = (node) g.wg.get(this.keys[i]);
+                u.info = this.info[i];
+                u.tag = this.tag[i];
+            }
+            for (int e = 0; e < this.weights.length; e++) {
+                if (!(this.weights[e] >= 0)) {
+                    throw new InvalidObjectException("The serialized graph is corrupted");
+                }
+                g.connect(this.keys[this.ends[2 * e]], this.keys[this.ends[2 * e + 1]], this.weights[e]);
+            }
+            if (g.numOfNode != n || g.numOfEdge != this.weights.length) {
+                throw new InvalidObjectException("The serialized graph is corrupted");
+            }
+            g.mc = this.mc;
+            return g;
+        }
+    }
+
     /**
      * This private inner class is an implementation of node_info interface.
      * node class implement Set of operations applicable on a
@@ -385,16 +823,20 @@ public class WGraph_DS implements weighted_graph, Serializable {
          * key : A unique key that is used as each NodeData's ID.
          * info : A variable that is used in later functions, by default Initialized to "Blue".
          * tag : A variable that is used in later functions, by default Initialized to Integer.MAX_VALUE(infinite).
-         * pre: A variable that is used in later functions, by default Initialized to null.
-         * ni : HashMap data structure that is used to store this NodeData neighbors.
-         * niDis: HashMap data structure that is used to store the weight (length) of the edge between this node and its neighbors.
+         * id : the dense index of this node in its graph (see indexed_graph).
+         * niKey, ni, niDis : one adjacency table (open addressing with linear probing) kept in three parallel arrays,
+         * slot i holds the key of a neighbor, the neighbor itself and the weight (length) of the edge to it.
+         * An empty slot is marked by ni[i] == null.
+         * niSize : the amount of neighbors of this node.
          */
         private int key;
         private String info;
         private double tag;
-        private node_info pre;
-        private HashMap<Integer, node_info> ni;
-        private HashMap<Integer, Double> niDis;
+        private int id;
+        private int[] niKey;
+        private node_info[] ni;
+        private double[] niDis;
+        private int niSize;
 
         /**
          * Constructor
@@ -403,15 +845,13 @@ public class WGraph_DS implements weighted_graph, Serializable {
             this.key = k;
             this.info = "Blue";
             this.tag = Integer.MAX_VALUE;
-            this.pre = null;
-            this.ni = new HashMap<>();
-            this.niDis = new HashMap<>();
+            allocateNi(MIN_NI_CAPACITY);
         }
 
         /**
          * This method is a deep copy constructor.
          * It builds a new node with the same key,tag and info.
-         * Note: This method builds a new and empty HashMaps of neighbors.
+         * Note: This method builds a new and empty adjacency table.
          * That means the method will not copy the neighbors of this node.
          *
          * @param n other node that you want to duplicate.
@@ -420,8 +860,52 @@ public class WGraph_DS implements weighted_graph, Serializable {
             this.key = n.getKey();
             this.info = n.getInfo();
             this.tag = n.getTag();
-            this.ni = new HashMap<>();
-            this.niDis = new HashMap<>();
+            allocateNi(MIN_NI_CAPACITY);
+        }
+
+        /**
+         * This method makes room in the (empty) adjacency table for the given amount of neighbors without resizing.
+         *
+         * @param degree - the expected amount of neighbors
+         */
+        void reserve(int degree) {
+            int cap = MIN_NI_CAPACITY;
+            while (cap < MAX_NI_CAPACITY && cap / 4 * 3 < degree) {
+                cap <<= 1;
+            }
+            if (cap > this.ni.length) {
+                allocateNi(cap);
+            }
+        }
+
+        /**
+         * This private method allocates a new (empty) adjacency table with the given capacity (a power of two).
+         *
+         * @param cap - the capacity of the table
+         */
+        private void allocateNi(int cap) {
+            this.niKey = new int[cap];
+            this.ni = new node_info[cap];
+            this.niDis = new double[cap];
+        }
+
+        /**
+         * This private method returns the slot of the given neighbor key, or -1 if it is not a neighbor.
+         * Complexity: O(1) on average.
+         *
+         * @param k - the key of the neighbor
+         * @return the slot of the neighbor, -1 if none.
+         */
+        private int niSlot(int k) {
+            int mask = this.ni.length - 1;
+            int i = IntNodeMap.hash(k) & mask;
+            while (this.ni[i] != null) {
+                if (this.niKey[i] == k) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
         }
 
         /**
@@ -477,66 +961,163 @@ public class WGraph_DS implements weighted_graph, Serializable {
 
         /**
          * This method returns a collection with all the neighbors of this node.
+         * The collection is a live view of the adjacency table.
          *
          * @return collections of node_info.
          */
         public Collection<node_info> getNi() {
-            return this.ni.values();
+            return new AbstractCollection<node_info>() {
+                @Override
+                public Iterator<node_info> iterator() {
+                    return new Iterator<node_info>() {
+                        private int next = advance(0);
+
+                        private int advance(int s) {
+                            while (s < ni.length && ni[s] == null) {
+                                s++;
+                            }
+                            return s;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.next < ni.length;
+                        }
+
+                        @Override
+                        public node_info next() {
+                            if (this.next >= ni.length) {
+                                throw new NoSuchElementException();
+                            }
+                            node_info n = ni[this.next];
+                            this.next = advance(this.next + 1);
+                            return n;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return niSize;
+                }
+            };
+        }
+
+        /**
+         * This method returns the amount of neighbors of this node.
+         *
+         * @return the degree of this node
+         */
+        public int getDegree() {
+            return this.niSize;
         }
 
         /**
          * This method returns true iff this<==>key are adjacent, as an edge between them.
+         * Complexity: one probe of the adjacency table, O(1) on average.
          *
          * @param key - int
          * @return true or false.
          */
         public boolean hasNi(int key) {
-            return this.ni.containsKey(key);
+            return niSlot(key) >= 0;
+        }
+
+        /**
+         * This method returns the weight of the edge this<==>key.
+         * Complexity: one probe of the adjacency table, O(1) on average.
+         *
+         * @param key - int
+         * @return the weight of the edge, -1 if there is no such edge.
+         */
+        public double getNiDis(int key) {
+            int i = niSlot(key);
+            return i < 0 ? -1 : this.niDis[i];
         }
 
         /**
          * This method adds the node t to this NodeData.
          * In other words, the method add a weighted edge between this node ==> node t.
-         * NOTE: if the map previously contained a mapping for the key, the old value is replaced.
+         * NOTE: if the table previously contained the key of t, the old weight is replaced.
+         * Complexity: one probe of the adjacency table, O(1) amortized.
          *
-         * @param t - edge length
+         * @param t - the neighbor
+         * @param d - edge length
          */
         public void addNi(node_info t, double d) {
-            if (this != t) {
-                this.ni.put(t.getKey(), t);
-                this.niDis.put(t.getKey(), d);
+            if (this == t) {
+                return;
+            }
+            int k = t.getKey();
+            int mask = this.ni.length - 1;
+            int i = IntNodeMap.hash(k) & mask;
+            while (this.ni[i] != null) {
+                if (this.niKey[i] == k) {
+                    this.ni[i] = t;
+                    this.niDis[i] = d;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            this.niKey[i] = k;
+            this.ni[i] = t;
+            this.niDis[i] = d;
+            if (++this.niSize > this.ni.length / 4 * 3) {
+                resizeNi(this.ni.length << 1);
             }
         }
 
         /**
          * This method removes the edge between this node ==> node.
+         * The entries that follow the removed slot in its cluster are shifted back (no tombstones).
+         * Complexity: one probe of the adjacency table, O(1) on average.
          *
          * @param node - the node to be deleted
          */
         public void removeNode(node_info node) {
-            if (this.ni.containsKey(node.getKey())) {
-                this.ni.remove(node.getKey());
-                this.niDis.remove(node.getKey());
+            int i = niSlot(node.getKey());
+            if (i < 0) {
+                return;
             }
+            int mask = this.ni.length - 1;
+            int hole = i;
+            int j = (i + 1) & mask;
+            while (this.ni[j] != null) {
+                int home = IntNodeMap.hash(this.niKey[j]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    this.niKey[hole] = this.niKey[j];
+                    this.ni[hole] = this.ni[j];
+                    this.niDis[hole] = this.niDis[j];
+                    hole = j;
+                }
+                j = (j + 1) & mask;
+            }
+            this.ni[hole] = null;
+            this.niSize--;
         }
 
         /**
-         * This method temporal returns the pre associated with this node.
-         * Used in later functions.
-         *
-         * @return tag
-         */
-        public node_info getPre() {
-            return this.pre;
-        }
-
-        /**
-         * This method allows setting the pre value for temporal marking a node.
+         * This private method rehashes the adjacency table into a new table with the given capacity.
          *
-         * @param n the new value of the pre.
+         * @param cap - the new capacity (a power of two)
          */
-        public void setPre(node_info n) {
-            this.pre = n;
+        private void resizeNi(int cap) {
+            int[] oldKey = this.niKey;
+            node_info[] oldNi = this.ni;
+            double[] oldDis = this.niDis;
+            allocateNi(cap);
+            int mask = cap - 1;
+            for (int s = 0; s < oldNi.length; s++) {
+                if (oldNi[s] != null) {
+                    int i = IntNodeMap.hash(oldKey[s]) & mask;
+                    while (this.ni[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    this.niKey[i] = oldKey[s];
+                    this.ni[i] = oldNi[s];
+                    this.niDis[i] = oldDis[s];
+                }
+            }
         }
 
         /**
@@ -544,18 +1125,12 @@ public class WGraph_DS implements weighted_graph, Serializable {
          */
         @Override
         public String toString() {
-            String str = "[";
-            Collection<node_info> keyArr = ni.values();
-            Iterator<node_info> iterator = keyArr.iterator();
-            Collection<Double> lenArr = niDis.values();
-            Iterator<Double> iterator2 = lenArr.iterator();
-            while (iterator.hasNext()) {
-                node_info n = iterator.next();
-                double d = iterator2.next();
-                if (!iterator.hasNext()) {
-                    str += n.getKey() + "(" + d + ")" + "]";
-                } else {
-                    str += n.getKey() + "(" + d + ")" + ",";
+            StringBuilder str = new StringBuilder("[");
+            int left = this.niSize;
+            for (int s = 0; s < this.ni.length; s++) {
+                if (this.ni[s] != null) {
+                    str.append(this.niKey[s]).append("(").append(this.niDis[s]).append(")");
+                    str.append(--left == 0 ? "]" : ",");
                 }
             }
             return "{Key:" + this.key + ",Neighbors:" + str + "}";
@@ -585,60 +1160,25 @@ public class WGraph_DS implements weighted_graph, Serializable {
         }
 
         /**
-         * This private method returns true if the two HashMaps are equal to each other and false otherwise.
-         * Equality is determined by comparing the keys and values of the two Hashmaps.
+         * This private method returns true if the two adjacency tables are equal to each other and false otherwise.
+         * Equality is determined by looking up every neighbor of this node in the other node,
+         * and comparing the weights of the edges and the neighbors themselves.
          * Note: The method uses "nodeEquals" method that compares two nodes only by their shallow fields.
          *
-         * @param other - an HashMap<Integer,node_info>
-         * @return true if the arguments are equal to each other and false otherwise
-         */
-        private boolean hashMapOfNodeNiEquals(HashMap<Integer, node_info> other) {
-            if (!this.ni.keySet().equals(other.keySet())) {
-                return false;
-            }
-            Collection<node_info> c1 = this.ni.values();
-            Iterator<node_info> iterator1 = c1.iterator();
-            Collection<node_info> c2 = other.values();
-            while (iterator1.hasNext()) {
-                node n1 = (node) iterator1.next();
-                boolean flag = false;
-                for(node_info n2 : c2){
-                    if(n1.nodeEquals(n2)){
-                        flag = true;
-                    }
-                }
-                if (!flag) {
-                    return false;
-                }
-            }
-            return true;
-        }
-
-        /**
-         * This private method returns true if the two HashMaps are equal to each other and false otherwise.
-         * Equality is determined by comparing the keys and values of the two Hashmaps.
-         *
-         * @param other - an HashMap<Integer,Double>
+         * @param other - a node
          * @return true if the arguments are equal to each other and false otherwise
          */
-        private boolean hashMapOfDoublesEquals(HashMap<Integer, Double> other) {
-            if (!this.niDis.keySet().equals(other.keySet())) {
+        private boolean niEquals(node other) {
+            if (this.niSize != other.niSize) {
                 return false;
             }
-            Collection<Double> c1 = this.niDis.values();
-            Iterator<Double> iterator1 = c1.iterator();
-            Collection<Double> c2 = other.values();
-            while (iterator1.hasNext()) {
-                boolean flag = false;
-                double d1 = iterator1.next();
-                for(double d2 : c2){
-                    if(d1 == d2){
-                        flag = true;
+            for (int s = 0; s < this.ni.length; s++) {
+                if (this.ni[s] != null) {
+                    int i = other.niSlot(this.niKey[s]);
+                    if (i < 0 || this.niDis[s] != other.niDis[i] || !((node) this.ni[s]).nodeEquals(other.ni[i])) {
+                        return false;
                     }
                 }
-                if (!flag) {
-                    return false;
-                }
             }
             return true;
         }
@@ -648,8 +1188,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
          * Consequently, if both arguments are null, true is returned
          * and if exactly one argument is null, false is returned.
          * Otherwise, equality is determined by comparing all the fields of the object.
-         * Note1: The method uses "hashMapOfNodeNiEquals" method that compares the two HashMaps of nodes.
-         * Note2: The method uses "hashMapOfDoublesEquals" method that compares the two HashMaps of doubles.
+         * Note: The method uses "niEquals" method that compares the two adjacency tables.
          *
          * @param o - an Object
          * @return true if the arguments are equal to each other and false otherwise
@@ -663,8 +1202,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
             return this.key == node.key &&
                     Double.compare(node.tag, this.tag) == 0 &&
                     this.info.compareTo(node.info) == 0 &&
-                    this.hashMapOfNodeNiEquals(node.ni) &&
-                    this.hashMapOfDoublesEquals(node.niDis);
+                    this.niEquals(node);
         }
 
         /**Override hashcode because equals changed.
@@ -673,7 +1211,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
          */
         @Override
         public int hashCode() {
-            return Objects.hash(key, info, tag, pre, ni, niDis);
+            return Objects.hash(key, info, tag, niSize);
         }
     }
 }
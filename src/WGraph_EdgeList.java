@@ -0,0 +1,412 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class is the text file format of a weighted graph (used by WGraph_Algo.mySave and WGraph_Algo.myLoad),
+ * one line per edge, in the style of the DIMACS and edge-list formats:
+ * 1. c ... - a comment (lines that start with # or % are comments too).
+ * 2. p edge n m - the amount of nodes and edges (optional, used to pre-size the graph).
+ * 3. n key - a node without edges.
+ * 4. e key1 key2 weight - an edge ("a key1 key2 weight" and a plain "key1 key2 [weight]" are read the same way,
+ *    a missing weight is 1).
+ * The writer streams the lines through a FileChannel with a 1MB buffer, every edge is written once,
+ * and a weight is written as an integer when it is one, otherwise in the shortest form that reads back the same double.
+ * The reader reads the file in chunks of CHUNK_SIZE bytes: the lines of a chunk are parsed in parallel
+ * (each task parses a slice of whole lines into primitive arrays), while the lines of the previous chunk are added
+ * to the graph by the calling thread, so the memory besides the graph is bounded by two chunks.
+ * The tag and info of the nodes are not kept.
+ *
+ * @author itai.lashover
+ */
+public class WGraph_EdgeList {
+
+    /**
+     * The size of a chunk of the reader, and the size of the buffer of the writer.
+     */
+    static final int CHUNK_SIZE = 1 << 23;
+    static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * A chunk is parsed by one task per SLICE_SIZE bytes (at most 4 tasks per thread of the pool).
+     */
+    static final int SLICE_SIZE = 1 << 18;
+
+    /**
+     * This class has only static methods.
+     */
+    private WGraph_EdgeList() {
+    }
+
+    /**
+     * This method writes the graph to the given file, one line per edge.
+     * Complexity: O(|V|+|E|).
+     *
+     * @param g    - a weighted graph
+     * @param file - the file name (may include a relative path).
+     * @throws IOException if the file could not be written
+     */
+    public static void write(weighted_graph g, String file) throws IOException {
+        indexed_graph ig = WGraph_Algo.indexed(g);
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            put(ch, buf, "c weighted undirected graph: n <key> for a node without edges, e <key1> <key2> <weight>\n");
+            put(ch, buf, "p edge " + ig.nodeSize() + " " + ig.edgeSize() + "\n");
+            for (int id = 0; id < ig.idBound(); id++) {
+                if (ig.nodeAt(id) != null && ig.degree(id) == 0) {
+                    put(ch, buf, "n " + ig.keyOf(id) + "\n");
+                }
+            }
+            indexed_graph.edge_cursor c = ig.edges();
+            StringBuilder line = new StringBuilder(64);
+            for (int id = 0; id < ig.idBound(); id++) {
+                if (ig.nodeAt(id) == null) {
+                    continue;
+                }
+                c.reset(id);
+                while (c.next()) {
+                    if (c.target() > id) {
+                        line.setLength(0);
+                        line.append("e ").append(ig.keyOf(id)).append(' ').append(ig.keyOf(c.target())).append(' ');
+                        double w = c.weight();
+                        if (w == Math.rint(w) && Math.abs(w) < 1e15) {
+                            line.append((long) w);
+                        }
+                        else {
+                            line.append(w);
+                        }
+                        put(ch, buf, line.append('\n'));
+                    }
+                }
+            }
+            flush(ch, buf);
+        }
+    }
+
+    /**
+     * This method reads a graph from a file in this format, the chunks are parsed in the common ForkJoinPool.
+     * Complexity: O(|V|+|E|).
+     *
+     * @param file - file name
+     * @return a new WGraph_DS
+     * @throws IOException if the file could not be read or a line is not in this format
+     */
+    public static WGraph_DS read(String file) throws IOException {
+        return read(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This method reads a graph from a file in this format (see read(file)).
+     *
+     * @param file - file name
+     * @param pool - the pool that parses the chunks, null to parse them by the calling thread
+     * @return a new WGraph_DS
+     * @throws IOException if the file could not be read or a line is not in this format
+     */
+    public static WGraph_DS read(String file, ForkJoinPool pool) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            WGraph_DS g = null;
+            // a line of at least 4 bytes ("1 2\n") adds at most 2 nodes, a bigger p line is only a wrong hint
+            int maxNodes = (int) Math.min(Integer.MAX_VALUE, ch.size() / 2);
+            byte[] buf = new byte[CHUNK_SIZE];
+            int length = 0;
+            long offset = 0;
+            boolean eof = false;
+            List<Slice> previous = null;
+            while (!eof || length > 0) {
+                while (!eof && length < buf.length) {
+                    int r = ch.read(ByteBuffer.wrap(buf, length, buf.length - length));
+                    if (r < 0) {
+                        eof = true;
+                    }
+                    else {
+                        length += r;
+                    }
+                }
+                int end = length;
+                if (!eof) {
+                    while (end > 0 && buf[end - 1] != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        // a line longer than the buffer
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                        continue;
+                    }
+                }
+                ForkJoinTask<List<Slice>> parsing = parse(buf, end, offset, pool);
+                if (previous != null) {
+                    g = build(g, previous, maxNodes);
+                }
+                previous = parsing.join();
+                System.arraycopy(buf, end, buf, 0, length - end);
+                offset += end;
+                length -= end;
+            }
+            return previous == null ? (g == null ? new WGraph_DS() : g) : build(g, previous, maxNodes);
+        } catch (RuntimeException ex) {
+            // a bad line in a parsing task
+            for (Throwable t = ex; t != null; t = t.getCause()) {
+                if (t instanceof IOException) {
+                    throw (IOException) t;
+                }
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * This private method starts parsing the lines of buf[0..end) (whole lines), in slices of about SLICE_SIZE bytes.
+     *
+     * @return the task that returns the parsed slices in the order of the file
+     */
+    private static ForkJoinTask<List<Slice>> parse(byte[] buf, int end, long offset, ForkJoinPool pool) {
+        int parallelism = pool == null ? 1 : pool.getParallelism();
+        int count = Math.max(1, Math.min(end / SLICE_SIZE, parallelism * 4));
+        int[] from = new int[count + 1];
+        from[count] = end;
+        for (int k = 1; k < count; k++) {
+            int i = Math.max(from[k - 1], (int) ((long) end * k / count));
+            while (i < end && buf[i - 1] != '\n') {
+                i++;
+            }
+            from[k] = i;
+        }
+        if (pool == null) {
+            ForkJoinTask<List<Slice>> task = ForkJoinTask.adapt(() -> List.of(new Slice(buf, 0, end, offset)));
+            task.invoke();
+            return task;
+        }
+        return pool.submit(() -> IntStream.range(0, count).parallel()
+                .mapToObj(k -> new Slice(buf, from[k], from[k + 1], offset))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * This private method adds the parsed lines to the graph (creates the graph on the first chunk,
+     * pre-sized by the p line if there is one, but by no more than maxNodes).
+     *
+     * @return the graph
+     */
+    private static WGraph_DS build(WGraph_DS g, List<Slice> slices, int maxNodes) {
+        for (Slice s : slices) {
+            if (g == null) {
+                g = s.nodeCount >= 0 ? new WGraph_DS(Math.min(s.nodeCount, maxNodes)) : new WGraph_DS();
+            }
+            for (int i = 0; i < s.nodes.size; i++) {
+                g.addNode(s.nodes.data[i]);
+            }
+            int[] a = s.from.data;
+            int[] b = s.to.data;
+            for (int i = 0; i < s.from.size; i++) {
+                g.addNode(a[i]);
+                g.addNode(b[i]);
+                g.connect(a[i], b[i], s.weights[i]);
+            }
+        }
+        return g;
+    }
+
+    /**
+     * This private method writes the characters of s (ASCII) to the buffer, and flushes it when it is full.
+     */
+    private static void put(FileChannel ch, ByteBuffer buf, CharSequence s) throws IOException {
+        if (buf.remaining() < s.length()) {
+            flush(ch, buf);
+        }
+        if (buf.remaining() < s.length()) {
+            ByteBuffer big = ByteBuffer.wrap(s.toString().getBytes(StandardCharsets.US_ASCII));
+            while (big.hasRemaining()) {
+                ch.write(big);
+            }
+            return;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            buf.put((byte) s.charAt(i));
+        }
+    }
+
+    /**
+     * This private method writes the buffer to the channel.
+     */
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * This private class is the parsed lines of one slice of a chunk.
+     * Each Slice contains few fields:
+     * nodes : the keys of the n lines.
+     * from, to, weights : the edges of the e lines (and the plain edge lines).
+     * nodeCount : the amount of nodes of the p line, -1 if the slice has no p line.
+     */
+    private static final class Slice {
+        private final IntList nodes = new IntList();
+        private final IntList from = new IntList();
+        private final IntList to = new IntList();
+        private double[] weights = new double[16];
+        private int nodeCount = -1;
+        private final byte[] buf;
+        private final long offset;
+        private int i;
+
+        /**
+         * This constructor parses the lines of buf[start..end).
+         *
+         * @param offset - the position of buf[0] in the file (for the error messages)
+         */
+        Slice(byte[] buf, int start, int end, long offset) {
+            this.buf = buf;
+            this.offset = offset;
+            this.i = start;
+            while (this.i < end) {
+                int line = this.i;
+                try {
+                    parseLine(end);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                } catch (RuntimeException ex) {
+                    throw new UncheckedIOException(error(line, end));
+                }
+            }
+        }
+
+        /**
+         * This private method parses the line at i, and moves i to the start of the next line.
+         */
+        private void parseLine(int end) throws IOException {
+            int line = this.i;
+            skipSpaces(end);
+            byte first = this.i < end ? this.buf[this.i] : (byte) '\n';
+            if (first == '\n' || first == '\r' || first == 'c' || first == '#' || first == '%') {
+                skipLine(end);
+                return;
+            }
+            if (first == 'p') {
+                this.i++;
+                skipSpaces(end);
+                while (this.i < end && this.buf[this.i] > ' ') {
+                    this.i++;   // the name of the format
+                }
+                this.nodeCount = (int) Math.min(Integer.MAX_VALUE, Math.max(0, parseLong(line, end)));
+                parseLong(line, end);
+            }
+            else if (first == 'n') {
+                this.i++;
+                this.nodes.add(parseInt(line, end));
+            }
+            else {
+                if (first == 'e' || first == 'a') {
+                    this.i++;
+                }
+                int a = parseInt(line, end);
+                int b = parseInt(line, end);
+                skipSpaces(end);
+                double w = this.i < end && this.buf[this.i] > ' ' ? parseDouble(line, end) : 1;
+                if (!(w >= 0)) {
+                    throw error(line, end);
+                }
+                if (this.from.size == this.weights.length) {
+                    this.weights = Arrays.copyOf(this.weights, this.weights.length * 2);
+                }
+                this.weights[this.from.size] = w;
+                this.from.add(a);
+                this.to.add(b);
+            }
+            skipSpaces(end);
+            if (this.i < end && this.buf[this.i] != '\n' && this.buf[this.i] != '\r') {
+                throw error(line, end);
+            }
+            skipLine(end);
+        }
+
+        private int parseInt(int line, int end) throws IOException {
+            long x = parseLong(line, end);
+            if (x != (int) x) {
+                throw error(line, end);
+            }
+            return (int) x;
+        }
+
+        private long parseLong(int line, int end) throws IOException {
+            skipSpaces(end);
+            boolean negative = this.i < end && this.buf[this.i] == '-';
+            if (negative) {
+                this.i++;
+            }
+            int start = this.i;
+            long x = 0;
+            while (this.i < end && this.buf[this.i] >= '0' && this.buf[this.i] <= '9' && this.i - start < 18) {
+                x = x * 10 + (this.buf[this.i++] - '0');
+            }
+            if (this.i == start || (this.i < end && this.buf[this.i] > ' ')) {
+                throw error(line, end);
+            }
+            return negative ? -x : x;
+        }
+
+        /**
+         * This private method parses a weight: an integer directly, any other number by Double.parseDouble.
+         */
+        private double parseDouble(int line, int end) throws IOException {
+            int start = this.i;
+            while (this.i < end && this.buf[this.i] > ' ') {
+                this.i++;
+            }
+            int digits = 0;
+            while (start + digits < this.i && this.buf[start + digits] >= '0' && this.buf[start + digits] <= '9') {
+                digits++;
+            }
+            if (digits == this.i - start && digits <= 15) {
+                long x = 0;
+                for (int k = start; k < this.i; k++) {
+                    x = x * 10 + (this.buf[k] - '0');
+                }
+                return x;
+            }
+            try {
+                return Double.parseDouble(new String(this.buf, start, this.i - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException ex) {
+                throw error(line, end);
+            }
+        }
+
+        private void skipSpaces(int end) {
+            while (this.i < end && (this.buf[this.i] == ' ' || this.buf[this.i] == '\t')) {
+                this.i++;
+            }
+        }
+
+        private void skipLine(int end) {
+            while (this.i < end && this.buf[this.i++] != '\n') {
+            }
+        }
+
+        /**
+         * This private method returns the exception of a line that is not in the format.
+         */
+        private IOException error(int line, int end) {
+            int e = line;
+            while (e < end && this.buf[e] != '\n' && e - line < 80) {
+                e++;
+            }
+            return new IOException("Bad line at byte " + (this.offset + line) + ": "
+                    + new String(this.buf, line, e - line, StandardCharsets.US_ASCII).trim());
+        }
+    }
+}
@@ -0,0 +1,698 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class is a weighted graph with a write-ahead journal (a decorator of a WGraph_DS).
+ * Every change (addNode, connect, removeEdge, removeNode) is applied to the graph and appended to the journal
+ * as a small binary record, and a background thread writes the records in blocks and forces them to the disk
+ * (group commit): one fsync for all the changes of the last COMMIT_MILLIS milliseconds.
+ * sync() waits until every change that was made before it is on the disk.
+ * The directory of a journal holds two kinds of files, both numbered by a generation:
+ * 1. checkpoint-G.wgb - the whole graph (in the format of WGraph_Binary) at the start of generation G.
+ * 2. journal-G.log - the changes of generation G, as blocks of [length, CRC32, records].
+ * A checkpoint switches the journal to a new generation and writes a copy of the graph while the changes go on,
+ * then deletes the files of the older generations. It runs in the background once the journal has more than
+ * checkpointBytes bytes, or when checkpoint() is called.
+ * Opening a directory recovers the graph: the newest checkpoint that can be read, and then the changes of
+ * its generation and the newer ones (a block that was not completely written, the end of a crash, is dropped).
+ * If a change that is not in a journal file can not be recovered (no checkpoint can be read and the oldest journal
+ * is not of generation 0, or a journal file is missing) the constructor throws an IOException.
+ * The changes are thread-safe (each one is a synchronized method), the queries are the queries of the WGraph_DS.
+ * Note: the info and tag of the nodes are kept by the checkpoints only.
+ *
+ * @author itai.lashover
+ */
+public class WGraph_Journal implements weighted_graph, indexed_graph, AutoCloseable {
+
+    /**
+     * The default time between two group commits, and the default size of the journal that starts a checkpoint.
+     */
+    public static final long COMMIT_MILLIS = 5;
+    public static final long CHECKPOINT_BYTES = 64L << 20;
+
+    /**
+     * A block is committed early when it has this many bytes.
+     */
+    static final int BLOCK_BYTES = 1 << 20;
+
+    /**
+     * The kinds of records: the kind (byte), then the keys (ints) and the weight (double) of the change.
+     */
+    private static final byte ADD_NODE = 1;
+    private static final byte CONNECT = 2;
+    private static final byte REMOVE_EDGE = 3;
+    private static final byte REMOVE_NODE = 4;
+
+    /**
+     * Each WGraph_Journal contains few fields:
+     * g : the graph.
+     * dir, commitMillis, checkpointBytes : the directory of the files and the settings.
+     * generation, log, logBytes : the current generation, its journal file and its size.
+     * pending, spare : the records that were not written yet, and an empty buffer to swap with.
+     * appended, durable : the amount of records that were appended, and that are on the disk.
+     * waiting : the amount of threads in sync() (the next group commit starts at once).
+     * failure : the first error of the background thread, null if none.
+     * io, checkpointing : the locks of the journal file and of the checkpoints (always taken before this).
+     * committer : the background thread of the group commits.
+     * checkpointer : the thread of the background checkpoint that is running, null if none.
+     */
+    private final WGraph_DS g;
+    private final Path dir;
+    private final long commitMillis;
+    private final long checkpointBytes;
+    private long generation;
+    private FileChannel log;
+    private long logBytes;
+    private ByteBuffer pending = newBlock();
+    private ByteBuffer spare = newBlock();
+    private long appended;
+    private long durable;
+    private int waiting;
+    private IOException failure;
+    private boolean closed;
+    private final Object io = new Object();
+    private final Object checkpointing = new Object();
+    private final Thread committer;
+    private Thread checkpointer;
+
+    /**
+     * This constructor opens (or creates) the journal in the given directory with the default settings,
+     * and recovers its graph.
+     *
+     * @param dir - the directory of the journal
+     * @throws IOException if the files could not be read or created
+     */
+    public WGraph_Journal(String dir) throws IOException {
+        this(dir, COMMIT_MILLIS, CHECKPOINT_BYTES);
+    }
+
+    /**
+     * This constructor opens (or creates) the journal in the given directory, and recovers its graph.
+     *
+     * @param dir             - the directory of the journal
+     * @param commitMillis    - the time between two group commits
+     * @param checkpointBytes - the size of the journal that starts a checkpoint in the background
+     * @throws IOException if the files could not be read or created
+     */
+    public WGraph_Journal(String dir, long commitMillis, long checkpointBytes) throws IOException {
+        if (commitMillis <= 0 || checkpointBytes <= 0) {
+            throw new IllegalArgumentException("commitMillis and checkpointBytes must be positive");
+        }
+        this.dir = Paths.get(dir);
+        this.commitMillis = commitMillis;
+        this.checkpointBytes = checkpointBytes;
+        Files.createDirectories(this.dir);
+        WGraph_DS recovered = null;
+        long base = 0;
+        List<Long> checkpoints = generations("checkpoint-", ".wgb");
+        Collections.reverse(checkpoints);
+        for (long gen : checkpoints) {
+            try {
+                recovered = WGraph_Binary.read(file("checkpoint-", gen, ".wgb").toString());
+                base = gen;
+                break;
+            } catch (IOException | RuntimeException ex) {
+                // an unfinished or damaged checkpoint, try the one before it
+            }
+        }
+        List<Long> logs = generations("journal-", ".log");
+        if (recovered == null && (logs.isEmpty() ? !checkpoints.isEmpty() : logs.get(0) != 0)) {
+            // the changes before the oldest journal are only in a checkpoint that can not be read
+            throw new IOException("Error reading journal\n" + dir + " has no checkpoint that can be read");
+        }
+        this.g = recovered == null ? new WGraph_DS() : recovered;
+        this.generation = base;
+        long next = base;
+        for (long gen : logs) {
+            if (gen >= base) {
+                if (gen != next) {
+                    // the changes of a generation after the checkpoint are lost
+                    throw new IOException("Error reading journal\n" + file("journal-", next, ".log") + " is missing");
+                }
+                replay(file("journal-", gen, ".log"));
+                this.generation = gen;
+                next++;
+            }
+        }
+        this.log = FileChannel.open(file("journal-", this.generation, ".log"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        this.logBytes = this.log.size();
+        this.log.position(this.logBytes);
+        this.committer = new Thread(this::commitLoop, "WGraph_Journal committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * This method returns the current generation (the number of the newest journal file).
+     *
+     * @return the generation
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * This method waits until every change that was made before it is on the disk.
+     *
+     * @throws IOException if the journal could not be written
+     */
+    public synchronized void sync() throws IOException {
+        long target = this.appended;
+        this.waiting++;
+        // wake the background thread once, the waiting threads must not wake each other
+        notifyAll();
+        try {
+            while (this.durable < target && this.failure == null) {
+                wait();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal", ex);
+        } finally {
+            this.waiting--;
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * This method writes a checkpoint: the journal is switched to a new generation, a copy of the graph is written
+     * as the checkpoint of the new generation, and the files of the older generations are deleted once the new
+     * checkpoint was read back and found equal to the copy (otherwise it is deleted and the older files are kept).
+     * The changes wait only while the graph is copied.
+     * Complexity: O(|V|+|E|).
+     *
+     * @throws IOException if the files could not be written
+     */
+    public void checkpoint() throws IOException {
+        synchronized (this.checkpointing) {
+            WGraph_DS snapshot;
+            long gen;
+            synchronized (this.io) {
+                ByteBuffer block;
+                long upTo;
+                synchronized (this) {
+                    block = swap();
+                    upTo = this.appended;
+                    snapshot = new WGraph_DS(this.g);
+                    gen = this.generation + 1;
+                }
+                writeBlock(block);
+                this.log.force(false);
+                this.log.close();
+                FileChannel next = FileChannel.open(file("journal-", gen, ".log"), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                synchronized (this) {
+                    this.log = next;
+                    this.logBytes = 0;
+                    this.generation = gen;
+                    this.durable = Math.max(this.durable, upTo);
+                    notifyAll();
+                }
+            }
+            Path tmp = file("checkpoint-", gen, ".tmp");
+            WGraph_Binary.write(snapshot, tmp.toString());
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+            Path done = file("checkpoint-", gen, ".wgb");
+            Files.move(tmp, done, StandardCopyOption.ATOMIC_MOVE);
+            // the older files are the only copy of the graph until the new checkpoint is read back
+            WGraph_DS written;
+            try {
+                written = WGraph_Binary.read(done.toString());
+            } catch (IOException ex) {
+                written = null;
+            }
+            if (!snapshot.equals(written)) {
+                Files.deleteIfExists(done);
+                throw new IOException("Error writing checkpoint\n" + done + " could not be read back");
+            }
+            for (long old : generations("checkpoint-", ".wgb")) {
+                if (old < gen) {
+                    Files.deleteIfExists(file("checkpoint-", old, ".wgb"));
+                }
+            }
+            for (long old : generations("journal-", ".log")) {
+                if (old < gen) {
+                    Files.deleteIfExists(file("journal-", old, ".log"));
+                }
+            }
+        }
+    }
+
+    /**
+     * This method commits the last changes, waits for the background checkpoint (if one is running),
+     * stops the background thread and closes the journal file.
+     *
+     * @throws IOException if the journal could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            notifyAll();
+        }
+        try {
+            this.committer.join();
+            Thread running;
+            synchronized (this) {
+                running = this.checkpointer;
+            }
+            if (running != null) {
+                running.join();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this.io) {
+            commit();
+            this.log.close();
+        }
+        synchronized (this) {
+            if (this.failure != null) {
+                throw this.failure;
+            }
+        }
+    }
+
+    /**
+     * This method returns the graph of the journal (changes made to it directly are not journaled).
+     *
+     * @return WGraph_DS
+     */
+    public WGraph_DS getGraph() {
+        return this.g;
+    }
+
+    ////////////////////////////// changes //////////////////////////////
+
+    /**
+     * This method adds a new node to the graph with the given key, and journals it.
+     *
+     * @param key - the key of the new node
+     */
+    @Override
+    public synchronized void addNode(int key) {
+        check();
+        this.g.addNode(key);
+        record(ADD_NODE, key, 0, 0);
+    }
+
+    /**
+     * This method connects an edge between node1 and node2 with the given weight, and journals it.
+     *
+     * @param node1 - node's key
+     * @param node2 - node's key
+     * @param w     - edge length
+     */
+    @Override
+    public synchronized void connect(int node1, int node2, double w) {
+        check();
+        this.g.connect(node1, node2, w);
+        record(CONNECT, node1, node2, w);
+    }
+
+    /**
+     * This method deletes the node with the given key from the graph, and journals it.
+     *
+     * @param key - the key of the node to be deleted
+     * @return the data of the removed node (null if none).
+     */
+    @Override
+    public synchronized node_info removeNode(int key) {
+        check();
+        node_info n = this.g.removeNode(key);
+        record(REMOVE_NODE, key, 0, 0);
+        return n;
+    }
+
+    /**
+     * This method deletes the edge from the graph, and journals it.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     */
+    @Override
+    public synchronized void removeEdge(int node1, int node2) {
+        check();
+        this.g.removeEdge(node1, node2);
+        record(REMOVE_EDGE, node1, node2, 0);
+    }
+
+    ////////////////////////////// queries //////////////////////////////
+
+    @Override
+    public node_info getNode(int key) {
+        return this.g.getNode(key);
+    }
+
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return this.g.hasEdge(node1, node2);
+    }
+
+    @Override
+    public double getEdge(int node1, int node2) {
+        return this.g.getEdge(node1, node2);
+    }
+
+    @Override
+    public Collection<node_info> getV() {
+        return this.g.getV();
+    }
+
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        return this.g.getV(node_id);
+    }
+
+    @Override
+    public int nodeSize() {
+        return this.g.nodeSize();
+    }
+
+    @Override
+    public int edgeSize() {
+        return this.g.edgeSize();
+    }
+
+    @Override
+    public int getMC() {
+        return this.g.getMC();
+    }
+
+    @Override
+    public int idBound() {
+        return this.g.idBound();
+    }
+
+    @Override
+    public int idOf(int key) {
+        return this.g.idOf(key);
+    }
+
+    @Override
+    public int keyOf(int id) {
+        return this.g.keyOf(id);
+    }
+
+    @Override
+    public node_info nodeAt(int id) {
+        return this.g.nodeAt(id);
+    }
+
+    @Override
+    public int degree(int id) {
+        return this.g.degree(id);
+    }
+
+    @Override
+    public double maxWeight() {
+        return this.g.maxWeight();
+    }
+
+    @Override
+    public boolean integerWeights() {
+        return this.g.integerWeights();
+    }
+
+    @Override
+    public edge_cursor edges() {
+        return this.g.edges();
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public String toString() {
+        return this.g.toString();
+    }
+
+    ////////////////////////////// private methods //////////////////////////////
+
+    /**
+     * This private method throws if the journal was closed or the background thread failed.
+     */
+    private void check() {
+        if (this.closed) {
+            throw new IllegalStateException("The journal is closed");
+        }
+        if (this.failure != null) {
+            throw new UncheckedIOException("The journal could not be written", this.failure);
+        }
+    }
+
+    /**
+     * This private method appends a record to the pending block (the caller holds the lock of this object).
+     */
+    private void record(byte kind, int key1, int key2, double w) {
+        if (this.pending.remaining() < 17) {
+            this.pending = ByteBuffer.allocate(this.pending.capacity() * 2).put(this.pending.flip());
+        }
+        this.pending.put(kind).putInt(key1);
+        if (kind == CONNECT || kind == REMOVE_EDGE) {
+            this.pending.putInt(key2);
+        }
+        if (kind == CONNECT) {
+            this.pending.putDouble(w);
+        }
+        this.appended++;
+        if (this.pending.position() >= BLOCK_BYTES) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * This private method takes the pending block and leaves the spare one (the caller holds the io lock and
+     * the lock of this object, so the spare block is not being written).
+     */
+    private ByteBuffer swap() {
+        ByteBuffer block = this.pending;
+        this.pending = this.spare;
+        this.pending.clear();
+        this.spare = block;
+        return block;
+    }
+
+    /**
+     * This private method writes the pending block to the journal file and forces it to the disk
+     * (the caller holds the io lock).
+     */
+    private void commit() throws IOException {
+        ByteBuffer block;
+        long upTo;
+        synchronized (this) {
+            if (this.pending.position() == 0) {
+                return;
+            }
+            block = swap();
+            upTo = this.appended;
+        }
+        writeBlock(block);
+        this.log.force(false);
+        synchronized (this) {
+            this.durable = Math.max(this.durable, upTo);
+            notifyAll();
+        }
+    }
+
+    /**
+     * This private method writes one block: its length, the CRC32 of its records and the records.
+     */
+    private void writeBlock(ByteBuffer block) throws IOException {
+        block.flip();
+        if (!block.hasRemaining()) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(block.duplicate());
+        ByteBuffer head = ByteBuffer.allocate(8).putInt(block.remaining()).putInt((int) crc.getValue()).flip();
+        long size = 8 + block.remaining();
+        while (head.hasRemaining() || block.hasRemaining()) {
+            this.log.write(new ByteBuffer[]{head, block});
+        }
+        synchronized (this) {
+            this.logBytes += size;
+        }
+    }
+
+    /**
+     * This private method is the loop of the background thread: a group commit every commitMillis
+     * (or as soon as a block is full or a thread waits in sync()).
+     * When the journal is too big it starts a checkpoint on a thread of its own, so the group commits go on
+     * while the checkpoint is written (they wait only while it switches the generation).
+     */
+    private void commitLoop() {
+        while (true) {
+            boolean last;
+            synchronized (this) {
+                long deadline = System.currentTimeMillis() + this.commitMillis;
+                long left = this.commitMillis;
+                while (!this.closed && this.waiting == 0 && this.pending.position() < BLOCK_BYTES && left > 0) {
+                    try {
+                        wait(left);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    left = deadline - System.currentTimeMillis();
+                }
+                last = this.closed;
+            }
+            try {
+                synchronized (this.io) {
+                    commit();
+                }
+                synchronized (this) {
+                    if (this.logBytes > this.checkpointBytes && !last && this.checkpointer == null) {
+                        this.checkpointer = new Thread(this::checkpointInBackground, "WGraph_Journal checkpoint");
+                        this.checkpointer.setDaemon(true);
+                        this.checkpointer.start();
+                    }
+                }
+            } catch (IOException ex) {
+                synchronized (this) {
+                    this.failure = ex;
+                    notifyAll();
+                }
+                return;
+            }
+            if (last) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * This private method is the background checkpoint that commitLoop starts.
+     * An error is kept as the failure of the journal, like an error of a group commit.
+     */
+    private void checkpointInBackground() {
+        IOException error = null;
+        try {
+            checkpoint();
+        } catch (IOException ex) {
+            error = ex;
+        }
+        synchronized (this) {
+            if (error != null && this.failure == null) {
+                this.failure = error;
+            }
+            this.checkpointer = null;
+            notifyAll();
+        }
+    }
+
+    /**
+     * This private method applies the records of a journal file to the graph.
+     * It stops at the first block that is not complete or whose CRC32 is wrong, and cuts the file there.
+     */
+    private void replay(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            long at = 0;
+            ByteBuffer head = ByteBuffer.allocate(8);
+            while (at + 8 <= size) {
+                head.clear();
+                readFully(ch, head, at);
+                int length = head.getInt(0);
+                if (length <= 0 || at + 8 + length > size) {
+                    break;
+                }
+                ByteBuffer block = ByteBuffer.allocate(length);
+                readFully(ch, block, at + 8);
+                CRC32 crc = new CRC32();
+                crc.update(block.array());
+                if ((int) crc.getValue() != head.getInt(4)) {
+                    break;
+                }
+                apply(block.flip());
+                at += 8 + length;
+            }
+            if (at < size) {
+                ch.truncate(at);
+            }
+        }
+    }
+
+    /**
+     * This private method applies the records of one block to the graph.
+     */
+    private void apply(ByteBuffer block) throws IOException {
+        while (block.hasRemaining()) {
+            byte kind = block.get();
+            switch (kind) {
+                case ADD_NODE:
+                    this.g.addNode(block.getInt());
+                    break;
+                case CONNECT:
+                    this.g.connect(block.getInt(), block.getInt(), block.getDouble());
+                    break;
+                case REMOVE_EDGE:
+                    this.g.removeEdge(block.getInt(), block.getInt());
+                    break;
+                case REMOVE_NODE:
+                    this.g.removeNode(block.getInt());
+                    break;
+                default:
+                    throw new IOException("Unknown record " + kind + " in the journal");
+            }
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer b, long at) throws IOException {
+        while (b.hasRemaining()) {
+            if (ch.read(b, at + b.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    /**
+     * This private method returns the generations of the files of the given kind in the directory, sorted.
+     */
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> gens = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.dir, prefix + "*" + suffix)) {
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                try {
+                    gens.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException ex) {
+                    // not a file of the journal
+                }
+            }
+        }
+        Long[] sorted = gens.toArray(new Long[0]);
+        Arrays.sort(sorted);
+        return new ArrayList<>(Arrays.asList(sorted));
+    }
+
+    private Path file(String prefix, long gen, String suffix) {
+        return this.dir.resolve(prefix + gen + suffix);
+    }
+
+    private static ByteBuffer newBlock() {
+        return ByteBuffer.allocate(BLOCK_BYTES + 64);
+    }
+}
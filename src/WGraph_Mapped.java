@@ -0,0 +1,759 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class is a read-only implementation of weighted_graph interface over a memory-mapped file.
+ * The file holds the arrays of a WGraph_CSR snapshot (keys, offsets, targets, weights) together with
+ * an open addressing table from a key to its index and the meta data of the nodes.
+ * open maps each array with FileChannel.map (READ_ONLY), and every method reads straight from the mapped buffers:
+ * nothing is deserialized, so opening a graph of any size takes a few system calls, the pages are read by the
+ * operating system when they are first touched, and every process that maps the same file shares its page cache.
+ * The layout of a file (little-endian, every section starts at a multiple of 8 bytes):
+ * 1. Header (64 bytes) - MAGIC, VERSION, the amount of nodes (n), edges (m), slots of the key table (cap),
+ *    the Mode Count, integerWeights, the length of the info section and maxWeight.
+ * 2. keys int[n], offsets int[n+1], targets int[2m], weights double[2m] - the CSR arrays (every row is sorted).
+ * 3. slots int[cap] - index+1 of the node in each slot of the key table (0 for an empty slot), linear probing.
+ * 4. tags double[n], infoIndex int[2n] (start and length of each info, start -1 for null), info byte[] (UTF-8).
+ * Every section must fit in one mapping (2GB), so a file holds at most about 134 million edges.
+ * Every method that changes the graph (or the info and tag of a node) throws an UnsupportedOperationException.
+ *
+ * @author itai.lashover
+ */
+public class WGraph_Mapped implements weighted_graph, indexed_graph {
+
+    /**
+     * The first int of every file ("WGRM"), and the version of the layout.
+     */
+    public static final int MAGIC = 0x5747524D;
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the header, and the amount of sections after it.
+     */
+    private static final int HEADER = 64;
+    private static final int SECTIONS = 8;
+
+    /**
+     * Each WGraph_Mapped contains few fields:
+     * keys, offsets, targets, weights : the mapped CSR arrays (see WGraph_CSR).
+     * slots, mask : the mapped key table and its size minus one.
+     * tags, infoIndex, info : the mapped meta data of the nodes.
+     * n, numOfEdge, mc, maxWeight, integerWeights : the fields of the header.
+     */
+    private final IntBuffer keys;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final DoubleBuffer weights;
+    private final IntBuffer slots;
+    private final int mask;
+    private final DoubleBuffer tags;
+    private final IntBuffer infoIndex;
+    private final ByteBuffer info;
+    private final int n;
+    private final int numOfEdge;
+    private final int mc;
+    private final double maxWeight;
+    private final boolean integerWeights;
+
+    /**
+     * This private constructor wraps the mapped header and sections of a file.
+     *
+     * @param header  - the mapped header
+     * @param section - the mapped sections, in the order of the layout
+     */
+    private WGraph_Mapped(ByteBuffer header, ByteBuffer[] section) {
+        this.n = header.getInt(8);
+        this.numOfEdge = header.getInt(12);
+        this.mask = header.getInt(16) - 1;
+        this.mc = header.getInt(20);
+        this.integerWeights = header.getInt(24) != 0;
+        this.maxWeight = header.getDouble(32);
+        this.keys = section[0].asIntBuffer();
+        this.offsets = section[1].asIntBuffer();
+        this.targets = section[2].asIntBuffer();
+        this.weights = section[3].asDoubleBuffer();
+        this.slots = section[4].asIntBuffer();
+        this.tags = section[5].asDoubleBuffer();
+        this.infoIndex = section[6].asIntBuffer();
+        this.info = section[7];
+    }
+
+    /**
+     * This method writes the given graph to a file in the layout of this class.
+     * The graph is frozen into a WGraph_CSR (unless it already is one), and a temporary file is filled through
+     * READ_WRITE mappings of its sections and then moved over the given file,
+     * so processes that still map the old file keep reading the old graph.
+     * Complexity: O(|V|+|E|).
+     *
+     * @param g    - a weighted graph
+     * @param file - the file name (may include a relative path).
+     * @throws IOException if the file could not be written, or a section is too big to be mapped
+     */
+    public static void write(weighted_graph g, String file) throws IOException {
+        WGraph_CSR csr = g instanceof WGraph_CSR ? (WGraph_CSR) g : new WGraph_CSR(g);
+        int n = csr.nodeSize();
+        int m = csr.edgeSize();
+        int cap = Integer.highestOneBit(Math.max(2, n) * 2 - 1) * 2;
+        byte[][] bytes = new byte[n][];
+        long infoLength = 0;
+        for (int id = 0; id < n; id++) {
+            String s = csr.nodeAt(id).getInfo();
+            if (s != null) {
+                bytes[id] = s.getBytes(StandardCharsets.UTF_8);
+                infoLength += bytes[id].length;
+            }
+        }
+        if (infoLength > Integer.MAX_VALUE) {
+            throw new IOException("The info of the nodes is too big to be mapped");
+        }
+        long[] at = layout(n, m, cap, (int) infoLength);
+        Path path = Paths.get(file);
+        Path tmp = Paths.get(file + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer[] section = new MappedByteBuffer[SECTIONS];
+            for (int s = 0; s < SECTIONS; s++) {
+                section[s] = map(ch, FileChannel.MapMode.READ_WRITE, at[s], at[s + 1]);
+            }
+            IntBuffer keys = section[0].asIntBuffer();
+            IntBuffer offsets = section[1].asIntBuffer();
+            IntBuffer targets = section[2].asIntBuffer();
+            DoubleBuffer weights = section[3].asDoubleBuffer();
+            IntBuffer slots = section[4].asIntBuffer();
+            DoubleBuffer tags = section[5].asDoubleBuffer();
+            IntBuffer infoIndex = section[6].asIntBuffer();
+            indexed_graph.edge_cursor c = csr.edges();
+            int e = 0;
+            int start = 0;
+            offsets.put(0, 0);
+            for (int id = 0; id < n; id++) {
+                int key = csr.keyOf(id);
+                keys.put(id, key);
+                c.reset(id);
+                while (c.next()) {
+                    targets.put(e, c.target());
+                    weights.put(e++, c.weight());
+                }
+                offsets.put(id + 1, e);
+                int slot = hash(key) & (cap - 1);
+                while (slots.get(slot) != 0) {
+                    slot = (slot + 1) & (cap - 1);
+                }
+                slots.put(slot, id + 1);
+                node_info v = csr.nodeAt(id);
+                tags.put(id, v.getTag());
+                infoIndex.put(2 * id, bytes[id] == null ? -1 : start);
+                infoIndex.put(2 * id + 1, bytes[id] == null ? 0 : bytes[id].length);
+                if (bytes[id] != null) {
+                    section[7].put(start, bytes[id]);
+                    start += bytes[id].length;
+                }
+            }
+            MappedByteBuffer header = map(ch, FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, n);
+            header.putInt(12, m);
+            header.putInt(16, cap);
+            header.putInt(20, csr.getMC());
+            header.putInt(24, csr.integerWeights() ? 1 : 0);
+            header.putInt(28, (int) infoLength);
+            header.putDouble(32, csr.maxWeight());
+            for (MappedByteBuffer b : section) {
+                b.force();
+            }
+            header.force();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * This method maps a file that was written by write.
+     * Only the header is read, the sections are read by the operating system when they are first used.
+     * Complexity: O(1).
+     *
+     * @param file - file name
+     * @return a new read-only WGraph_Mapped
+     * @throws IOException if the file could not be mapped, or it is not in this layout
+     */
+    public static WGraph_Mapped open(String file) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            if (ch.size() < HEADER) {
+                throw new IOException(file + " is not a mapped weighted graph file");
+            }
+            ByteBuffer header = map(ch, FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a mapped weighted graph file");
+            }
+            int version = header.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of the mapped weighted graph layout");
+            }
+            int n = header.getInt(8);
+            int m = header.getInt(12);
+            int cap = header.getInt(16);
+            int infoLength = header.getInt(28);
+            if (n < 0 || m < 0 || infoLength < 0 || cap <= n || Integer.bitCount(cap) != 1) {
+                throw new IOException(file + " is corrupted");
+            }
+            long[] at = layout(n, m, cap, infoLength);
+            if (ch.size() != at[SECTIONS]) {
+                throw new IOException(file + " is corrupted");
+            }
+            ByteBuffer[] section = new ByteBuffer[SECTIONS];
+            for (int s = 0; s < SECTIONS; s++) {
+                section[s] = map(ch, FileChannel.MapMode.READ_ONLY, at[s], at[s + 1]);
+            }
+            return new WGraph_Mapped(header, section);
+        }
+    }
+
+    /**
+     * This method returns true iff the file starts with MAGIC (it was written by write).
+     *
+     * @param file - file name
+     * @return true or false.
+     */
+    public static boolean isMapped(String file) {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (b.hasRemaining() && ch.read(b) > 0) {
+            }
+            return !b.hasRemaining() && b.getInt(0) == MAGIC;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * This private method returns the start of each section of a file (and the size of the file at the end).
+     *
+     * @throws IOException if a section is too big to be mapped
+     */
+    private static long[] layout(int n, int m, int cap, int infoLength) throws IOException {
+        long[] size = {4L * n, 4L * n + 4, 8L * m, 16L * m, 4L * cap, 8L * n, 8L * n, infoLength};
+        long[] at = new long[SECTIONS + 1];
+        at[0] = HEADER;
+        for (int s = 0; s < SECTIONS; s++) {
+            if (size[s] > Integer.MAX_VALUE) {
+                throw new IOException("The graph is too big to be mapped");
+            }
+            at[s + 1] = (at[s] + size[s] + 7) & ~7L;
+        }
+        return at;
+    }
+
+    /**
+     * This private method maps the bytes [from, to) of the channel in little-endian order.
+     */
+    private static MappedByteBuffer map(FileChannel ch, FileChannel.MapMode mode, long from, long to) throws IOException {
+        MappedByteBuffer b = ch.map(mode, from, to - from);
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        return b;
+    }
+
+    /**
+     * This private method returns the hash of a key in the key table.
+     * It is a part of the layout, so it must never change within a VERSION.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * This method returns the bound of the node indexes, which is the amount of nodes.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int idBound() {
+        return this.n;
+    }
+
+    /**
+     * This method returns the amount of edges of the node with the given index.
+     *
+     * @param id - an index 0..n-1
+     * @return the degree
+     */
+    @Override
+    public int degree(int id) {
+        return this.offsets.get(id + 1) - this.offsets.get(id);
+    }
+
+    /**
+     * This method returns the biggest edge weight (0 for a graph without edges).
+     *
+     * @return the biggest weight
+     */
+    @Override
+    public double maxWeight() {
+        return this.maxWeight;
+    }
+
+    /**
+     * This method returns true iff the weight of every edge is an integer.
+     *
+     * @return true or false.
+     */
+    @Override
+    public boolean integerWeights() {
+        return this.integerWeights;
+    }
+
+    /**
+     * This method returns the index of the node with the given key, by probing the mapped key table.
+     * Complexity: O(1) on average.
+     *
+     * @param key - the node unique key.
+     * @return the index, -1 if none.
+     */
+    @Override
+    public int idOf(int key) {
+        int slot = hash(key) & this.mask;
+        int id;
+        while ((id = this.slots.get(slot)) != 0) {
+            if (this.keys.get(id - 1) == key) {
+                return id - 1;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns the key of the node with the given index.
+     *
+     * @param id - an index 0..n-1
+     * @return the key of the node
+     */
+    @Override
+    public int keyOf(int id) {
+        return this.keys.get(id);
+    }
+
+    /**
+     * This method returns the node_info of the node with the given index.
+     *
+     * @param id - an index 0..n-1
+     * @return the node_info
+     */
+    @Override
+    public node_info nodeAt(int id) {
+        return new vertex(id);
+    }
+
+    /**
+     * This method returns a new cursor over the mapped rows.
+     *
+     * @return edge_cursor
+     */
+    @Override
+    public edge_cursor edges() {
+        return new edge_cursor() {
+            private int e;
+            private int end;
+
+            @Override
+            public void reset(int id) {
+                this.e = offsets.get(id) - 1;
+                this.end = offsets.get(id + 1);
+            }
+
+            @Override
+            public boolean next() {
+                return ++this.e < this.end;
+            }
+
+            @Override
+            public int target() {
+                return targets.get(this.e);
+            }
+
+            @Override
+            public double weight() {
+                return weights.get(this.e);
+            }
+        };
+    }
+
+    /**
+     * This private method returns the position of the edge id1-->id2 in the targets section.
+     * The neighbors of each node are sorted, so the method uses binary search.
+     * Complexity: O(log(k)), k - being the degree of id1.
+     *
+     * @param id1 - an index
+     * @param id2 - an index
+     * @return the position of the edge, -1 if none.
+     */
+    private int edgeAt(int id1, int id2) {
+        int lo = this.offsets.get(id1);
+        int hi = this.offsets.get(id1 + 1) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int t = this.targets.get(mid);
+            if (t < id2) {
+                lo = mid + 1;
+            }
+            else if (t > id2) {
+                hi = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method return the node_info by the node unique key.
+     *
+     * @param key - the node unique key.
+     * @return the node_data, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int id = idOf(key);
+        return id < 0 ? null : new vertex(id);
+    }
+
+    /**
+     * This method returns true iff (if and only if) there is an edge between node1 and node2.
+     * Complexity: O(log(k)), k - being the degree of node1.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     * @return true or false.
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        int id1 = idOf(node1);
+        int id2 = idOf(node2);
+        return id1 >= 0 && id2 >= 0 && edgeAt(id1, id2) >= 0;
+    }
+
+    /**
+     * This method returns the weight of the edge (node1, node2).
+     * In case there is no such edge : return -1
+     * Complexity: O(log(k)), k - being the degree of node1.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     * @return double.
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        int id1 = idOf(node1);
+        int id2 = idOf(node2);
+        if (id1 < 0 || id2 < 0) {
+            throw new RuntimeException("One or more of your keys does not exist in the graph");
+        }
+        int e = edgeAt(id1, id2);
+        return e < 0 ? -1 : this.weights.get(e);
+    }
+
+    /**
+     * A mapped graph can not be changed.
+     *
+     * @param key - the key of the new node
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+    }
+
+    /**
+     * A mapped graph can not be changed.
+     *
+     * @param node1 - node's key
+     * @param node2 - node's key
+     * @param w     - edge length
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+    }
+
+    /**
+     * This method returns a Collection representing all the nodes in the graph.
+     * The nodes are created on the fly while iterating, in index order.
+     * Complexity: this method run in O(1) time.
+     *
+     * @return Collection of nodes
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new rowIterator(0, n, false);
+            }
+
+            @Override
+            public int size() {
+                return n;
+            }
+        };
+    }
+
+    /**
+     * This method returns a collection of the neighbors of the node by his key.
+     * Complexity: this method run in O(1) time.
+     *
+     * @param node_id - key
+     * @return Collection of nodes
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        int id = idOf(node_id);
+        if (id < 0) {
+            throw new RuntimeException("This graph does not contain key " + node_id);
+        }
+        int from = this.offsets.get(id);
+        int to = this.offsets.get(id + 1);
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new rowIterator(from, to, true);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    /**
+     * A mapped graph can not be changed.
+     *
+     * @param key - the key of the node to be deleted
+     * @return nothing, always throws.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+    }
+
+    /**
+     * A mapped graph can not be changed.
+     *
+     * @param node1 - a key(int)
+     * @param node2 - a key(int)
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+    }
+
+    /**
+     * This method returns the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph
+     */
+    @Override
+    public int nodeSize() {
+        return this.n;
+    }
+
+    /**
+     * This method returns the number of edges (unidirectional graph).
+     *
+     * @return the number of edges in the graph
+     */
+    @Override
+    public int edgeSize() {
+        return this.numOfEdge;
+    }
+
+    /**
+     * This method returns the Mode Count of the original graph at the moment it was written.
+     *
+     * @return the mode count
+     */
+    @Override
+    public int getMC() {
+        return this.mc;
+    }
+
+    /**
+     * toString method
+     */
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        for (int id = 0; id < this.n; id++) {
+            if (id > 0) {
+                str.append(" |");
+            }
+            str.append(new vertex(id));
+        }
+        return str.toString();
+    }
+
+    /**
+     * This method returns true if the arguments are equal to each other and false otherwise.
+     * Equality is determined by comparing the nodes (key, info and tag) and the weighted edges of the two graphs.
+     *
+     * @param o - an object
+     * @return true if the arguments are equal to each other and false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WGraph_Mapped)) return false;
+        WGraph_Mapped that = (WGraph_Mapped) o;
+        if (this.numOfEdge != that.numOfEdge || this.n != that.n) {
+            return false;
+        }
+        for (int id = 0; id < this.n; id++) {
+            int id2 = that.idOf(this.keys.get(id));
+            if (id2 < 0 || !Objects.equals(info(id), that.info(id2)) || this.tags.get(id) != that.tags.get(id2)
+                    || degree(id) != that.degree(id2)) {
+                return false;
+            }
+            for (int e = this.offsets.get(id); e < this.offsets.get(id + 1); e++) {
+                int t2 = that.idOf(this.keys.get(this.targets.get(e)));
+                int e2 = t2 < 0 ? -1 : that.edgeAt(id2, t2);
+                if (e2 < 0 || that.weights.get(e2) != this.weights.get(e)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**Override hashcode because equals changed.
+     *
+     * @return hashcode
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.n, this.numOfEdge);
+    }
+
+    /**
+     * This private method decodes the info of the node with the given index from the info section.
+     */
+    private String info(int id) {
+        int start = this.infoIndex.get(2 * id);
+        if (start < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[this.infoIndex.get(2 * id + 1)];
+        this.info.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This private inner class iterates over a range of indexes (all the nodes)
+     * or over a range of the targets section (the neighbors of one node).
+     */
+    private class rowIterator implements Iterator<node_info> {
+        private int next;
+        private final int to;
+        private final boolean row;
+
+        rowIterator(int from, int to, boolean row) {
+            this.next = from;
+            this.to = to;
+            this.row = row;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < this.to;
+        }
+
+        @Override
+        public node_info next() {
+            if (this.next >= this.to) {
+                throw new NoSuchElementException();
+            }
+            int i = this.next++;
+            return new vertex(this.row ? targets.get(i) : i);
+        }
+    }
+
+    /**
+     * This private inner class is an implementation of node_info interface.
+     * A vertex is a light view of one index of the mapped graph, its info and tag are read from the mapped sections.
+     */
+    private class vertex implements node_info {
+        private final int id;
+
+        vertex(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int getKey() {
+            return keys.get(this.id);
+        }
+
+        @Override
+        public String getInfo() {
+            return info(this.id);
+        }
+
+        @Override
+        public void setInfo(String s) {
+            throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+        }
+
+        @Override
+        public double getTag() {
+            return tags.get(this.id);
+        }
+
+        @Override
+        public void setTag(double t) {
+            throw new UnsupportedOperationException("WGraph_Mapped is read-only");
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder("[");
+            int end = offsets.get(this.id + 1);
+            for (int e = offsets.get(this.id); e < end; e++) {
+                str.append(keys.get(targets.get(e))).append("(").append(weights.get(e)).append(")");
+                str.append(e == end - 1 ? "]" : ",");
+            }
+            return "{Key:" + keys.get(this.id) + ",Neighbors:" + str + "}";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof vertex)) return false;
+            vertex that = (vertex) o;
+            return this.id == that.id && this.owner() == that.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.id;
+        }
+
+        private WGraph_Mapped owner() {
+            return WGraph_Mapped.this;
+        }
+    }
+}
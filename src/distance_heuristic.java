@@ -0,0 +1,19 @@
+/**
+ * This interface represents a heuristic for goal-directed (A*) shortest path searches.
+ * It estimates the length of the shortest path between two nodes of a graph.
+ * The estimate should be admissible - never bigger than the real distance,
+ * otherwise the A* methods of WGraph_Algo may return a path that is not the shortest one.
+ * An estimate of infinity means that there is no path between the two nodes.
+ * See ALTLandmarks for a heuristic that needs no coordinates.
+ *
+ * @author itai.lashover
+ */
+public interface distance_heuristic {
+    /**
+     * return a lower bound of the length of the shortest path between the two nodes.
+     * @param from - a node key
+     * @param to - a node key
+     * @return
+     */
+    public double estimate(int from, int to);
+}
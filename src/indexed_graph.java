@@ -0,0 +1,94 @@
+/**
+ * This interface represents a weighted graph whose nodes are also numbered by a dense index.
+ * Every node has an index in the range [0, idBound()), the indexes of removed nodes may be reused.
+ * The algorithms (WGraph_Algo) work on indexes, so their private state can be kept in plain arrays
+ * and the neighbors of a node can be scanned by an edge_cursor without allocating.
+ * Implemented by WGraph_DS, WGraph_CSR, WGraph_Mapped and WGraph_Compressed.
+ *
+ * @author itai.lashover
+ */
+interface indexed_graph extends weighted_graph {
+
+    /**
+     * return the bound of the node indexes, every index is smaller than this bound.
+     * @return
+     */
+    public int idBound();
+
+    /**
+     * return the index of the node with the given key.
+     * @param key - the node unique key
+     * @return the index, -1 if none.
+     */
+    public int idOf(int key);
+
+    /**
+     * return the key of the node with the given index.
+     * @param id - the index of an existing node
+     * @return
+     */
+    public int keyOf(int id);
+
+    /**
+     * return the node_info of the node with the given index.
+     * @param id - the index of an existing node
+     * @return
+     */
+    public node_info nodeAt(int id);
+
+    /**
+     * return the amount of edges of the node with the given index.
+     * @param id - the index of an existing node
+     * @return
+     */
+    public int degree(int id);
+
+    /**
+     * return an upper bound of the edge weights (0 for a graph that never had edges).
+     * @return
+     */
+    public double maxWeight();
+
+    /**
+     * return true iff the weight of every edge is an integer.
+     * @return
+     */
+    public boolean integerWeights();
+
+    /**
+     * return a new cursor over the edges of this graph.
+     * A cursor may be reset and reused for any number of nodes.
+     * @return
+     */
+    public edge_cursor edges();
+
+    /**
+     * This interface represents a reusable iterator over the edges of one node:
+     * reset(id); while (next()) { target(); weight(); }
+     */
+    interface edge_cursor {
+        /**
+         * Start iterating the edges of the node with the given index.
+         * @param id - the index of an existing node
+         */
+        public void reset(int id);
+
+        /**
+         * Move to the next edge.
+         * @return false if there are no more edges.
+         */
+        public boolean next();
+
+        /**
+         * return the index of the other end of the current edge.
+         * @return
+         */
+        public int target();
+
+        /**
+         * return the weight of the current edge.
+         * @return
+         */
+        public double weight();
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * This interface represents the priority queue of a shortest path search: int ids (node indexes) with double keys.
+ * Every id is returned by poll at most once per search, with its smallest pushed key.
+ * Implemented by IndexedHeap (any keys), DialQueue (small integer weights) and RadixHeap (monotone keys),
+ * the queue of a search is chosen by its SearchSpace (see WGraph_Algo.Queue).
+ *
+ * @author itai.lashover
+ */
+interface search_queue {
+
+    /**
+     * Empty the queue and make room for ids smaller than the given bound.
+     * @param bound - the bound of the ids
+     */
+    public void reset(int bound);
+
+    /**
+     * return true iff the queue is empty.
+     * @return
+     */
+    public boolean isEmpty();
+
+    /**
+     * return the amount of ids in the queue.
+     * @return
+     */
+    public int size();
+
+    /**
+     * Add the id with the given key, or decrease its key if it is already in the queue.
+     * NOTE: if the id is already in the queue with a smaller (or equal) key nothing is changed.
+     * @param id  - an id smaller than the bound
+     * @param key - the key (not negative)
+     */
+    public void push(int id, double key);
+
+    /**
+     * return the smallest key in the queue (the queue must not be empty).
+     * @return
+     */
+    public double minKey();
+
+    /**
+     * Remove the id with the smallest key from the queue and return it (the queue must not be empty).
+     * @return
+     */
+    public int poll();
+}
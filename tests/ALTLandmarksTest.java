@@ -0,0 +1,136 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ALTLandmarksTest {
+
+    @Test
+    void admissible() {
+        weighted_graph g = WGraph_DSTest.graph_creator(60, 200, 1);
+        g.addNode(100);  // not connected to the rest of the graph
+        ALTLandmarks alt = new ALTLandmarks(g, 4);
+        assertEquals(4, alt.getLandmarks().length);
+        double[][] fw = WGraph_AlgoTest.floydWarshall(g, 101);
+        for (int a = 0; a < 60; a++) {
+            for (int b = 0; b < 60; b++) {
+                assertTrue(alt.estimate(a, b) <= fw[a][b] + 0.0001);
+            }
+            assertEquals(Double.POSITIVE_INFINITY, alt.estimate(a, 100));
+        }
+        assertEquals(0, alt.estimate(0, 12345));
+    }
+
+    @Test
+    void aStarSameAsDijkstra() {
+        Random rnd = new Random(3);
+        weighted_graph g = WGraph_DSTest.graph_creator(500, 2000, 3);
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        ga.init(g);
+        WGraph_Algo algo = (WGraph_Algo) ga;
+        ALTLandmarks alt = new ALTLandmarks(g, 8);
+        for (int i = 0; i < 200; i++) {
+            int src = rnd.nextInt(500);
+            int dest = rnd.nextInt(500);
+            double d = algo.shortestPathDist(src, dest);
+            assertEquals(d, algo.shortestPathDist(src, dest, alt), 0.0001);
+            PathResult r = algo.shortestPathResult(src, dest, alt);
+            assertEquals(d, r.getDist(), 0.0001);
+            if (d >= 0) {
+                List<node_info> path = algo.shortestPath(src, dest, alt);
+                assertEquals(src, path.get(0).getKey());
+                assertEquals(dest, path.get(path.size() - 1).getKey());
+                assertEquals(path.size(), r.getPath().length);
+            }
+        }
+        // the zero heuristic is plain Dijkstra
+        assertEquals(algo.shortestPathDist(1, 2), algo.shortestPathDist(1, 2, (a, b) -> 0), 0.0001);
+    }
+
+    @Test
+    void noPath() {
+        weighted_graph g = new WGraph_DS();
+        g.addNode(1);
+        g.addNode(2);
+        g.addNode(3);
+        g.connect(1, 2, 4);
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        ALTLandmarks alt = new ALTLandmarks(g, 2);
+        assertEquals(-1, algo.shortestPathDist(1, 3, alt));
+        assertNull(algo.shortestPath(1, 3, alt));
+        assertFalse(algo.shortestPathResult(1, 3, alt).hasPath());
+        assertEquals(4, algo.shortestPathDist(2, 1, alt));
+        assertEquals(0, algo.shortestPathDist(3, 3, alt));
+    }
+
+    @Test
+    void saveAndLoad() {
+        weighted_graph g = WGraph_DSTest.graph_creator(100, 400, 1);
+        ALTLandmarks alt = new ALTLandmarks(g, 5);
+        String file = "alt_test.bin";
+        assertTrue(alt.save(file));
+        ALTLandmarks loaded = ALTLandmarks.load(file);
+        new File(file).delete();
+        assertNotNull(loaded);
+        assertArrayEquals(alt.getLandmarks(), loaded.getLandmarks());
+        assertTrue(loaded.matches(g));
+        for (int a = 0; a < 100; a += 7) {
+            for (int b = 0; b < 100; b += 3) {
+                assertEquals(alt.estimate(a, b), loaded.estimate(a, b));
+            }
+        }
+        g.removeEdge(0, g.getV(0).iterator().next().getKey());
+        assertFalse(loaded.matches(g));
+        assertNull(ALTLandmarks.load("no_such_file.bin"));
+    }
+
+    @Test
+    void corruptedCounts() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(50, 150, 3);
+        assertTrue(new ALTLandmarks(g, 3).save("alt_test.bin"));
+        // the amount of nodes (offset 20) and the amount of landmarks (offset 24)
+        int[][] bad = {{20, -1}, {24, -5}, {20, Integer.MAX_VALUE}, {24, 1 << 30}, {20, 51}};
+        for (int[] b : bad) {
+            assertTrue(new ALTLandmarks(g, 3).save("alt_test.bin"));
+            try (RandomAccessFile f = new RandomAccessFile("alt_test.bin", "rw")) {
+                f.seek(b[0]);
+                f.writeInt(b[1]);
+            }
+            assertNull(ALTLandmarks.load("alt_test.bin"));
+        }
+        assertTrue(new ALTLandmarks(g, 3).save("alt_test.bin"));
+        try (RandomAccessFile f = new RandomAccessFile("alt_test.bin", "rw")) {
+            f.setLength(f.length() - 8);
+        }
+        assertNull(ALTLandmarks.load("alt_test.bin"));
+        new File("alt_test.bin").delete();
+    }
+
+    @Test
+    void matchesAfterGraphRestart() {
+        // the landmarks and the graph are both saved, and both loaded by a new process
+        weighted_graph g = WGraph_DSTest.graph_creator(100, 400, 2);
+        g.removeNode(3);
+        ALTLandmarks alt = new ALTLandmarks(g, 4);
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        assertTrue(algo.save("alt_graph.wgb"));
+        assertTrue(alt.save("alt_test.bin"));
+        WGraph_Algo restarted = new WGraph_Algo();
+        assertTrue(restarted.load("alt_graph.wgb"));
+        ALTLandmarks loaded = ALTLandmarks.load("alt_test.bin");
+        new File("alt_test.bin").delete();
+        new File("alt_graph.wgb").delete();
+        assertNotNull(loaded);
+        assertEquals(g.getMC(), restarted.getGraph().getMC());
+        assertTrue(loaded.matches(restarted.getGraph()));
+        restarted.getGraph().connect(1, 2, 1000);
+        assertFalse(loaded.matches(restarted.getGraph()));
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitsetBFSTest {
+
+    @Test
+    void sameAsPlainBFS() {
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(3000, 4000, 5);
+        for (int i = 0; i < 3000; i += 17) {
+            g.removeNode(i);   // free indexes inside the bitset
+        }
+        g.addNode(5000);
+        int[] queue = new int[g.idBound()];
+        for (int src = 1; src < 3000; src += 101) {
+            if (g.getNode(src) == null) {
+                continue;
+            }
+            int s = g.idOf(src);
+            int[] level = levels(g, s);
+            int reached = 0;
+            for (int l : level) {
+                reached += l >= 0 ? 1 : 0;
+            }
+            assertEquals(reached, BitsetBFS.reach(g, s, null, queue));
+            for (int dest = 2; dest < 3000; dest += 53) {
+                if (g.getNode(dest) != null) {
+                    assertEquals(level[g.idOf(dest)], BitsetBFS.hops(g, s, g.idOf(dest), queue));
+                }
+            }
+            assertEquals(-1, BitsetBFS.hops(g, s, g.idOf(5000), queue));
+        }
+    }
+
+    @Test
+    void parallelLevels() {
+        // big enough for the parallel top-down and bottom-up steps
+        Random rnd = new Random(3);
+        int n = 300000;
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < n; i++) {
+            g.addNode(i);
+        }
+        for (int i = 1; i < n - 10; i++) {
+            g.connect(i, rnd.nextInt(i), 1);
+            g.connect(i, rnd.nextInt(n - 10), 1);
+        }
+        WGraph_CSR csr = new WGraph_CSR(g);
+        int[] queue = new int[n];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int expected = BitsetBFS.reach(csr, 0, null, queue);
+        assertEquals(n - 10, expected);
+        assertEquals(expected, BitsetBFS.reach(csr, 0, pool, queue));
+        pool.shutdown();
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(csr);
+        assertFalse(algo.isConnected());
+        int[] level = levels(csr, csr.idOf(7));
+        for (int i = 0; i < n; i += 9973) {
+            assertEquals(level[csr.idOf(i)], algo.hopDistance(7, i));
+        }
+    }
+
+    /**
+     * Returns the level of each index from s by a plain BFS, -1 if it was not reached.
+     */
+    private static int[] levels(indexed_graph g, int s) {
+        int[] level = new int[g.idBound()];
+        java.util.Arrays.fill(level, -1);
+        ArrayDeque<Integer> q = new ArrayDeque<>();
+        level[s] = 0;
+        q.add(s);
+        indexed_graph.edge_cursor c = g.edges();
+        while (!q.isEmpty()) {
+            int u = q.poll();
+            c.reset(u);
+            while (c.next()) {
+                if (level[c.target()] < 0) {
+                    level[c.target()] = level[u] + 1;
+                    q.add(c.target());
+                }
+            }
+        }
+        return level;
+    }
+}
@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaSteppingTest {
+
+    @Test
+    void sameAsDijkstra() {
+        weighted_graph g = WGraph_DSTest.graph_creator(3000, 12000, 8);
+        g.addNode(5000);
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ShortestPathTree auto = algo.deltaStepping(0);
+        ShortestPathTree small = algo.deltaStepping(0, 0.5, pool);
+        ShortestPathTree big = algo.deltaStepping(0, 1000, pool);
+        pool.shutdown();
+        assertEquals(0, auto.getSource());
+        for (node_info n : g.getV()) {
+            double d = algo.shortestPathDist(0, n.getKey());
+            assertEquals(d, auto.getDist(n.getKey()));
+            assertEquals(d, small.getDist(n.getKey()));
+            assertEquals(d, big.getDist(n.getKey()));
+        }
+        assertFalse(auto.reached(5000));
+        assertEquals(Double.POSITIVE_INFINITY, auto.getDistances()[auto.indexOf(5000)]);
+        assertEquals(0, auto.getDistances()[auto.indexOf(0)]);
+        assertEquals(5000, auto.keyAt(auto.indexOf(5000)));
+    }
+
+    @Test
+    void parallelFrontiers() {
+        // a grid has wide frontiers, so the relaxations are split between the threads
+        Random rnd = new Random(2);
+        weighted_graph g = new WGraph_DS();
+        int side = 150;
+        for (int i = 0; i < side * side; i++) {
+            g.addNode(i);
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) g.connect(r * side + c, r * side + c + 1, rnd.nextInt(5));
+                if (r + 1 < side) g.connect(r * side + c, (r + 1) * side + c, rnd.nextDouble() * 20);
+            }
+        }
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        ShortestPathTree t = algo.deltaStepping(side * side / 2, 100, ForkJoinPool.commonPool());
+        for (int i = 0; i < side * side; i += 97) {
+            assertEquals(algo.shortestPathDist(side * side / 2, i), t.getDist(i));
+        }
+        assertThrows(RuntimeException.class, () -> algo.deltaStepping(-3));
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedHeapTest {
+
+    @Test
+    void pollInOrder() {
+        Random rnd = new Random(1);
+        IndexedHeap heap = new IndexedHeap(4);
+        heap.reset(1000);
+        double[] key = new double[1000];
+        for (int i = 0; i < 1000; i++) {
+            key[i] = rnd.nextDouble() * 100;
+            heap.push(i, key[i]);
+        }
+        double[] sorted = key.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(sorted[i], heap.minKey());
+            int id = heap.poll();
+            assertEquals(sorted[i], key[id]);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void decreaseKey() {
+        IndexedHeap heap = new IndexedHeap(4);
+        heap.reset(10);
+        for (int i = 0; i < 10; i++) {
+            heap.push(i, 10 + i);
+        }
+        heap.push(7, 1);
+        heap.push(3, 50);  // a bigger key is ignored
+        assertEquals(10, heap.size());
+        assertEquals(7, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(3, heap.poll());
+    }
+
+    @Test
+    void resetClearsOnlyWhatIsLeft() {
+        IndexedHeap heap = new IndexedHeap(2);
+        heap.reset(5);
+        heap.push(4, 1);
+        heap.push(2, 2);
+        heap.reset(5);
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(4));
+        assertFalse(heap.contains(2));
+        heap.push(2, 3);
+        assertTrue(heap.contains(2));
+        assertEquals(3, heap.minKey());
+    }
+
+    @Test
+    void updateBothWays() {
+        IndexedHeap heap = new IndexedHeap(4);
+        heap.reset(10);
+        for (int i = 0; i < 10; i++) {
+            heap.push(i, i);
+        }
+        heap.update(0, 100);  // a bigger key moves the id down
+        heap.update(9, -1);
+        heap.update(5, 5);
+        assertEquals(9, heap.poll());
+        for (int i = 1; i < 9; i++) {
+            assertEquals(i, heap.poll());
+        }
+        assertEquals(100, heap.minKey());
+        assertEquals(0, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Random;
+
+/**
+ * A benchmark of the priority queues of WGraph_Algo (see WGraph_Algo.Queue): the 4-ary heap, Dial's buckets
+ * and the radix heap, on a grid and on a random graph, with small integer weights and with double weights.
+ * Every case runs full single source searches (shortestPathTree) and point to point queries (shortestPathDist).
+ * Run: java SearchQueueBenchmark [side] [queries]
+ *
+ * @author itai.lashover
+ */
+public class SearchQueueBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        run("grid, integer weights 1..100", grid(side, true), queries);
+        run("grid, double weights", grid(side, false), queries);
+        run("random, integer weights 1..100", random(side * side, 4, true), queries);
+        run("random, double weights", random(side * side, 4, false), queries);
+    }
+
+    private static void run(String name, weighted_graph g, int queries) {
+        System.out.println(name + " (|V|=" + g.nodeSize() + ", |E|=" + g.edgeSize() + ")");
+        WGraph_Algo.Queue[] kinds = {WGraph_Algo.Queue.HEAP, WGraph_Algo.Queue.DIAL, WGraph_Algo.Queue.RADIX};
+        double check = -1;
+        for (int round = 0; round < 2; round++) {
+            for (WGraph_Algo.Queue kind : kinds) {
+                WGraph_Algo algo = new WGraph_Algo();
+                algo.init(g);
+                algo.setMode(WGraph_Algo.Mode.UNIDIRECTIONAL);
+                algo.setQueue(kind);
+                Random rnd = new Random(1);
+                long t0 = System.nanoTime();
+                double sum = 0;
+                for (int i = 0; i < 10; i++) {
+                    sum += algo.shortestPathTree(rnd.nextInt(g.nodeSize())).size();
+                }
+                long t1 = System.nanoTime();
+                for (int i = 0; i < queries; i++) {
+                    sum += algo.shortestPathDist(rnd.nextInt(g.nodeSize()), rnd.nextInt(g.nodeSize()));
+                }
+                long t2 = System.nanoTime();
+                if (check == -1) {
+                    check = sum;
+                }
+                else if (Math.abs(check - sum) > 1e-6 * Math.abs(check)) {
+                    throw new IllegalStateException(kind + " gave other distances");
+                }
+                if (round == 1) {
+                    System.out.printf("  %-6s tree: %8.2f ms/search   point to point: %8.3f ms/query%n",
+                            kind, (t1 - t0) / 1e6 / 10, (t2 - t1) / 1e6 / queries);
+                }
+            }
+        }
+    }
+
+    private static weighted_graph grid(int side, boolean integers) {
+        Random rnd = new Random(7);
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < side * side; i++) {
+            g.addNode(i);
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) g.connect(r * side + c, r * side + c + 1, weight(rnd, integers));
+                if (r + 1 < side) g.connect(r * side + c, (r + 1) * side + c, weight(rnd, integers));
+            }
+        }
+        return g;
+    }
+
+    private static weighted_graph random(int n, int degree, boolean integers) {
+        Random rnd = new Random(7);
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < n; i++) {
+            g.addNode(i);
+        }
+        for (int i = 1; i < n; i++) {
+            g.connect(i, rnd.nextInt(i), weight(rnd, integers));
+        }
+        while (g.edgeSize() < (long) n * degree / 2) {
+            g.connect(rnd.nextInt(n), rnd.nextInt(n), weight(rnd, integers));
+        }
+        return g;
+    }
+
+    private static double weight(Random rnd, boolean integers) {
+        return integers ? 1 + rnd.nextInt(100) : 1 + rnd.nextDouble() * 99;
+    }
+}
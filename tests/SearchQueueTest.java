@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchQueueTest {
+
+    @Test
+    void monotoneQueues() {
+        DialQueue dial = new DialQueue();
+        dial.setMaxWeight(10);
+        for (search_queue q : new search_queue[]{dial, new RadixHeap()}) {
+            for (int round = 0; round < 2; round++) {
+                q.reset(20);
+                q.push(3, 7);
+                q.push(5, 2);
+                q.push(8, 9);
+                q.push(3, 4);   // decrease-key
+                q.push(5, 6);   // a bigger key is ignored
+                assertEquals(3, q.size());
+                assertEquals(2, q.minKey());
+                assertEquals(5, q.poll());
+                q.push(9, 4);
+                assertEquals(4, q.minKey());
+                int a = q.poll();
+                int b = q.poll();
+                assertTrue((a == 3 && b == 9) || (a == 9 && b == 3));
+                assertEquals(9, q.minKey());
+                assertEquals(8, q.poll());
+                assertTrue(q.isEmpty());
+            }
+        }
+        RadixHeap radix = new RadixHeap();
+        radix.reset(5);
+        radix.push(1, 3.5);
+        radix.poll();
+        assertThrows(IllegalStateException.class, () -> radix.push(2, 1));
+    }
+
+    @Test
+    void sameDistances() {
+        Random rnd = new Random(4);
+        weighted_graph ints = new WGraph_DS();
+        weighted_graph doubles = new WGraph_DS();
+        for (int i = 0; i < 2000; i++) {
+            ints.addNode(i);
+            doubles.addNode(i);
+        }
+        while (ints.edgeSize() < 6000) {
+            int a = rnd.nextInt(2000);
+            int b = rnd.nextInt(2000);
+            ints.connect(a, b, rnd.nextInt(20));
+            doubles.connect(a, b, rnd.nextDouble() * 20);
+        }
+        for (weighted_graph g : new weighted_graph[]{ints, doubles, new WGraph_CSR(ints)}) {
+            WGraph_Algo heap = new WGraph_Algo();
+            heap.init(g);
+            heap.setQueue(WGraph_Algo.Queue.HEAP);
+            ShortestPathTree expected = heap.shortestPathTree(0);
+            for (WGraph_Algo.Queue kind : WGraph_Algo.Queue.values()) {
+                WGraph_Algo algo = new WGraph_Algo();
+                algo.init(g);
+                algo.setQueue(kind);
+                assertEquals(kind, algo.getQueue());
+                ShortestPathTree t = algo.shortestPathTree(0);
+                for (int i = 0; i < 2000; i++) {
+                    assertEquals(expected.getDist(i), t.getDist(i));
+                }
+                algo.setMode(WGraph_Algo.Mode.BIDIRECTIONAL);
+                for (int i = 1; i < 2000; i += 37) {
+                    assertEquals(expected.getDist(i), algo.shortestPathDist(0, i), 0.000001);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_AlgoCacheTest {
+
+    @Test
+    void hitsAndMisses() {
+        weighted_graph g = WGraph_DSTest.graph_creator(100, 300, 1);
+        WGraph_AlgoCache cache = new WGraph_AlgoCache();
+        cache.init(g);
+        weighted_graph_algorithms algo = new WGraph_Algo();
+        algo.init(g);
+        assertEquals(algo.shortestPathDist(3, 70), cache.shortestPathDist(3, 70));
+        assertEquals(1, cache.getMisses());
+        assertEquals(algo.shortestPathDist(3, 70), cache.shortestPathDist(3, 70));
+        assertEquals(1, cache.getHits());
+        // the other direction is an entry of its own, its length is summed from 70
+        List<node_info> path = cache.shortestPath(70, 3);
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+        assertEquals(70, path.get(0).getKey());
+        assertEquals(3, path.get(path.size() - 1).getKey());
+        assertEquals(algo.shortestPath(3, 70).size(), path.size());
+        assertEquals(algo.shortestPathDist(70, 3), cache.shortestPathDist(70, 3));
+        assertEquals(2, cache.getHits());
+        // after one direction was cached, the other one is still the result of WGraph_Algo to the last bit
+        for (int i = 0; i < 100; i += 3) {
+            for (int j = 0; j < 100; j += 7) {
+                cache.shortestPathDist(i, j);
+                assertEquals(algo.shortestPathDist(j, i), cache.shortestPathDist(j, i));
+            }
+        }
+    }
+
+    @Test
+    void invalidatedByChanges() {
+        weighted_graph g = WGraph_DSTest.graph_creator(50, 100, 1);
+        WGraph_AlgoCache cache = new WGraph_AlgoCache();
+        cache.init(g);
+        cache.shortestPathDist(0, 1);
+        cache.shortestPathDist(0, 2);
+        assertEquals(2, cache.size());
+        g.connect(0, 1, 0.0001);
+        assertEquals(0.0001, cache.shortestPathDist(0, 1));
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(1, cache.size());
+        g.removeNode(2);
+        assertEquals(0.0001, cache.shortestPathDist(0, 1));
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(0, cache.getHits());
+        cache.init(WGraph_DSTest.graph_creator(5, 0, 1));
+        assertEquals(0, cache.size());
+        assertEquals(-1, cache.shortestPathDist(0, 1));
+    }
+
+    @Test
+    void bounded() {
+        weighted_graph g = WGraph_DSTest.graph_creator(200, 600, 2);
+        WGraph_AlgoCache small = new WGraph_AlgoCache(10, Long.MAX_VALUE);
+        small.init(g);
+        for (int i = 0; i < 50; i++) {
+            small.shortestPathDist(0, i);
+        }
+        assertEquals(10, small.size());
+        assertEquals(40, small.getEvictions());
+        small.shortestPathDist(0, 49);  // the most recent one is still there
+        assertEquals(1, small.getHits());
+        small.shortestPathDist(0, 0);  // the least recent one was evicted
+        assertEquals(51, small.getMisses());
+
+        WGraph_AlgoCache tiny = new WGraph_AlgoCache(1000, 2000);
+        tiny.init(g);
+        for (int i = 0; i < 100; i++) {
+            tiny.shortestPathDist(i, 199 - i);
+            assertTrue(tiny.getBytes() <= 2000);
+        }
+        assertTrue(tiny.getEvictions() > 0);
+    }
+}
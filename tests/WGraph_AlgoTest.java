@@ -1,8 +1,18 @@
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.FileInputStream;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -89,6 +99,24 @@ class WGraph_AlgoTest {
 
     }
 
+    @Test
+    void shortestPathResult() {
+        g = myGraph();
+        WGraph_Algo g0 = new WGraph_Algo();
+        g0.init(g);
+        PathResult r = g0.shortestPathResult(0, 9);
+        assertEquals(10.4, r.getDist(), 0.000001);
+        int expected[] = {0, 6, 5, 4, 7, 10, 9};
+        assertArrayEquals(expected, r.getPath());
+        assertArrayEquals(new int[]{4}, g0.shortestPathResult(4, 4).getPath());
+        g.addNode(20);
+        PathResult none = g0.shortestPathResult(0, 20);
+        assertFalse(none.hasPath());
+        assertEquals(-1, none.getDist());
+        assertNull(g0.shortestPath(0, 20));
+        assertEquals(-1, g0.shortestPathDist(0, 20));
+    }
+
     @Test
     void saveAndLoad() {
         g = WGraph_DSTest.graph_creator(30,30*4,1);
@@ -107,6 +135,334 @@ class WGraph_AlgoTest {
     }
 
 
+    @Test
+    void saveAsync() throws Exception {
+        g = WGraph_DSTest.graph_creator(2000, 8000, 2);
+        WGraph_CSR before = new WGraph_CSR(g);
+        WGraph_Algo g0 = new WGraph_Algo();
+        g0.init(g);
+        CompletableFuture<Boolean> saved = g0.saveAsync("theAsyncGraph.wgb");
+        // the changes after the call are not in the file
+        for (int i = 0; i < 100; i++) {
+            g.removeNode(i);
+        }
+        g.connect(500, 501, 0.5);
+        assertTrue(saved.get());
+        assertFalse(Files.exists(Paths.get("theAsyncGraph.wgb.tmp")));
+        WGraph_Algo g1 = new WGraph_Algo();
+        assertTrue(g1.load("theAsyncGraph.wgb"));
+        assertEquals(before, new WGraph_CSR(g1.getGraph()));
+
+        SaveStats stats = g0.getLastSave();
+        assertEquals("theAsyncGraph.wgb", stats.getFile());
+        assertTrue(stats.isSaved());
+        assertEquals(Files.size(Paths.get("theAsyncGraph.wgb")), stats.getBytes());
+        assertTrue(stats.getSnapshotMillis() <= stats.getMillis());
+
+        assertFalse(g0.saveAsync("noSuchDirectory/theGraph.wgb").get());
+        assertFalse(g0.getLastSave().isSaved());
+        assertEquals(0, g0.getLastSave().getBytes());
+        // a file name that is not a valid path ends the save with false too, not with an exception
+        assertFalse(g0.saveAsync("the\u0000Graph.wgb").get());
+        assertEquals("the\u0000Graph.wgb", g0.getLastSave().getFile());
+        assertFalse(g0.getLastSave().isSaved());
+        WGraph_Compressed c = new WGraph_Compressed(g);
+        assertSame(c, WGraph_Algo.snapshot(c));
+        assertEquals(new WGraph_CSR(g), WGraph_Algo.snapshot(g));
+    }
+
+    @Test
+    void saveSerialized() throws Exception {
+        g = WGraph_DSTest.graph_creator(300, 1000, 4);
+        WGraph_Algo g0 = new WGraph_Algo();
+        g0.init(g);
+        assertTrue(g0.saveSerialized("theGraph.obj"));
+        assertFalse(WGraph_Binary.isBinary("theGraph.obj"));
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream("theGraph.obj"))) {
+            assertEquals(g, in.readObject());
+        }
+        WGraph_Algo g1 = new WGraph_Algo();
+        g1.init(new WGraph_CSR(g));
+        assertTrue(g1.saveSerialized("theGraph.obj"));
+        WGraph_Algo g2 = new WGraph_Algo();
+        assertTrue(g2.load("theGraph.obj"));
+        assertTrue(g2.getGraph() instanceof WGraph_DS);
+        assertEquals(g, g2.getGraph());
+    }
+
+    @Test
+    void queriesDoNotChangeNodes() {
+        g = myGraph();
+        weighted_graph before = new WGraph_DS(g);
+        weighted_graph_algorithms g0 = new WGraph_Algo();
+        g0.init(g);
+        g0.isConnected();
+        g0.shortestPathDist(0, 9);
+        g0.shortestPath(0, 9);
+        assertEquals(before, g);
+        for (node_info n : g.getV()) {
+            assertEquals("Blue", n.getInfo());
+        }
+    }
+
+    @Test
+    void concurrentQueries() {
+        g = WGraph_DSTest.graph_creator(2000, 8000, 3);
+        weighted_graph_algorithms g0 = new WGraph_Algo();
+        g0.init(g);
+        double[] expected = new double[50];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = g0.shortestPathDist(i, 1999 - i);
+        }
+        AtomicInteger wrong = new AtomicInteger();
+        IntStream.range(0, 400).parallel().forEach(j -> {
+            int i = j % expected.length;
+            if (g0.shortestPathDist(i, 1999 - i) != expected[i]) {
+                wrong.incrementAndGet();
+            }
+        });
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    void shortestPathDistRandom() {
+        g = WGraph_DSTest.graph_creator(300, 900, 7);
+        weighted_graph_algorithms g0 = new WGraph_Algo();
+        g0.init(g);
+        double[][] expected = floydWarshall(g, 300);
+        for (int i = 0; i < 300; i += 7) {
+            for (int j = 0; j < 300; j += 11) {
+                double e = expected[i][j] == Double.POSITIVE_INFINITY ? -1 : expected[i][j];
+                assertEquals(e, g0.shortestPathDist(i, j), 0.000001);
+            }
+        }
+    }
+
+    @Test
+    void bidirectional() {
+        g = WGraph_DSTest.graph_creator(300, 700, 5);
+        double[][] expected = floydWarshall(g, 300);
+        WGraph_Algo g0 = new WGraph_Algo();
+        g0.init(g);
+        g0.setMode(WGraph_Algo.Mode.BIDIRECTIONAL);
+        for (int i = 0; i < 300; i += 13) {
+            for (int j = 0; j < 300; j += 7) {
+                PathResult r = g0.shortestPathResult(i, j);
+                if (expected[i][j] == Double.POSITIVE_INFINITY) {
+                    assertFalse(r.hasPath());
+                    assertEquals(-1, g0.shortestPathDist(i, j));
+                    continue;
+                }
+                assertEquals(expected[i][j], r.getDist(), 0.000001);
+                assertEquals(expected[i][j], g0.shortestPathDist(i, j), 0.000001);
+                int[] path = r.getPath();
+                assertEquals(i, path[0]);
+                assertEquals(j, path[path.length - 1]);
+                double sum = 0;
+                for (int k = 1; k < path.length; k++) {
+                    sum += g.getEdge(path[k - 1], path[k]);
+                }
+                assertEquals(expected[i][j], sum, 0.000001);
+                // the distance is summed along the path from src, like the unidirectional search
+                assertEquals(sum, r.getDist());
+            }
+        }
+        List<node_info> p = g0.shortestPath(3, 3);
+        assertEquals(1, p.size());
+        assertEquals(3, p.get(0).getKey());
+
+        // random weights on a grid, where most sums depend on the order of the additions
+        Random rnd = new Random(4);
+        weighted_graph grid = new WGraph_DS();
+        int side = 150;
+        for (int i = 0; i < side * side; i++) {
+            grid.addNode(i);
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) grid.connect(r * side + c, r * side + c + 1, rnd.nextDouble() * 10);
+                if (r + 1 < side) grid.connect(r * side + c, (r + 1) * side + c, rnd.nextDouble() * 10);
+            }
+        }
+        g0.init(grid);
+        WGraph_Algo uni = new WGraph_Algo();
+        uni.init(grid);
+        uni.setMode(WGraph_Algo.Mode.UNIDIRECTIONAL);
+        for (int q = 0; q < 300; q++) {
+            int src = rnd.nextInt(side * side);
+            int dest = rnd.nextInt(side * side);
+            assertEquals(uni.shortestPathDist(src, dest), g0.shortestPathDist(src, dest));
+        }
+    }
+
+    @Test
+    void distanceMatrix() {
+        weighted_graph g = WGraph_DSTest.graph_creator(80, 150, 4);
+        g.addNode(100);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        int[] sources = {0, 5, 17, 5, 100, 79};
+        int[] targets = {3, 100, 0, 42, 42, 79, 11};
+        double[][] m = ga.distanceMatrix(sources, targets);
+        assertEquals(sources.length, m.length);
+        for (int i = 0; i < sources.length; i++) {
+            assertEquals(targets.length, m[i].length);
+            for (int j = 0; j < targets.length; j++) {
+                assertEquals(ga.shortestPathDist(sources[i], targets[j]), m[i][j], 0.000001);
+            }
+        }
+        assertEquals(0, ga.distanceMatrix(new int[0], targets).length);
+        assertEquals(0, ga.distanceMatrix(sources, new int[0])[0].length);
+        assertEquals(sources.length, ga.distanceMatrix(sources, new int[0]).length);
+        assertThrows(RuntimeException.class, () -> ga.distanceMatrix(new int[]{1000}, new int[0]));
+        assertThrows(RuntimeException.class, () -> ga.distanceMatrix(sources, new int[]{1000}));
+    }
+
+    @Test
+    void connectedComponents() {
+        weighted_graph g = WGraph_DSTest.graph_creator(300, 250, 6);
+        WGraph_Algo ds = new WGraph_Algo();
+        ds.init(g);
+        WGraph_Algo csr = new WGraph_Algo();
+        csr.init(new WGraph_CSR(g));
+        ConnectedComponents cc = ds.connectedComponents();
+        assertEquals(cc.count(), csr.connectedComponents().count());
+        assertEquals(300, Arrays.stream(cc.getSizes()).sum());
+        for (int a = 0; a < 300; a += 7) {
+            for (int b = 0; b < 300; b += 11) {
+                boolean path = ds.shortestPathDist(a, b) != -1;
+                assertEquals(path, ds.areConnected(a, b));
+                assertEquals(path, csr.areConnected(a, b));
+                assertEquals(path, cc.componentOf(a) == cc.componentOf(b));
+            }
+        }
+        assertEquals(cc.count() == 1, ds.isConnected());
+        assertEquals(cc.count() == 1, csr.isConnected());
+    }
+
+    @Test
+    void shortestPathTree() {
+        weighted_graph g = myGraph();
+        g.addNode(20);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        ShortestPathTree t = ga.shortestPathTree(0);
+        assertTrue(t.isComplete());
+        assertEquals(11, t.size());
+        assertEquals(0, t.getSource());
+        assertEquals(10.4, t.getDist(9), 0.0001);
+        assertArrayEquals(new int[]{0, 6, 5, 4, 7, 10}, t.path(10));
+        assertArrayEquals(new int[]{0}, t.path(0));
+        assertNull(t.path(20));
+        assertEquals(-1, t.getPathResult(20).getDist());
+        assertArrayEquals(listToArray(ga.shortestPath(0, 9)), t.getPathResult(9).getPath());
+        double[] d = t.getReachedDistances();
+        for (int i = 1; i < d.length; i++) {
+            assertTrue(d[i - 1] <= d[i]);
+        }
+
+        ShortestPathTree near = ga.shortestPathTree(0, 4.5, Integer.MAX_VALUE);
+        assertFalse(near.isComplete());
+        assertArrayEquals(new int[]{0, 6, 5, 1}, near.getKeys());
+        assertEquals(-1, near.getDist(4));
+        assertArrayEquals(new int[]{-1, 0, 1, 0}, near.getParents());
+        ShortestPathTree few = ga.shortestPathTree(0, Double.POSITIVE_INFINITY, 2);
+        assertArrayEquals(new int[]{0, 6}, few.getKeys());
+        assertThrows(IllegalArgumentException.class, () -> ga.shortestPathTree(0, 5, 0));
+        assertThrows(RuntimeException.class, () -> ga.shortestPathTree(30));
+
+        weighted_graph big = WGraph_DSTest.graph_creator(2000, 8000, 3);
+        ga.init(big);
+        ga.setMode(WGraph_Algo.Mode.UNIDIRECTIONAL);
+        t = ga.shortestPathTree(7);
+        for (node_info n : big.getV()) {
+            assertEquals(ga.shortestPathDist(7, n.getKey()), t.getDist(n.getKey()));
+            assertEquals(t.getDistances()[t.indexOf(n.getKey())], t.reached(n.getKey()) ? t.getDist(n.getKey()) : Double.POSITIVE_INFINITY);
+        }
+    }
+
+    @Test
+    void nearest() {
+        weighted_graph g = myGraph();
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        assertArrayEquals(new int[]{0, 6, 5}, ga.nearest(0, 3).getKeys());
+        assertArrayEquals(new double[]{0, 1, 2.5}, ga.nearest(0, 3).getDists(), 0.0001);
+        assertArrayEquals(new int[]{0, 6, 5, 1, 4}, ga.withinRadius(0, 5).getKeys());
+        assertArrayEquals(new int[]{10, 9}, ga.nearest(0, 2, key -> key > 8).getKeys());
+        assertArrayEquals(new int[]{8, 7}, ga.withinRadius(0, 9, key -> key > 6).getKeys());
+        NearestNodes set = ga.nearest(0, 5, new int[]{9, 1, 9});
+        assertArrayEquals(new int[]{1, 9}, set.getKeys());
+        assertEquals(10.4, set.getDist(1), 0.0001);
+        assertEquals(0, ga.nearest(0, 0).size());
+        assertEquals(11, ga.nearest(0, 100).size());
+        assertThrows(RuntimeException.class, () -> ga.nearest(0, 1, new int[]{30}));
+        assertThrows(IllegalArgumentException.class, () -> ga.nearest(0, -1));
+
+        weighted_graph big = WGraph_DSTest.graph_creator(1000, 4000, 5);
+        ga.init(big);
+        ga.setMode(WGraph_Algo.Mode.UNIDIRECTIONAL);
+        NearestNodes r = ga.withinRadius(3, 2.5, key -> key % 3 == 0);
+        int count = 0;
+        for (node_info n : big.getV()) {
+            double d = ga.shortestPathDist(3, n.getKey());
+            if (d != -1 && d <= 2.5 && n.getKey() % 3 == 0) {
+                count++;
+            }
+        }
+        assertEquals(count, r.size());
+        for (int i = 0; i < r.size(); i++) {
+            assertEquals(ga.shortestPathDist(3, r.getKey(i)), r.getDist(i));
+            assertTrue(i == 0 || r.getDist(i - 1) <= r.getDist(i));
+        }
+    }
+
+    @Test
+    void hopDistance() {
+        weighted_graph g = myGraph();
+        g.addNode(20);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        assertEquals(3, ga.hopDistance(0, 10));
+        assertEquals(0, ga.hopDistance(4, 4));
+        assertEquals(1, ga.hopDistance(9, 4));
+        assertEquals(-1, ga.hopDistance(0, 20));
+        assertThrows(RuntimeException.class, () -> ga.hopDistance(0, 30));
+        ga.init(new WGraph_CSR(g));
+        assertFalse(ga.isConnected());
+        g.removeNode(20);
+        ga.init(new WGraph_CSR(g));
+        assertTrue(ga.isConnected());
+        assertTrue(ga.isConnected(new ForkJoinPool(2)));
+    }
+
+    /**
+     * Returns the distances between all the pairs of a graph with the keys 0..n-1, infinity if there is no path.
+     */
+    static double[][] floydWarshall(weighted_graph g, int n) {
+        double[][] d = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(d[i], Double.POSITIVE_INFINITY);
+            d[i][i] = 0;
+            if (g.getNode(i) == null) {
+                continue;
+            }
+            for (node_info ni : g.getV(i)) {
+                d[i][ni.getKey()] = g.getEdge(i, ni.getKey());
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (d[i][k] + d[k][j] < d[i][j]) {
+                        d[i][j] = d[i][k] + d[k][j];
+                    }
+                }
+            }
+        }
+        return d;
+    }
+
     private weighted_graph myGraph() {
         weighted_graph g = new WGraph_DS();
         int nodeSize = 10;
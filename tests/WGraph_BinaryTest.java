@@ -0,0 +1,136 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_BinaryTest {
+
+    @Test
+    void writeAndRead() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(500, 2000, 3);
+        for (int i = 0; i < 500; i += 7) {
+            g.removeNode(i);
+        }
+        g.addNode(-40);
+        g.getNode(-40).setInfo("\u05e9\u05dc\u05d5\u05dd \u00e9");
+        g.getNode(-40).setTag(2.5);
+        String file = "theGraph.wgb";
+        WGraph_Binary.write(g, file);
+        assertTrue(WGraph_Binary.isBinary(file));
+        WGraph_DS loaded = WGraph_Binary.read(file);
+        assertEquals(g, loaded);
+        assertEquals(g.edgeSize(), loaded.edgeSize());
+        assertEquals(g.getMC(), loaded.getMC());
+        assertEquals("\u05e9\u05dc\u05d5\u05dd \u00e9", loaded.getNode(-40).getInfo());
+        assertEquals(2.5, loaded.getNode(-40).getTag());
+        for (node_info n : g.getV()) {
+            for (node_info ni : g.getV(n.getKey())) {
+                assertEquals(g.getEdge(n.getKey(), ni.getKey()), loaded.getEdge(n.getKey(), ni.getKey()));
+            }
+        }
+        WGraph_Binary.write(new WGraph_CSR(g), file);
+        assertEquals(g, WGraph_Binary.read(file));
+        weighted_graph small = new WGraph_DS();
+        small.addNode(1);
+        small.getNode(1).setInfo(null);
+        WGraph_Binary.write(small, file);
+        assertNull(WGraph_Binary.read(file).getNode(1).getInfo());
+    }
+
+    @Test
+    void corruptedFiles() throws IOException {
+        String file = "theGraph.wgb";
+        WGraph_Binary.write(WGraph_DSTest.graph_creator(100, 300, 2), file);
+        try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+            f.seek(f.length() / 2);
+            int b = f.read();
+            f.seek(f.length() / 2);
+            f.write(b ^ 0x10);
+        }
+        assertThrows(IOException.class, () -> WGraph_Binary.read(file));
+        try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+            f.setLength(f.length() - 20);
+        }
+        assertThrows(IOException.class, () -> WGraph_Binary.read(file));
+        WGraph_Algo algo = new WGraph_Algo();
+        weighted_graph before = algo.getGraph();
+        assertFalse(algo.load(file));
+        assertSame(before, algo.getGraph());
+    }
+
+    @Test
+    void corruptedWeights() throws IOException {
+        String file = "theGraph.wgb";
+        // the weight of the last edge is the 8 bytes before the checksum: a flipped sign bit, then a NaN
+        long[] weights = {Double.doubleToLongBits(-1.5), Double.doubleToLongBits(Double.NaN)};
+        for (long bits : weights) {
+            WGraph_Binary.write(WGraph_DSTest.graph_creator(100, 300, 2), file);
+            try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+                f.seek(f.length() - 16);
+                f.writeLong(bits);
+            }
+            assertThrows(IOException.class, () -> WGraph_Binary.read(file));
+            WGraph_Algo algo = new WGraph_Algo();
+            weighted_graph before = algo.getGraph();
+            assertFalse(algo.load(file));
+            assertSame(before, algo.getGraph());
+        }
+    }
+
+    @Test
+    void hugeCounts() throws IOException {
+        // a header of 0x7ffffff0 nodes, and a node of degree 0x7fffffff - the counts must not pre-size the graph
+        int[][] files = {{0x7ffffff0, 0}, {1, 0x7fffffff}};
+        for (int[] counts : files) {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream("theGraph.wgb"))) {
+                out.writeInt(WGraph_Binary.MAGIC);
+                out.writeInt(WGraph_Binary.VERSION);
+                out.writeInt(counts[0]);
+                out.writeInt(0);
+                out.writeInt(0);
+                out.writeInt(7);
+                out.writeInt(counts[1]);
+                out.writeLong(0);
+            }
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                assertThrows(IOException.class, () -> WGraph_Binary.read("theGraph.wgb"));
+                assertFalse(new WGraph_Algo().load("theGraph.wgb"));
+            });
+        }
+    }
+
+    @Test
+    void longChain() {
+        // Java serialization of a long chain recurses through the neighbors
+        WGraph_DS g = new WGraph_DS(200000);
+        for (int i = 0; i < 200000; i++) {
+            g.addNode(i);
+            g.connect(i, i - 1, 1);
+        }
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        assertTrue(algo.save("theChain.wgb"));
+        WGraph_Algo other = new WGraph_Algo();
+        assertTrue(other.load("theChain.wgb"));
+        assertEquals(g, other.getGraph());
+        assertEquals(199999, other.shortestPathDist(0, 199999));
+    }
+
+    @Test
+    void loadsSerializedGraphs() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(50, 100, 4);
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream("theGraph.obj"))) {
+            out.writeObject(g);
+        }
+        assertFalse(WGraph_Binary.isBinary("theGraph.obj"));
+        WGraph_Algo algo = new WGraph_Algo();
+        assertTrue(algo.load("theGraph.obj"));
+        assertEquals(g, algo.getGraph());
+    }
+}
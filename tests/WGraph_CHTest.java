@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_CHTest {
+
+    @Test
+    void sameAsDijkstra() {
+        Random rnd = new Random(5);
+        weighted_graph g = WGraph_DSTest.graph_creator(400, 1200, 2);
+        weighted_graph_algorithms dijkstra = new WGraph_Algo();
+        dijkstra.init(g);
+        weighted_graph_algorithms ch = new WGraph_CH();
+        ch.init(g);
+        for (int i = 0; i < 300; i++) {
+            int src = rnd.nextInt(400);
+            int dest = rnd.nextInt(400);
+            double d = dijkstra.shortestPathDist(src, dest);
+            assertEquals(d, ch.shortestPathDist(src, dest), 0.0001);
+            List<node_info> path = ch.shortestPath(src, dest);
+            if (d < 0) {
+                assertNull(path);
+                continue;
+            }
+            assertEquals(src, path.get(0).getKey());
+            assertEquals(dest, path.get(path.size() - 1).getKey());
+            double sum = 0;
+            for (int j = 0; j + 1 < path.size(); j++) {
+                assertTrue(g.hasEdge(path.get(j).getKey(), path.get(j + 1).getKey()));
+                sum += g.getEdge(path.get(j).getKey(), path.get(j + 1).getKey());
+            }
+            assertEquals(d, sum, 0.0001);
+        }
+    }
+
+    @Test
+    void gridWithShortcuts() {
+        weighted_graph g = new WGraph_DS();
+        int side = 30;
+        for (int i = 0; i < side * side; i++) {
+            g.addNode(i);
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) g.connect(r * side + c, r * side + c + 1, 1 + (r * 7 + c) % 3);
+                if (r + 1 < side) g.connect(r * side + c, (r + 1) * side + c, 1 + (r + c * 5) % 4);
+            }
+        }
+        WGraph_CH ch = new WGraph_CH();
+        ch.init(g);
+        assertTrue(ch.shortcutSize() > 0);
+        weighted_graph_algorithms dijkstra = new WGraph_Algo();
+        dijkstra.init(g);
+        for (int src = 0; src < side * side; src += 37) {
+            for (int dest = 0; dest < side * side; dest += 53) {
+                assertEquals(dijkstra.shortestPathDist(src, dest), ch.shortestPathDist(src, dest), 0.0001);
+                assertEquals(dijkstra.shortestPath(src, dest).get(0), ch.shortestPath(src, dest).get(0));
+            }
+        }
+        assertEquals(0, ch.shortestPathDist(5, 5));
+        assertEquals(1, ch.shortestPath(5, 5).size());
+    }
+
+    @Test
+    void graphChanged() {
+        weighted_graph g = WGraph_DSTest.graph_creator(20, 40, 1);
+        weighted_graph_algorithms ch = new WGraph_CH();
+        ch.init(g);
+        ch.shortestPathDist(0, 1);
+        g.connect(0, 1, 0.001);
+        assertEquals(0.001, ch.shortestPathDist(0, 1));
+        g.addNode(50);
+        assertEquals(-1, ch.shortestPathDist(0, 50));
+        assertFalse(ch.isConnected());
+        assertThrows(RuntimeException.class, () -> ch.shortestPathDist(0, 51));
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_CSRTest {
+
+    @Test
+    void sameNodesAndEdges() {
+        weighted_graph g = WGraph_DSTest.graph_creator(100, 500, 1);
+        weighted_graph csr = new WGraph_CSR(g);
+        assertEquals(g.nodeSize(), csr.nodeSize());
+        assertEquals(g.edgeSize(), csr.edgeSize());
+        assertEquals(g.getMC(), csr.getMC());
+        for (node_info n : g.getV()) {
+            assertEquals(n.getKey(), csr.getNode(n.getKey()).getKey());
+            assertEquals(g.getV(n.getKey()).size(), csr.getV(n.getKey()).size());
+            for (node_info ni : g.getV(n.getKey())) {
+                assertTrue(csr.hasEdge(n.getKey(), ni.getKey()));
+                assertEquals(g.getEdge(n.getKey(), ni.getKey()), csr.getEdge(n.getKey(), ni.getKey()));
+            }
+        }
+        assertNull(csr.getNode(100));
+        assertFalse(csr.hasEdge(0, 0));
+    }
+
+    @Test
+    void readOnly() {
+        weighted_graph csr = new WGraph_CSR(WGraph_DSTest.graph_creator(5, 7, 1));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> csr.addNode(10));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> csr.connect(0, 1, 1));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> csr.removeEdge(0, 1));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> csr.removeNode(0));
+    }
+
+    @Test
+    void copyOfSnapshot() {
+        weighted_graph g = WGraph_DSTest.graph_creator(50, 200, 1);
+        weighted_graph_algorithms ag = new WGraph_Algo();
+        ag.init(new WGraph_CSR(g));
+        assertEquals(g, ag.copy());
+    }
+
+    @Test
+    void algorithmsOnSnapshot() {
+        weighted_graph g = WGraph_DSTest.graph_creator(200, 600, 2);
+        weighted_graph_algorithms ag = new WGraph_Algo();
+        ag.init(g);
+        weighted_graph_algorithms agc = new WGraph_Algo();
+        agc.init(new WGraph_CSR(g));
+        assertEquals(ag.isConnected(), agc.isConnected());
+        for (int i = 0; i < 20; i++) {
+            double d = ag.shortestPathDist(i, 199 - i);
+            assertEquals(d, agc.shortestPathDist(i, 199 - i), 0.000001);
+            List<node_info> path = agc.shortestPath(i, 199 - i);
+            if (d == -1) {
+                assertNull(path);
+                continue;
+            }
+            assertEquals(i, path.get(0).getKey());
+            assertEquals(199 - i, path.get(path.size() - 1).getKey());
+            double sum = 0;
+            for (int j = 1; j < path.size(); j++) {
+                sum += g.getEdge(path.get(j - 1).getKey(), path.get(j).getKey());
+            }
+            assertEquals(d, sum, 0.000001);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_CompressedTest {
+
+    @Test
+    void sameNodesAndEdges() {
+        weighted_graph g = WGraph_DSTest.graph_creator(300, 1200, 1);
+        for (int i = 0; i < 300; i += 11) {
+            g.removeNode(i);
+        }
+        g.addNode(-5);
+        g.addNode(Integer.MAX_VALUE);
+        g.connect(-5, Integer.MAX_VALUE, 2);
+        g.connect(-5, 1, 3);
+        g.getNode(-5).setInfo("info");
+        WGraph_Compressed c = new WGraph_Compressed(g);
+        assertEquals(WGraph_Compressed.Weights.DICTIONARY, c.getWeights());
+        assertEquals(g.nodeSize(), c.nodeSize());
+        assertEquals(g.edgeSize(), c.edgeSize());
+        assertEquals(g.getMC(), c.getMC());
+        for (node_info n : g.getV()) {
+            assertEquals(g.getV(n.getKey()).size(), c.getV(n.getKey()).size());
+            int count = 0;
+            for (node_info ni : c.getV(n.getKey())) {
+                assertEquals(g.getEdge(n.getKey(), ni.getKey()), c.getEdge(n.getKey(), ni.getKey()));
+                count++;
+            }
+            assertEquals(g.getV(n.getKey()).size(), count);
+        }
+        assertEquals("info", c.getNode(-5).getInfo());
+        assertNull(c.getNode(0));
+        assertEquals(g.hasEdge(1, 2), c.hasEdge(1, 2));
+        assertEquals(new WGraph_CSR(g), new WGraph_CSR(c));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> c.connect(1, 2, 1));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> c.removeNode(1));
+    }
+
+    @Test
+    void dictionaryAndQuantizedWeights() {
+        Random rnd = new Random(4);
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 2000; i++) {
+            g.addNode(i);
+        }
+        for (int i = 1; i < 2000; i++) {
+            g.connect(i, rnd.nextInt(i), 0.5 * (1 + rnd.nextInt(20)));
+            g.connect(i, rnd.nextInt(2000), 0.5 * (1 + rnd.nextInt(20)));
+        }
+        WGraph_Compressed dict = new WGraph_Compressed(g);
+        assertEquals(WGraph_Compressed.Weights.DICTIONARY, dict.getWeights());
+        assertEquals(new WGraph_CSR(g), new WGraph_CSR(dict));
+        // a gap of at most 2 bytes and a weight code of 1 byte for each direction of an edge
+        assertTrue(dict.adjacencyBytes() < 2L * 2 * g.edgeSize() * 3);
+        weighted_graph big = WGraph_DSTest.graph_creator(20000, 70000, 4);   // more distinct weights than a dictionary
+        WGraph_Compressed raw = new WGraph_Compressed(big);
+        assertEquals(WGraph_Compressed.Weights.RAW, raw.getWeights());
+        assertEquals(new WGraph_CSR(big), new WGraph_CSR(raw));
+        assertTrue(dict.adjacencyBytes() / (double) g.edgeSize() < raw.adjacencyBytes() / (double) big.edgeSize());
+
+        WGraph_Compressed q = new WGraph_Compressed(g, 0.25);
+        assertEquals(WGraph_Compressed.Weights.QUANTIZED, q.getWeights());
+        assertEquals(new WGraph_CSR(g), new WGraph_CSR(q));   // every weight is a multiple of the step
+        WGraph_Compressed coarse = new WGraph_Compressed(g, 2);
+        for (node_info n : g.getV()) {
+            for (node_info ni : g.getV(n.getKey())) {
+                double w = g.getEdge(n.getKey(), ni.getKey());
+                assertEquals(w, coarse.getEdge(n.getKey(), ni.getKey()), 1);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_Compressed(g, 0));
+    }
+
+    @Test
+    void algorithmsOnCompressedGraph() {
+        weighted_graph g = WGraph_DSTest.graph_creator(500, 1500, 2);
+        WGraph_Algo ag = new WGraph_Algo();
+        ag.init(g);
+        WGraph_Algo agc = new WGraph_Algo();
+        agc.init(new WGraph_Compressed(g));
+        assertEquals(ag.isConnected(), agc.isConnected());
+        for (int i = 0; i < 30; i++) {
+            assertEquals(ag.shortestPathDist(i, 499 - i), agc.shortestPathDist(i, 499 - i), 0.000001);
+            assertEquals(ag.hopDistance(i, 499 - i), agc.hopDistance(i, 499 - i));
+        }
+        assertEquals(g, agc.copy());
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(400, 1000, 5);
+        g.getNode(3).setTag(4.5);
+        WGraph_Compressed c = new WGraph_Compressed(g);
+        c.write("theGraph.wgc");
+        assertTrue(WGraph_Compressed.isCompressed("theGraph.wgc"));
+        WGraph_Compressed loaded = WGraph_Compressed.read("theGraph.wgc");
+        assertEquals(c, loaded);
+        assertEquals(4.5, loaded.getNode(3).getTag());
+        WGraph_Algo algo = new WGraph_Algo();
+        assertTrue(algo.load("theGraph.wgc"));
+        assertEquals(c, algo.getGraph());
+
+        new WGraph_Compressed(g, 0.125).write("theGraph.wgc");
+        assertEquals(new WGraph_Compressed(g, 0.125), WGraph_Compressed.read("theGraph.wgc"));
+
+        try (RandomAccessFile f = new RandomAccessFile("theGraph.wgc", "rw")) {
+            f.seek(f.length() / 2);
+            int b = f.read();
+            f.seek(f.length() / 2);
+            f.write(b ^ 1);
+        }
+        assertThrows(IOException.class, () -> WGraph_Compressed.read("theGraph.wgc"));
+        try (RandomAccessFile f = new RandomAccessFile("theGraph.wgc", "rw")) {
+            f.setLength(f.length() - 3);
+        }
+        assertThrows(IOException.class, () -> WGraph_Compressed.read("theGraph.wgc"));
+    }
+
+    @Test
+    void hugeCounts() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(200, 600, 6);
+        // the offsets of n (the amount of nodes) and of words (the size of the dictionary) in the header
+        int[] offsets = {8, 41};
+        for (int offset : offsets) {
+            new WGraph_Compressed(g).write("theGraph.wgc");
+            try (RandomAccessFile f = new RandomAccessFile("theGraph.wgc", "rw")) {
+                f.seek(offset);
+                f.writeInt(0x7ffffff0);
+            }
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                assertThrows(IOException.class, () -> WGraph_Compressed.read("theGraph.wgc"));
+                assertFalse(new WGraph_Algo().load("theGraph.wgc"));
+            });
+        }
+        // the header of a big graph without its rows
+        new WGraph_Compressed(WGraph_DSTest.graph_creator(5000, 20000, 7)).write("theGraph.wgc");
+        try (RandomAccessFile f = new RandomAccessFile("theGraph.wgc", "rw")) {
+            f.setLength(100);
+        }
+        assertThrows(IOException.class, () -> WGraph_Compressed.read("theGraph.wgc"));
+    }
+}
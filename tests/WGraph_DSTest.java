@@ -1,8 +1,15 @@
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -148,6 +155,27 @@ class WGraph_DSTest {
         assertEquals(g.edgeSize(),e-4);
     }
 
+    @Test
+    void removeManyNodes() {
+        g = new WGraph_DS();
+        for(int i=0;i<1000;i++) {
+            g.addNode(i*64);
+        }
+        for(int i=0;i<1000;i+=2) {
+            g.removeNode(i*64);
+        }
+        assertEquals(500,g.nodeSize());
+        assertEquals(500,g.getV().size());
+        for(int i=0;i<1000;i++) {
+            if(i%2 == 0) {
+                assertNull(g.getNode(i*64));
+            }
+            else {
+                assertEquals(i*64,g.getNode(i*64).getKey());
+            }
+        }
+    }
+
     @Test
     void removeEdge() {
         int v = 10;
@@ -195,4 +223,292 @@ class WGraph_DSTest {
         assertEquals(g,g2);
     }
 
-}
\ No newline at end of file
+    @Test
+    void connectivity() {
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 6; i++) {
+            g.addNode(i);
+        }
+        assertFalse(g.isConnected());
+        assertEquals(6, g.connectedComponents().count());
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 1);
+        g.connect(3, 4, 1);
+        assertTrue(g.areConnected(0, 2));
+        assertFalse(g.areConnected(0, 3));
+        ConnectedComponents cc = g.connectedComponents();
+        assertEquals(3, cc.count());
+        assertEquals(cc.componentOf(0), cc.componentOf(2));
+        assertEquals(3, cc.sizeOf(cc.componentOf(1)));
+        assertEquals(1, cc.sizeOf(cc.componentOf(5)));
+        assertEquals(-1, cc.componentOf(17));
+        g.connect(2, 3, 1);
+        g.connect(4, 5, 1);
+        assertTrue(g.isConnected());
+        g.removeEdge(2, 3);
+        assertFalse(g.isConnected());
+        assertFalse(g.areConnected(1, 4));
+        g.removeNode(1);
+        assertFalse(g.areConnected(0, 2));
+        g.addNode(1);  // reuses the index of the removed node
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 1);
+        assertTrue(g.areConnected(0, 2));
+        assertEquals(2, g.connectedComponents().count());
+        assertThrows(RuntimeException.class, () -> g.areConnected(0, 17));
+    }
+
+    @Test
+    void connectivityUnderChurn() {
+        Random rnd = new Random(7);
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 200; i++) {
+            g.addNode(i);
+        }
+        g.isConnected();  // from now on every change updates the connectivity
+        for (int step = 0; step < 5000; step++) {
+            int a = rnd.nextInt(200);
+            int b = rnd.nextInt(200);
+            int op = rnd.nextInt(10);
+            if (op < 6) {
+                g.connect(a, b, 1);
+            }
+            else if (op < 9) {
+                if (g.getNode(a) != null && g.getV(a).size() > 0) {
+                    g.removeEdge(a, g.getV(a).iterator().next().getKey());
+                }
+            }
+            else if (rnd.nextBoolean()) {
+                g.removeNode(a);
+            }
+            else {
+                g.addNode(a);
+            }
+            if (step % 50 == 0) {
+                WGraph_Algo fresh = new WGraph_Algo();
+                fresh.init(new WGraph_CSR(g));
+                ConnectedComponents expected = fresh.connectedComponents();
+                assertEquals(expected.count(), g.connectedComponents().count());
+                for (int i = 0; i < 50; i++) {
+                    int x = rnd.nextInt(200);
+                    int y = rnd.nextInt(200);
+                    if (g.getNode(x) != null && g.getNode(y) != null) {
+                        assertEquals(fresh.areConnected(x, y), g.areConnected(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void integerWeights() {
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 4; i++) {
+            g.addNode(i);
+        }
+        assertTrue(g.integerWeights());
+        g.connect(0, 1, 3);
+        g.connect(1, 2, 7);
+        assertTrue(g.integerWeights());
+        assertEquals(7, g.maxWeight());
+        g.connect(2, 3, 1.5);
+        assertFalse(g.integerWeights());
+        g.connect(2, 3, 2);
+        assertTrue(g.integerWeights());
+        g.connect(0, 3, 0.25);
+        g.removeEdge(0, 3);
+        assertTrue(g.integerWeights());
+        g.connect(0, 2, 0.5);
+        g.removeNode(0);
+        assertTrue(g.integerWeights());
+        assertFalse(new WGraph_CSR(graph_creator(10, 20, 1)).integerWeights());
+        assertTrue(new WGraph_CSR(g).integerWeights());
+        assertEquals(7, new WGraph_CSR(g).maxWeight());
+    }
+
+    /**
+     * Checks that the graph has exactly the nodes and the edges of the reference model.
+     */
+    private static void assertSameAsModel(Map<Integer, Map<Integer, Double>> model, weighted_graph g) {
+        assertEquals(model.size(), g.nodeSize());
+        int edges = 0;
+        for (Map.Entry<Integer, Map<Integer, Double>> e : model.entrySet()) {
+            int k = e.getKey();
+            assertNotNull(g.getNode(k));
+            assertEquals(e.getValue().size(), g.getV(k).size());
+            for (node_info ni : g.getV(k)) {
+                assertTrue(e.getValue().containsKey(ni.getKey()));
+            }
+            for (Map.Entry<Integer, Double> n : e.getValue().entrySet()) {
+                assertTrue(g.hasEdge(k, n.getKey()));
+                assertEquals((double) n.getValue(), g.getEdge(k, n.getKey()));
+            }
+            edges += e.getValue().size();
+        }
+        assertEquals(edges / 2, g.edgeSize());
+    }
+
+    @Test
+    void adjacencyTableAgainstHashMap() {
+        // x * 65537 hashes to x << 16, so all these keys start at slot 0 of any table of up to 2^16 slots
+        Random rnd = new Random(11);
+        int[] keys = new int[80];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i < 64 ? (i + 1) * 65537 : i;
+        }
+        WGraph_DS g0 = new WGraph_DS();
+        Map<Integer, Map<Integer, Double>> model = new HashMap<>();
+        for (int step = 0; step < 20000; step++) {
+            int a = keys[rnd.nextInt(keys.length)];
+            int b = keys[rnd.nextInt(keys.length)];
+            int op = rnd.nextInt(20);
+            if (op == 0) {
+                g0.removeNode(a);
+                Map<Integer, Double> ni = model.remove(a);
+                if (ni != null) {
+                    for (int n : ni.keySet()) {
+                        model.get(n).remove(a);
+                    }
+                }
+            } else if (op < 6) {
+                if (model.containsKey(a) && model.containsKey(b)) {
+                    g0.removeEdge(a, b);
+                    model.get(a).remove(b);
+                    model.get(b).remove(a);
+                }
+            } else {
+                g0.addNode(a);
+                g0.addNode(b);
+                model.putIfAbsent(a, new HashMap<>());
+                model.putIfAbsent(b, new HashMap<>());
+                double w = rnd.nextInt(10);
+                g0.connect(a, b, w);
+                if (a != b) {
+                    model.get(a).put(b, w);
+                    model.get(b).put(a, w);
+                }
+            }
+            if (step % 500 == 0) {
+                assertSameAsModel(model, g0);
+            }
+        }
+        assertSameAsModel(model, g0);
+        WGraph_DS copy = new WGraph_DS(g0);
+        assertSameAsModel(model, copy);
+        assertEquals(g0, copy);
+        if (!model.isEmpty()) {
+            int k = model.keySet().iterator().next();
+            copy.removeNode(k);
+            assertNotEquals(g0, copy);
+        }
+    }
+
+    @Test
+    void adjacencyTableGrowsAndEmpties() {
+        WGraph_DS g0 = new WGraph_DS();
+        int n = 5000;
+        for (int i = 0; i <= n; i++) {
+            g0.addNode(i * 65537);
+        }
+        for (int i = 1; i <= n; i++) {
+            g0.connect(0, i * 65537, i);
+        }
+        assertEquals(n, g0.getV(0).size());
+        assertEquals(n, g0.edgeSize());
+        for (int i = 1; i <= n; i++) {
+            assertEquals(i, g0.getEdge(0, i * 65537));
+        }
+        // remove every other edge, then all of them, the table must keep finding the rest
+        for (int i = 2; i <= n; i += 2) {
+            g0.removeEdge(0, i * 65537);
+        }
+        for (int i = 1; i <= n; i++) {
+            assertEquals(i % 2 == 1, g0.hasEdge(0, i * 65537));
+        }
+        for (int i = 1; i <= n; i += 2) {
+            g0.removeEdge(i * 65537, 0);
+        }
+        assertEquals(0, g0.getV(0).size());
+        assertEquals(0, g0.edgeSize());
+        assertFalse(g0.getV(0).iterator().hasNext());
+        for (int i = 1; i <= 10; i++) {
+            g0.connect(0, i * 65537, 1);
+        }
+        assertEquals(10, g0.getV(0).size());
+        assertEquals(10, g0.edgeSize());
+        g0.removeNode(0);
+        for (int i = 1; i <= n; i++) {
+            assertEquals(0, g0.getV(i * 65537).size());
+        }
+    }
+
+    /**
+     * Returns the bytes of the given object in a Java serialization stream.
+     */
+    private static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Test
+    void serialization() throws Exception {
+        weighted_graph g0 = graph_creator(1000, 5000, 3);
+        for (int i = 0; i < 1000; i += 7) {
+            g0.removeNode(i);
+        }
+        g0.addNode(-3);
+        g0.connect(-3, 1, 0.1 + 0.2);
+        g0.getNode(1).setInfo("one");
+        g0.getNode(2).setTag(2.5);
+        WGraph_DS loaded = (WGraph_DS) deserialize(serialize(g0));
+        assertEquals(g0, loaded);
+        assertEquals(g0.getMC(), loaded.getMC());
+        assertEquals(g0.edgeSize(), loaded.edgeSize());
+        assertEquals(0.1 + 0.2, loaded.getEdge(1, -3));
+        assertEquals(2.5, loaded.getNode(2).getTag());
+        loaded.connect(-3, 2, 1);
+        loaded.removeNode(1);
+        assertTrue(loaded.hasEdge(2, -3));
+        assertNull(loaded.getNode(1));
+        assertEquals(1, loaded.getV(-3).size());
+
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g0);
+        WGraph_Algo algo2 = (WGraph_Algo) deserialize(serialize(algo));
+        assertEquals(g0, algo2.getGraph());
+        assertEquals(algo.isConnected(), algo2.isConnected());
+    }
+
+    @Test
+    void serializeLongChain() throws Exception {
+        // the default serialization followed the neighbors recursively, and a long path overflowed the stack
+        int n = 1000000;
+        WGraph_DS chain = new WGraph_DS(n);
+        for (int i = 0; i < n; i++) {
+            chain.addNode(i);
+            if (i > 0) {
+                chain.connect(i - 1, i, 1);
+            }
+        }
+        byte[] bytes = serialize(chain);
+        // for every node 4 bytes of a key, 8 of a tag and 5 of the info ("Blue" once, then back references),
+        // for every edge 8 bytes of the ends and 8 of the weight
+        assertTrue(bytes.length < 34L * n, "length " + bytes.length);
+        WGraph_DS loaded = (WGraph_DS) deserialize(bytes);
+        assertEquals(n, loaded.nodeSize());
+        assertEquals(n - 1, loaded.edgeSize());
+        assertTrue(loaded.hasEdge(n - 2, n - 1));
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(loaded);
+        assertEquals(n - 1, algo.shortestPathDist(0, n - 1));
+    }
+}
@@ -0,0 +1,129 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_EdgeListTest {
+
+    @Test
+    void writeAndRead() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(400, 1500, 6);
+        for (int i = 0; i < 400; i += 13) {
+            g.removeNode(i);
+        }
+        g.addNode(-12);                 // a node without edges
+        g.connect(1, 2, 0.1 + 0.2);     // a weight with all the digits of a double
+        g.connect(3, 4, 7);
+        g.connect(5, 6, 1e-300);
+        WGraph_EdgeList.write(g, "theGraph.txt");
+        for (ForkJoinPool pool : new ForkJoinPool[]{null, ForkJoinPool.commonPool()}) {
+            WGraph_DS loaded = WGraph_EdgeList.read("theGraph.txt", pool);
+            assertEquals(g.nodeSize(), loaded.nodeSize());
+            assertEquals(g.edgeSize(), loaded.edgeSize());
+            for (node_info n : g.getV()) {
+                for (node_info ni : g.getV(n.getKey())) {
+                    assertEquals(g.getEdge(n.getKey(), ni.getKey()), loaded.getEdge(n.getKey(), ni.getKey()));
+                }
+            }
+            assertNotNull(loaded.getNode(-12));
+            assertEquals(0.1 + 0.2, loaded.getEdge(1, 2));
+        }
+    }
+
+    @Test
+    void otherEdgeLists() throws IOException {
+        try (PrintWriter out = new PrintWriter("theGraph.txt")) {
+            out.println("% a plain edge list with comments");
+            out.println("c and a DIMACS comment");
+            out.println("p sp 5 4");
+            out.println("a 1 2 3");
+            out.println("1\t3");
+            out.println("  4 5 2.5  ");
+            out.println();
+            out.println("# the last line has no new line");
+            out.print("e 5 1 1e1");
+        }
+        WGraph_DS g = WGraph_EdgeList.read("theGraph.txt");
+        assertEquals(5, g.nodeSize());
+        assertEquals(4, g.edgeSize());
+        assertEquals(3, g.getEdge(1, 2));
+        assertEquals(1, g.getEdge(1, 3));
+        assertEquals(2.5, g.getEdge(5, 4));
+        assertEquals(10, g.getEdge(1, 5));
+    }
+
+    @Test
+    void hugeNodeCount() throws IOException {
+        // the p line of a third party file is only a hint of the size of the graph
+        try (PrintWriter out = new PrintWriter("theGraph.txt")) {
+            out.println("p edge 2000000000 1");
+            out.println("e 1 2 3");
+        }
+        WGraph_DS g = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> WGraph_EdgeList.read("theGraph.txt"));
+        assertEquals(2, g.nodeSize());
+        assertEquals(3, g.getEdge(1, 2));
+    }
+
+    @Test
+    void badLines() throws IOException {
+        String[] bad = {"1 2 x", "1", "e 1 2 -3", "1 2 3 4", "q 1 2", "99999999999 1"};
+        for (String line : bad) {
+            try (PrintWriter out = new PrintWriter("theGraph.txt")) {
+                out.println("1 2 3");
+                out.println(line);
+            }
+            IOException ex = assertThrows(IOException.class, () -> WGraph_EdgeList.read("theGraph.txt"));
+            assertTrue(ex.getMessage().contains("byte 6"), ex.getMessage());
+        }
+        WGraph_Algo algo = new WGraph_Algo();
+        weighted_graph before = algo.getGraph();
+        assertFalse(algo.myLoad("theGraph.txt"));
+        assertFalse(algo.myLoad("noSuchFile.txt"));
+        assertSame(before, algo.getGraph());
+    }
+
+    @Test
+    void manyChunks() throws IOException {
+        // about two chunks of lines, parsed in many slices
+        Random rnd = new Random(8);
+        WGraph_DS g = new WGraph_DS();
+        int n = 300000;
+        for (int i = 0; i < n; i++) {
+            g.addNode(i);
+        }
+        for (int i = 1; i < n; i++) {
+            g.connect(i, rnd.nextInt(i), rnd.nextDouble() * 100);
+            g.connect(i, rnd.nextInt(n), rnd.nextInt(50));
+        }
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        assertTrue(algo.mySave("theGraph.txt"));
+        long length = new java.io.File("theGraph.txt").length();
+        assertTrue(length > WGraph_EdgeList.CHUNK_SIZE, "length " + length);
+        WGraph_Algo other = new WGraph_Algo();
+        assertTrue(other.myLoad("theGraph.txt"));
+        assertEquals(g, other.getGraph());
+    }
+
+    @Test
+    void singleLineFiles() throws IOException {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 4; i++) {
+            g.addNode(i);
+        }
+        g.connect(0, 1, 2);
+        g.connect(1, 2, 3.5);
+        g.connect(2, 3, 1);
+        try (PrintWriter out = new PrintWriter("theGraph.txt")) {
+            out.println(g);
+        }
+        WGraph_Algo algo = new WGraph_Algo();
+        assertTrue(algo.myLoad("theGraph.txt"));
+        assertEquals(g, algo.getGraph());
+    }
+}
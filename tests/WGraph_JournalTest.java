@@ -0,0 +1,220 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_JournalTest {
+
+    /**
+     * Makes the same random changes to the journal and to a plain graph.
+     */
+    private static void changes(weighted_graph journal, weighted_graph plain, int seed, int count) {
+        Random rnd = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            int a = rnd.nextInt(300);
+            int b = rnd.nextInt(300);
+            switch (rnd.nextInt(10)) {
+                case 0:
+                    journal.removeNode(a);
+                    plain.removeNode(a);
+                    break;
+                case 1:
+                case 2:
+                    if (plain.getNode(a) != null && plain.getNode(b) != null) {
+                        journal.removeEdge(a, b);
+                        plain.removeEdge(a, b);
+                    }
+                    break;
+                default:
+                    journal.addNode(a);
+                    plain.addNode(a);
+                    journal.addNode(b);
+                    plain.addNode(b);
+                    double w = rnd.nextInt(100) / 4.0;
+                    journal.connect(a, b, w);
+                    plain.connect(a, b, w);
+            }
+        }
+    }
+
+    @Test
+    void recoverAfterCrash() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_DS plain = new WGraph_DS();
+        WGraph_Journal journal = new WGraph_Journal(dir.toString());
+        changes(journal, plain, 1, 5000);
+        journal.sync();
+        // no close: the next journal sees only what sync() forced to the disk
+        WGraph_Journal recovered = new WGraph_Journal(dir.toString());
+        assertEquals(plain, recovered.getGraph());
+        assertEquals(plain.edgeSize(), recovered.edgeSize());
+        recovered.close();
+        journal.close();
+    }
+
+    @Test
+    void checkpoints() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_DS plain = new WGraph_DS();
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            changes(journal, plain, 2, 3000);
+            journal.checkpoint();
+            assertEquals(1, journal.getGeneration());
+            changes(journal, plain, 3, 3000);
+        }
+        assertTrue(Files.exists(dir.resolve("checkpoint-1.wgb")));
+        assertFalse(Files.exists(dir.resolve("journal-0.log")));
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            assertEquals(plain, journal.getGraph());
+            journal.checkpoint();
+            changes(journal, plain, 4, 100);
+        }
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            assertEquals(plain, journal.getGraph());
+            assertEquals(2, journal.getGeneration());
+        }
+        assertFalse(Files.exists(dir.resolve("checkpoint-1.wgb")));
+    }
+
+    @Test
+    void tornBlock() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_DS plain = new WGraph_DS();
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            changes(journal, plain, 5, 2000);
+        }
+        Path log = dir.resolve("journal-0.log");
+        long size = Files.size(log);
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            // the head of a block of 100 bytes, and only 3 of its bytes
+            ch.write(ByteBuffer.allocate(11).putInt(100).putInt(12345).put(new byte[]{2, 0, 0}).flip());
+        }
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            assertEquals(plain, journal.getGraph());
+            assertEquals(size, Files.size(log));
+            changes(journal, plain, 6, 100);
+        }
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            assertEquals(plain, journal.getGraph());
+        }
+    }
+
+    @Test
+    void damagedCheckpoint() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_DS plain = new WGraph_DS();
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            changes(journal, plain, 7, 3000);
+            journal.checkpoint();
+            changes(journal, plain, 8, 1000);
+        }
+        // a checkpoint that was not read back (the crash left it) is skipped, the older files are still there
+        Files.write(dir.resolve("checkpoint-2.wgb"), new byte[]{1, 2, 3});
+        Files.write(dir.resolve("journal-2.log"), new byte[0]);
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            assertEquals(plain, journal.getGraph());
+            assertEquals(2, journal.getGeneration());
+        }
+        // the only checkpoint is damaged and journal-0.log is gone: the changes before generation 1 are lost
+        Files.delete(dir.resolve("checkpoint-2.wgb"));
+        Path checkpoint = dir.resolve("checkpoint-1.wgb");
+        byte[] bytes = Files.readAllBytes(checkpoint);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(checkpoint, bytes);
+        assertThrows(IOException.class, () -> new WGraph_Journal(dir.toString()));
+        // a missing journal in the middle is not skipped either
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(checkpoint, bytes);
+        Files.delete(dir.resolve("journal-1.log"));
+        assertThrows(IOException.class, () -> new WGraph_Journal(dir.toString()));
+    }
+
+    @Test
+    void corruptedNewestCheckpoint() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        Path keep = Files.createTempDirectory("journal");
+        WGraph_DS plain = new WGraph_DS();
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            changes(journal, plain, 9, 3000);
+            journal.checkpoint();
+            changes(journal, plain, 10, 1000);
+        }
+        // the files of generation 1, as a crash before they were deleted would leave them
+        Files.copy(dir.resolve("checkpoint-1.wgb"), keep.resolve("checkpoint-1.wgb"));
+        Files.copy(dir.resolve("journal-1.log"), keep.resolve("journal-1.log"));
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            journal.checkpoint();
+            changes(journal, plain, 11, 1000);
+        }
+        Files.copy(keep.resolve("checkpoint-1.wgb"), dir.resolve("checkpoint-1.wgb"));
+        Files.copy(keep.resolve("journal-1.log"), dir.resolve("journal-1.log"));
+        // the sign bit of the last weight of checkpoint-2 (the 8 bytes before the checksum)
+        Path checkpoint = dir.resolve("checkpoint-2.wgb");
+        byte[] bytes = Files.readAllBytes(checkpoint);
+        bytes[bytes.length - 16] ^= (byte) 0x80;
+        Files.write(checkpoint, bytes);
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            assertEquals(plain, journal.getGraph());
+            assertEquals(2, journal.getGeneration());
+        }
+    }
+
+    @Test
+    void backgroundCheckpoints() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_DS plain = new WGraph_DS();
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString(), 1, 4096)) {
+            for (int seed = 0; seed < 20 && journal.getGeneration() == 0; seed++) {
+                changes(journal, plain, 10 + seed, 1000);
+                journal.sync();
+                Thread.sleep(20);
+            }
+            assertTrue(journal.getGeneration() > 0);
+        }
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            assertEquals(plain, journal.getGraph());
+        }
+    }
+
+    @Test
+    void concurrentWriters() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                int base = t * 1000;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        journal.addNode(base + i);
+                        journal.connect(base + i, base + i / 2, 1 + i % 7);
+                    }
+                    try {
+                        journal.sync();
+                    } catch (IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            assertEquals(4000, journal.nodeSize());
+            assertEquals(3996, journal.edgeSize());
+        }
+        try (WGraph_Journal journal = new WGraph_Journal(dir.toString())) {
+            assertEquals(4000, journal.nodeSize());
+            assertEquals(3996, journal.edgeSize());
+            WGraph_Algo algo = new WGraph_Algo();
+            algo.init(journal);
+            assertEquals(4, algo.shortestPathDist(3, 1));
+        }
+    }
+}
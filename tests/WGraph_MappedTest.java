@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_MappedTest {
+
+    @Test
+    void sameNodesAndEdges() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(300, 1200, 1);
+        for (int i = 0; i < 300; i += 11) {
+            g.removeNode(i);
+        }
+        g.addNode(-7);
+        g.getNode(-7).setInfo("\u05e9\u05dc\u05d5\u05dd");
+        g.getNode(-7).setTag(1.5);
+        g.getNode(1).setInfo(null);
+        WGraph_Mapped.write(g, "theGraph.wgm");
+        WGraph_Mapped mapped = WGraph_Mapped.open("theGraph.wgm");
+        assertEquals(g.nodeSize(), mapped.nodeSize());
+        assertEquals(g.edgeSize(), mapped.edgeSize());
+        assertEquals(g.getMC(), mapped.getMC());
+        for (node_info n : g.getV()) {
+            node_info m = mapped.getNode(n.getKey());
+            assertEquals(n.getKey(), m.getKey());
+            assertEquals(n.getInfo(), m.getInfo());
+            assertEquals(n.getTag(), m.getTag());
+            assertEquals(g.getV(n.getKey()).size(), mapped.getV(n.getKey()).size());
+            for (node_info ni : mapped.getV(n.getKey())) {
+                assertTrue(g.hasEdge(n.getKey(), ni.getKey()));
+                assertEquals(g.getEdge(n.getKey(), ni.getKey()), mapped.getEdge(n.getKey(), ni.getKey()));
+            }
+        }
+        assertNull(mapped.getNode(0));
+        assertFalse(mapped.hasEdge(0, 1));
+        assertEquals("\u05e9\u05dc\u05d5\u05dd", mapped.getNode(-7).getInfo());
+        assertEquals(new WGraph_CSR(g), new WGraph_CSR(mapped));
+        assertEquals(mapped, WGraph_Mapped.open("theGraph.wgm"));
+    }
+
+    @Test
+    void readOnly() throws IOException {
+        WGraph_Mapped.write(WGraph_DSTest.graph_creator(5, 7, 1), "theGraph.wgm");
+        weighted_graph mapped = WGraph_Mapped.open("theGraph.wgm");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> mapped.addNode(10));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> mapped.connect(0, 1, 1));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> mapped.removeEdge(0, 1));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> mapped.removeNode(0));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> mapped.getNode(0).setTag(2));
+        Assertions.assertThrows(RuntimeException.class, () -> mapped.getV(10));
+    }
+
+    @Test
+    void algorithmsOnMappedGraph() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(500, 1500, 2);
+        WGraph_Mapped.write(g, "theGraph.wgm");
+        weighted_graph_algorithms ag = new WGraph_Algo();
+        ag.init(g);
+        weighted_graph_algorithms agm = new WGraph_Algo();
+        assertTrue(agm.load("theGraph.wgm"));
+        assertTrue(agm.getGraph() instanceof WGraph_Mapped);
+        assertEquals(ag.isConnected(), agm.isConnected());
+        for (int i = 0; i < 30; i++) {
+            assertEquals(ag.shortestPathDist(i, 499 - i), agm.shortestPathDist(i, 499 - i), 0.000001);
+        }
+        assertEquals(g, agm.copy());
+    }
+
+    @Test
+    void rewriteWhileMapped() throws IOException {
+        WGraph_Mapped.write(WGraph_DSTest.graph_creator(100, 300, 3), "theGraph.wgm");
+        WGraph_Mapped old = WGraph_Mapped.open("theGraph.wgm");
+        WGraph_Mapped.write(WGraph_DSTest.graph_creator(10, 20, 3), "theGraph.wgm");
+        assertEquals(100, old.nodeSize());
+        assertEquals(300, old.edgeSize());
+        int degrees = 0;
+        for (node_info n : old.getV()) {
+            degrees += old.getV(n.getKey()).size();
+        }
+        assertEquals(600, degrees);
+        assertEquals(10, WGraph_Mapped.open("theGraph.wgm").nodeSize());
+    }
+
+    @Test
+    void badFiles() throws IOException {
+        WGraph_Mapped.write(new WGraph_DS(), "theGraph.wgm");
+        assertEquals(0, WGraph_Mapped.open("theGraph.wgm").nodeSize());
+        WGraph_Mapped.write(WGraph_DSTest.graph_creator(50, 100, 4), "theGraph.wgm");
+        try (RandomAccessFile f = new RandomAccessFile("theGraph.wgm", "rw")) {
+            f.setLength(f.length() - 8);
+        }
+        assertThrows(IOException.class, () -> WGraph_Mapped.open("theGraph.wgm"));
+        WGraph_Binary.write(WGraph_DSTest.graph_creator(50, 100, 4), "theGraph.wgb");
+        assertFalse(WGraph_Mapped.isMapped("theGraph.wgb"));
+        assertThrows(IOException.class, () -> WGraph_Mapped.open("theGraph.wgb"));
+    }
+}